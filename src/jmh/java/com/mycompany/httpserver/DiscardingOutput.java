@@ -0,0 +1,42 @@
+package com.mycompany.httpserver;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Salida de conexión que descarta lo escrito: mide armar la respuesta (headers pre-codificados,
+ * escritura gathering) sin el costo del socket.
+ */
+final class DiscardingOutput extends OutputStream implements GatheringOutput {
+
+    private final ResponseWriter.Head head = new ResponseWriter.Head();
+    private long written;
+
+    @Override
+    public void write(int b) {
+        written++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        written += len;
+    }
+
+    @Override
+    public ResponseWriter.Head headerBuffer() {
+        return head;
+    }
+
+    @Override
+    public void writeGathered(ByteBuffer... buffers) {
+        for (ByteBuffer b : buffers) {
+            written += b.remaining();
+            b.position(b.limit());
+        }
+    }
+
+    @Override
+    public long bytesWritten() {
+        return written;
+    }
+}
@@ -0,0 +1,102 @@
+package com.mycompany.httpserver;
+
+import com.mycompany.microframework.core.RouteRegistry;
+import com.mycompany.webapp.controllers.GreetingController;
+import com.mycompany.webapp.controllers.StocksApiController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Una petición ya parseada de punta a punta por {@link HttpServer#respond}: ruta, invocador de
+ * RouteRegistry (plan de parámetros + MethodHandle), handler, métricas y escritura de la
+ * respuesta en una salida que descarta los bytes. Se ejecuta desde la raíz del proyecto
+ * (los estáticos se sirven de target/classes/static).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+    private final DiscardingOutput out = new DiscardingOutput();
+
+    @Setup
+    public void setup() {
+        HttpServer.staticfiles("/static");
+        RouteRegistry registry = new RouteRegistry();
+        registry.register(new GreetingController());
+        registry.register(new StocksApiController());
+    }
+
+    /** Cotizaciones sin caché: cada petición vuelve a generar el JSON completo. */
+    @State(Scope.Benchmark)
+    public static class NoQuoteCache {
+        private long ttl;
+
+        @Setup(Level.Trial)
+        public void disable() {
+            ttl = StocksApiController.quoteCache().ttlMs();
+            StocksApiController.quoteCache().ttlMs(0);
+            StocksApiController.quoteCache().clear();
+        }
+
+        @TearDown(Level.Trial)
+        public void restore() {
+            StocksApiController.quoteCache().ttlMs(ttl);
+        }
+    }
+
+    private long get(String path, String query) throws IOException {
+        HttpRequest req = new HttpRequest("GET", HttpRequestParser.HTTP_1_1, path, query, HttpHeaders.EMPTY);
+        HttpServer.respond(out, req, true);
+        return out.bytesWritten();
+    }
+
+    /** @GetMapping con @RequestParam que retorna String. */
+    @Benchmark
+    public long greeting() throws IOException {
+        return get("/greeting", "name=Ana");
+    }
+
+    /** JSON de una cotización desde la caché (cabeza y cola pre-serializadas + timestamp). */
+    @Benchmark
+    public long stockQuoteCached() throws IOException {
+        return get("/api/stocks", "symbol=AAPL");
+    }
+
+    @Benchmark
+    public long stockQuoteUncached(NoQuoteCache state) throws IOException {
+        return get("/api/stocks", "symbol=AAPL");
+    }
+
+    @Benchmark
+    public long stockBatch10() throws IOException {
+        return get("/api/stocks/batch", "symbols=AAPL,MSFT,GOOG,AMZN,META,TSLA,NVDA,IBM,ORCL,INTC");
+    }
+
+    /** index.html desde la caché de estáticos (headers pre-codificados, cuerpo en memoria). */
+    @Benchmark
+    public long staticIndexHtml() throws IOException {
+        return get("/index.html", null);
+    }
+
+    @Benchmark
+    public long staticNotFound() throws IOException {
+        return get("/no/existe.css", null);
+    }
+}
@@ -0,0 +1,78 @@
+package com.mycompany.httpserver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parseo de la línea de petición y headers, tal como lo hace handleClient por cada petición:
+ * parse sobre el buffer de la conexión, toRequest y lectura de headers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+    private final byte[] minimal = ascii("GET / HTTP/1.1\r\nHost: localhost\r\n\r\n");
+
+    // Cabecera típica de un navegador (~600 bytes, 11 headers)
+    private final byte[] browser = ascii("GET /api/stocks?symbol=AAPL HTTP/1.1\r\n"
+            + "Host: localhost:35000\r\n"
+            + "Connection: keep-alive\r\n"
+            + "sec-ch-ua: \"Chromium\";v=\"124\", \"Google Chrome\";v=\"124\", \"Not-A.Brand\";v=\"99\"\r\n"
+            + "sec-ch-ua-mobile: ?0\r\n"
+            + "User-Agent: Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/124.0.0.0 Safari/537.36\r\n"
+            + "sec-ch-ua-platform: \"Linux\"\r\n"
+            + "Accept: */*\r\n"
+            + "Sec-Fetch-Site: same-origin\r\n"
+            + "Referer: http://localhost:35000/\r\n"
+            + "Accept-Encoding: gzip, deflate, br, zstd\r\n"
+            + "Accept-Language: es-CO,es;q=0.9,en;q=0.8\r\n"
+            + "\r\n");
+
+    private final HttpRequestParser parser = new HttpRequestParser();
+
+    @Benchmark
+    public HttpRequest minimal() throws IOException {
+        return parse(minimal);
+    }
+
+    @Benchmark
+    public HttpRequest browser() throws IOException {
+        return parse(browser);
+    }
+
+    /** Parseo más los headers que consulta el servidor (Connection) y uno que leería un handler. */
+    @Benchmark
+    public void browserWithHeaderLookups(Blackhole bh) throws IOException {
+        HttpRequest req = parse(browser);
+        bh.consume(parser.keepAlive());
+        bh.consume(req.getHeader("Accept-Encoding"));
+        bh.consume(req.getHeader("If-None-Match"));
+    }
+
+    private HttpRequest parse(byte[] raw) throws IOException {
+        parser.reset();
+        int end = parser.parse(raw, 0, raw.length);
+        if (end == HttpRequestParser.NEED_MORE) throw new IllegalStateException("petición incompleta");
+        return parser.toRequest(raw, 0);
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
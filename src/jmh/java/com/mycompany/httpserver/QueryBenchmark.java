@@ -0,0 +1,52 @@
+package com.mycompany.httpserver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parámetros de query: HttpRequest (parseo perezoso, una vez por petición) frente a URLParser.
+ * Cada operación usa un HttpRequest nuevo, como en el servidor.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+
+    private final String rawQuery = "symbol=AAPL&name=Jos%C3%A9+Mar%C3%ADa&range=1d&interval=5m";
+    private final String url = "/stocks?" + rawQuery;
+
+    private HttpRequest request() {
+        return new HttpRequest("GET", HttpRequestParser.HTTP_1_1, "/stocks", rawQuery, HttpHeaders.EMPTY);
+    }
+
+    @Benchmark
+    public Map<String, String> getQueryMap() {
+        return request().getQueryMap();
+    }
+
+    /** Lo habitual en un handler: uno o dos parámetros por nombre. */
+    @Benchmark
+    public String getParam() {
+        HttpRequest req = request();
+        String s = req.getParam("symbol");
+        return req.getParam("interval", s);
+    }
+
+    @Benchmark
+    public Map<String, String> urlParser() {
+        return new URLParser(url).params();
+    }
+}
@@ -0,0 +1,62 @@
+package com.mycompany.httpserver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/** Búsqueda en el árbol de rutas: ruta literal, con variable, comodín final y sin ruta (estático). */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoutingBenchmark {
+
+    private Router router;
+    private final int[] captures = new int[16];
+
+    @Setup
+    public void setup() {
+        Service s = (req, resp) -> "";
+        Map<String, Service> routes = new LinkedHashMap<>();
+        for (String p : new String[]{"/", "/app/hello", "/greeting", "/stocks", "/api/stocks", "/app/stocks",
+                "/api/stocks/batch", "/api/stocks/stream", "/stocks/{symbol}", "/stocks/{symbol}/history",
+                "/users/{id}", "/users/{id}/orders/{orderId}", "/metrics", "/health", "/files/**"}) {
+            routes.put(p, s);
+        }
+        for (int i = 0; i < 20; i++) routes.put("/section" + i + "/items/{id}", s); // relleno: una app mediana
+        router = Router.build(routes);
+    }
+
+    @Benchmark
+    public Router.Route literal() {
+        return router.match("/api/stocks", captures);
+    }
+
+    @Benchmark
+    public Router.Route pathVariables() {
+        return router.match("/users/42/orders/1001", captures);
+    }
+
+    @Benchmark
+    public Router.Route catchAll() {
+        return router.match("/files/docs/2026/report.pdf", captures);
+    }
+
+    @Benchmark
+    public Router.Route miss() {
+        return router.match("/css/styles.css", captures);
+    }
+}
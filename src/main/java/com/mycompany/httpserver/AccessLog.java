@@ -0,0 +1,293 @@
+package com.mycompany.httpserver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Access log binario y asíncrono.
+ * - Cada petición deja un registro (hora, ruta, status, bytes, latencia) en un anillo de
+ *   tamaño fijo sin locks: el hilo de la petición reserva un slot con CAS, copia cinco campos
+ *   y lo publica. Si el anillo está lleno el registro se descarta (y se cuenta): nunca espera.
+ * - Un hilo escritor vacía el anillo en orden sobre segmentos de archivo mapeados en memoria
+ *   (access-NNNNNNNN.bin); al llenarse uno se recorta a lo escrito y se abre el siguiente,
+ *   conservando los últimos maxSegments.
+ * Lo escrito en el mapeo sobrevive a una caída del proceso (lo baja el sistema operativo).
+ * {@link AccessLogDecoder} convierte los segmentos a texto.
+ *
+ * Formato (big-endian): cabecera MAGIC(4) versión(u16) reservado(u16) creación(i64 ms);
+ * luego registros largoRuta(u16, >0) ruta(UTF-8) status(u16) hora(i64 ms) bytes(i64)
+ * latencia(i64 ns). Un largo 0 marca el fin de los datos.
+ */
+public final class AccessLog implements Closeable {
+
+    static final byte[] MAGIC = {'A', 'L', 'O', 'G'};
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int FIXED_RECORD_BYTES = 2 + 2 + 8 + 8 + 8;
+    static final int MAX_ROUTE_BYTES = 1024;
+
+    private static volatile AccessLog global;
+
+    // Anillo: arreglos paralelos indexados por secuencia & mask
+    private final int mask;
+    private final long[] times;
+    private final long[] sizes;
+    private final long[] latencies;
+    private final int[] statuses;
+    private final String[] routes;
+    private final AtomicLongArray published; // secuencia + 1 cuando el slot está listo
+    // Próxima secuencia a reservar; CLOSED se marca en el mismo valor para que ninguna reserva
+    // pase después del cierre sin contarse como descartada
+    private final AtomicLong head = new AtomicLong();
+    private static final long CLOSED = 1L << 62;
+    private volatile long tail;
+
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong written = new AtomicLong();
+
+    // Solo el hilo escritor
+    private final Path dir;
+    private final long segmentBytes;
+    private final int maxSegments;
+    private final Map<String, byte[]> encodedRoutes = new HashMap<>();
+    private long segmentIndex;
+    private FileChannel segmentChannel;
+    private MappedByteBuffer segment;
+
+    private final Thread writer;
+
+    /**
+     * @param ringSize     registros en vuelo (se redondea a potencia de dos)
+     * @param segmentBytes tamaño de cada archivo
+     * @param maxSegments  archivos que se conservan (0 = todos)
+     */
+    public AccessLog(Path dir, int ringSize, long segmentBytes, int maxSegments) throws IOException {
+        int capacity = Integer.highestOneBit(Math.max(2, ringSize - 1)) << 1;
+        this.mask = capacity - 1;
+        this.times = new long[capacity];
+        this.sizes = new long[capacity];
+        this.latencies = new long[capacity];
+        this.statuses = new int[capacity];
+        this.routes = new String[capacity];
+        this.published = new AtomicLongArray(capacity);
+        this.dir = dir;
+        this.segmentBytes = Math.max(HEADER_BYTES + FIXED_RECORD_BYTES + MAX_ROUTE_BYTES, segmentBytes);
+        this.maxSegments = Math.max(0, maxSegments);
+
+        Files.createDirectories(dir);
+        for (Path p : segments(dir)) segmentIndex = Math.max(segmentIndex, indexOf(p));
+        openSegment();
+
+        writer = new Thread(this::drainLoop, "access-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Access log que usa el servidor (null = desactivado). */
+    public static AccessLog global() {
+        return global;
+    }
+
+    /** Instala el access log del servidor; el anterior, si había, se cierra. */
+    public static synchronized void install(AccessLog log) {
+        AccessLog old = global;
+        global = log;
+        if (old != null) old.close();
+    }
+
+    /** Anota una petición en el access log del servidor, si hay uno. */
+    static void log(String route, int status, long bytes, long latencyNanos) {
+        AccessLog log = global;
+        if (log != null) log.append(route, status, bytes, latencyNanos);
+    }
+
+    /** Encola un registro sin bloquear; false si el anillo estaba lleno y se descartó. */
+    public boolean append(String route, int status, long bytes, long latencyNanos) {
+        long seq;
+        do {
+            seq = head.get();
+            if ((seq & CLOSED) != 0 || seq - tail > mask) {
+                dropped.increment();
+                return false;
+            }
+        } while (!head.compareAndSet(seq, seq + 1));
+        int i = (int) seq & mask;
+        times[i] = System.currentTimeMillis();
+        routes[i] = route;
+        statuses[i] = status;
+        sizes[i] = bytes;
+        latencies[i] = latencyNanos;
+        published.setRelease(i, seq + 1);
+        return true;
+    }
+
+    /** Registros escritos en archivo. */
+    public long written() {
+        return written.get();
+    }
+
+    /** Registros descartados (anillo lleno o log ya cerrado). */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    public Path directory() {
+        return dir;
+    }
+
+    /** Espera a que el escritor vacíe todo lo encolado hasta ahora (o a timeoutMs). */
+    public boolean await(long timeoutMs) {
+        long target = head.get() & ~CLOSED;
+        long deadline = System.nanoTime() + timeoutMs * 1_000_000L;
+        while (tail < target) {
+            if (System.nanoTime() - deadline > 0 || !writer.isAlive()) return false;
+            LockSupport.parkNanos(100_000);
+        }
+        return true;
+    }
+
+    /** Vacía lo pendiente, recorta el segmento actual y detiene el escritor. */
+    @Override
+    public void close() {
+        head.getAndUpdate(h -> h | CLOSED);
+        LockSupport.unpark(writer);
+        try {
+            writer.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ================== Hilo escritor ==================
+    private void drainLoop() {
+        try {
+            while (true) {
+                long h = head.get();
+                int n = drain();
+                if (n == 0) {
+                    // Cerrado: head ya no cambia; se termina al escribir hasta la última reserva
+                    if ((h & CLOSED) != 0 && tail == (h & ~CLOSED)) break;
+                    LockSupport.parkNanos(1_000_000); // sin trabajo: revisar cada 1 ms
+                }
+            }
+        } catch (IOException e) {
+            // Lo reservado y no escrito se pierde: se cuenta como descartado
+            long h = head.getAndUpdate(x -> x | CLOSED) & ~CLOSED;
+            dropped.add(h - tail);
+            System.err.println("[accesslog] " + e.getMessage());
+        } finally {
+            try {
+                closeSegment();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    /** Escribe los registros publicados consecutivos; retorna cuántos. */
+    private int drain() throws IOException {
+        long t = tail;
+        int n = 0;
+        while (true) {
+            int i = (int) t & mask;
+            if (published.getAcquire(i) != t + 1) break;
+            writeRecord(routes[i], statuses[i], times[i], sizes[i], latencies[i]);
+            routes[i] = null;
+            t++;
+            n++;
+            if ((n & 255) == 0) tail = t; // libera slots sin esperar al final del lote
+        }
+        tail = t;
+        if (n > 0) written.addAndGet(n);
+        return n;
+    }
+
+    private void writeRecord(String route, int status, long time, long bytes, long latency) throws IOException {
+        byte[] r = encode(route);
+        int size = FIXED_RECORD_BYTES + r.length;
+        if (segment.remaining() < size + 2) { // +2: espacio para el largo 0 final
+            closeSegment();
+            openSegment();
+        }
+        segment.putShort((short) r.length).put(r)
+                .putShort((short) status).putLong(time).putLong(bytes).putLong(latency);
+    }
+
+    /** Ruta en UTF-8 (recortada a MAX_ROUTE_BYTES); las rutas se repiten, así que se cachean. */
+    private byte[] encode(String route) {
+        String key = route == null || route.isEmpty() ? "-" : route;
+        byte[] b = encodedRoutes.get(key);
+        if (b == null) {
+            b = key.getBytes(StandardCharsets.UTF_8);
+            if (b.length > MAX_ROUTE_BYTES) b = Arrays.copyOf(b, MAX_ROUTE_BYTES);
+            if (encodedRoutes.size() < 4096) encodedRoutes.put(key, b);
+        }
+        return b;
+    }
+
+    private void openSegment() throws IOException {
+        segmentIndex++;
+        Path file = dir.resolve(String.format("access-%08d.bin", segmentIndex));
+        segmentChannel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = segmentChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        segment.order(ByteOrder.BIG_ENDIAN);
+        segment.put(MAGIC).putShort((short) VERSION).putShort((short) 0).putLong(System.currentTimeMillis());
+        prune();
+    }
+
+    /** Baja el segmento a disco y recorta el archivo a lo escrito. */
+    private void closeSegment() throws IOException {
+        if (segmentChannel == null) return;
+        int used = segment.position();
+        segment.force();
+        try {
+            segmentChannel.truncate(used);
+        } catch (IOException ignored) {
+            // Algunos sistemas no permiten recortar un archivo mapeado: el resto queda en ceros
+        }
+        segmentChannel.close();
+        segmentChannel = null;
+    }
+
+    /** Borra los segmentos más viejos por encima de maxSegments. */
+    private void prune() throws IOException {
+        if (maxSegments == 0) return;
+        List<Path> all = segments(dir);
+        for (int i = 0; i < all.size() - maxSegments; i++) Files.deleteIfExists(all.get(i));
+    }
+
+    /** Segmentos del directorio, del más viejo al más nuevo. */
+    static List<Path> segments(Path dir) throws IOException {
+        List<Path> out = new ArrayList<>();
+        if (!Files.isDirectory(dir)) return out;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "access-*.bin")) {
+            for (Path p : ds) if (indexOf(p) > 0) out.add(p);
+        }
+        out.sort((a, b) -> Long.compare(indexOf(a), indexOf(b)));
+        return out;
+    }
+
+    private static long indexOf(Path p) {
+        String n = p.getFileName().toString();
+        try {
+            return Long.parseLong(n.substring("access-".length(), n.length() - ".bin".length()));
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.mycompany.httpserver;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Lee los segmentos de {@link AccessLog} y los pasa a texto, una línea por petición:
+ * <pre>2026-10-17T14:03:07.512Z 200 /api/stocks 731 0.184ms</pre>
+ * Uso: java -cp ... com.mycompany.httpserver.AccessLogDecoder [directorio|archivo.bin]...
+ * Un directorio se lee completo, del segmento más viejo al más nuevo.
+ */
+public final class AccessLogDecoder {
+
+    /** Una petición registrada. */
+    public record Entry(long epochMillis, String route, int status, long bytes, long latencyNanos) {
+
+        @Override
+        public String toString() {
+            return Instant.ofEpochMilli(epochMillis) + " " + status + " " + route + " " + bytes + " "
+                    + String.format(Locale.ROOT, "%.3fms", latencyNanos / 1e6);
+        }
+    }
+
+    private AccessLogDecoder() {}
+
+    /** Recorre los registros de un segmento hasta el final de los datos. */
+    public static void read(Path segment, Consumer<Entry> sink) throws IOException {
+        ByteBuffer b;
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.READ)) {
+            b = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        b.order(ByteOrder.BIG_ENDIAN);
+        byte[] magic = new byte[AccessLog.MAGIC.length];
+        if (b.remaining() < AccessLog.HEADER_BYTES) throw new IOException("Segmento incompleto: " + segment);
+        b.get(magic);
+        int version = b.getShort() & 0xFFFF;
+        if (!Arrays.equals(magic, AccessLog.MAGIC) || version != AccessLog.VERSION) {
+            throw new IOException("No es un segmento de access log (v" + AccessLog.VERSION + "): " + segment);
+        }
+        b.position(AccessLog.HEADER_BYTES);
+        while (b.remaining() >= 2) {
+            int len = b.getShort() & 0xFFFF;
+            if (len == 0 || b.remaining() < len + AccessLog.FIXED_RECORD_BYTES - 2) break; // fin de los datos
+            byte[] route = new byte[len];
+            b.get(route);
+            int status = b.getShort() & 0xFFFF;
+            long time = b.getLong();
+            long bytes = b.getLong();
+            long latency = b.getLong();
+            sink.accept(new Entry(time, new String(route, StandardCharsets.UTF_8), status, bytes, latency));
+        }
+    }
+
+    /** Registros de un archivo o de todos los segmentos de un directorio, en orden. */
+    public static List<Entry> readAll(Path path) throws IOException {
+        List<Entry> out = new ArrayList<>();
+        for (Path p : expand(path)) read(p, out::add);
+        return out;
+    }
+
+    private static List<Path> expand(Path path) throws IOException {
+        return Files.isDirectory(path) ? AccessLog.segments(path) : List.of(path);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Uso: AccessLogDecoder <directorio|segmento.bin>...");
+            System.exit(2);
+        }
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 64 * 1024);
+        for (String a : args) {
+            for (Path p : expand(Paths.get(a))) {
+                read(p, e -> {
+                    try {
+                        out.write(e.toString());
+                        out.write('\n');
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            }
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,29 @@
+package com.mycompany.httpserver;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Handler asíncrono: retorna una etapa y el servidor completa la respuesta cuando termina,
+ * sin dejar un hilo esperando mientras el handler aguarda E/S.
+ * El valor de la etapa es el cuerpo: String (UTF-8), byte[] o null (cuerpo vacío o, si el
+ * handler escribió en {@link HttpResponse#getOutputStream}, nada más). Una etapa fallida
+ * responde 500; una que no termina en {@link ServerConfig#asyncTimeoutMs} responde 503 y
+ * cierra la conexión.
+ * Se registra con {@link HttpServer#getAsync} o como método @GetMapping que retorne
+ * {@code CompletableFuture<String>} (o cualquier {@link CompletionStage}).
+ */
+@FunctionalInterface
+public interface AsyncService extends Service {
+
+    CompletionStage<?> handleAsync(HttpRequest req, HttpResponse resp) throws Exception;
+
+    /** Uso síncrono (pruebas, composición): espera el resultado en el hilo que llama. */
+    @Override
+    default String handle(HttpRequest req, HttpResponse resp) throws Exception {
+        CompletionStage<?> stage = handleAsync(req, resp);
+        Object v = stage == null ? null : stage.toCompletableFuture().get();
+        if (v instanceof byte[] b) return new String(b, StandardCharsets.UTF_8);
+        return v == null ? null : v.toString();
+    }
+}
@@ -0,0 +1,92 @@
+package com.mycompany.httpserver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parser del header Range (RFC 9110 §14) para un recurso de tamaño conocido.
+ * Solo la unidad "bytes"; admite "a-b", "a-" y "-n" (sufijo), separados por comas.
+ * Un header inválido, con otra unidad, con demasiados tramos o con tramos solapados
+ * se ignora (se responde 200 completo).
+ */
+public final class ByteRanges {
+
+    /** Más tramos que esto en una petición se tratan como abuso y se ignoran. */
+    public static final int MAX_RANGES = 16;
+
+    /** Tramo ya resuelto, con extremos inclusivos. */
+    public record Range(long start, long end) {
+        public long length() {
+            return end - start + 1;
+        }
+
+        /** Valor de Content-Range para este tramo. */
+        public String contentRange(long size) {
+            return "bytes " + start + "-" + end + "/" + size;
+        }
+    }
+
+    private ByteRanges() {}
+
+    /**
+     * Resuelve el header contra el tamaño del recurso.
+     * @return null si el header debe ignorarse; lista vacía si ningún tramo es satisfacible (416)
+     */
+    public static List<Range> parse(String header, long size) {
+        if (header == null) return null;
+        String h = header.trim();
+        if (h.length() < 6 || !h.regionMatches(true, 0, "bytes=", 0, 6)) return null;
+
+        List<Range> out = new ArrayList<>(2);
+        int specs = 0;
+        for (String part : h.substring(6).split(",")) {
+            String spec = part.trim();
+            if (spec.isEmpty()) continue;
+            if (++specs > MAX_RANGES) return null;
+
+            int dash = spec.indexOf('-');
+            if (dash < 0) return null;
+            long first = parseNumber(spec, 0, dash);
+            long last = parseNumber(spec, dash + 1, spec.length());
+
+            if (dash == 0) {
+                // Sufijo: los últimos n bytes
+                if (last < 0) return null;
+                if (last == 0 || size == 0) continue;
+                out.add(new Range(Math.max(0, size - last), size - 1));
+            } else {
+                if (first < 0) return null;
+                if (dash + 1 < spec.length() && (last < 0 || last < first)) return null;
+                if (first >= size) continue; // no satisfacible, pero puede haber otros tramos
+                long end = (dash + 1 == spec.length() || last >= size) ? size - 1 : last;
+                out.add(new Range(first, end));
+            }
+        }
+        if (specs == 0) return null;
+        if (overlapping(out)) return null; // evita amplificar el envío con tramos repetidos
+        return out.isEmpty() ? Collections.emptyList() : out;
+    }
+
+    private static boolean overlapping(List<Range> ranges) {
+        if (ranges.size() < 2) return false;
+        List<Range> sorted = new ArrayList<>(ranges);
+        sorted.sort((a, b) -> Long.compare(a.start(), b.start()));
+        for (int i = 1; i < sorted.size(); i++) {
+            if (sorted.get(i).start() <= sorted.get(i - 1).end()) return true;
+        }
+        return false;
+    }
+
+    /** Número decimal no negativo en s[from, to), o -1 si no lo es (o está vacío). */
+    private static long parseNumber(String s, int from, int to) {
+        if (from >= to || to - from > 18) return -1;
+        long v = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+}
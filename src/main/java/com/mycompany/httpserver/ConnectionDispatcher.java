@@ -0,0 +1,100 @@
+package com.mycompany.httpserver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reparte las conexiones aceptadas entre hilos.
+ *  - VIRTUAL: un hilo virtual por conexión.
+ *  - PLATFORM: pool acotado de hilos de plataforma (también es el fallback).
+ *  - SERIAL: se atiende en el hilo que llama (comportamiento original).
+ * Un semáforo limita las conexiones en curso; al llegar al tope, dispatch() espera.
+ */
+public final class ConnectionDispatcher implements AutoCloseable {
+
+    private final ServerConfig.ExecutionMode mode;
+    private final ExecutorService executor; // null en modo SERIAL
+    private final Semaphore permits;
+    private final int maxPermits;
+
+    private ConnectionDispatcher(ServerConfig.ExecutionMode mode, ExecutorService executor, int maxInFlight) {
+        this.mode = mode;
+        this.executor = executor;
+        this.permits = new Semaphore(maxInFlight);
+        this.maxPermits = maxInFlight;
+    }
+
+    /** Crea el dispatcher según el modo; si no hay hilos virtuales, cae a un pool de plataforma. */
+    public static ConnectionDispatcher create(ServerConfig.ExecutionMode mode, int maxInFlight, int workerThreads) {
+        if (mode == ServerConfig.ExecutionMode.SERIAL) {
+            return new ConnectionDispatcher(mode, null, 1);
+        }
+        if (mode == ServerConfig.ExecutionMode.VIRTUAL) {
+            try {
+                ThreadFactory tf = Thread.ofVirtual().name("http-vt-", 0).factory();
+                return new ConnectionDispatcher(mode, Executors.newThreadPerTaskExecutor(tf), maxInFlight);
+            } catch (UnsupportedOperationException | LinkageError e) {
+                System.err.println("[dispatcher] Hilos virtuales no disponibles, usando pool de plataforma: " + e);
+            }
+        }
+        return new ConnectionDispatcher(ServerConfig.ExecutionMode.PLATFORM,
+                platformPool(workerThreads, maxInFlight), maxInFlight);
+    }
+
+    /** Crea el dispatcher con la configuración actual de {@link ServerConfig}. */
+    public static ConnectionDispatcher fromConfig() {
+        return create(ServerConfig.executionMode(), ServerConfig.maxInFlight(), ServerConfig.workerThreads());
+    }
+
+    private static ExecutorService platformPool(int threads, int queueCapacity) {
+        AtomicInteger seq = new AtomicInteger();
+        ThreadFactory tf = r -> {
+            Thread t = new Thread(r, "http-worker-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        // La cola nunca se llena: el semáforo limita antes a maxInFlight tareas
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, queueCapacity)), tf);
+    }
+
+    /**
+     * Ejecuta la atención de una conexión. Espera si ya hay maxInFlight en curso.
+     * Si no se puede encolar, cierra el recurso para no filtrarlo.
+     */
+    public void dispatch(Closeable connection, Runnable task) throws InterruptedException {
+        if (executor == null) {
+            task.run();
+            return;
+        }
+        permits.acquire();
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            try { connection.close(); } catch (IOException ignored) {}
+        }
+    }
+
+    public ServerConfig.ExecutionMode mode() {
+        return mode;
+    }
+
+    /** Conexiones que se están atendiendo ahora mismo. */
+    public int inFlight() {
+        return executor == null ? 0 : maxPermits - permits.availablePermits();
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) executor.shutdown();
+    }
+}
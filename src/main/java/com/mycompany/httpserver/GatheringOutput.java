@@ -0,0 +1,24 @@
+package com.mycompany.httpserver;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Salida de conexión que acepta varios buffers de una vez (headers + cuerpo) y los
+ * envía con una escritura "gathering", sin juntarlos antes en un arreglo intermedio.
+ */
+interface GatheringOutput {
+
+    /** Buffer de headers de la conexión; se reutiliza entre respuestas. */
+    ResponseWriter.Head headerBuffer();
+
+    /**
+     * Escribe los buffers en orden, después de lo ya escrito. Los buffers no deben
+     * modificarse hasta que la respuesta salga; por eso el de headers de la conexión
+     * solo se reutiliza en la respuesta siguiente.
+     */
+    void writeGathered(ByteBuffer... buffers) throws IOException;
+
+    /** Bytes escritos desde que se creó la salida, headers incluidos (para el access log). */
+    long bytesWritten();
+}
@@ -0,0 +1,125 @@
+package com.mycompany.httpserver;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Headers de una petición, indexados por posiciones sobre los bytes originales.
+ * Nada se decodifica a String hasta que un handler pide un header concreto.
+ * Las búsquedas por nombre no distinguen mayúsculas y no crean objetos.
+ */
+public final class HttpHeaders {
+
+    public static final HttpHeaders EMPTY = new HttpHeaders(new byte[0], new int[0], 0);
+
+    private final byte[] data;
+    private final int[] index; // 4 enteros por header: nameStart, nameEnd, valueStart, valueEnd
+    private final int count;
+
+    HttpHeaders(byte[] data, int[] index, int count) {
+        this.data = data;
+        this.index = index;
+        this.count = count;
+    }
+
+    /** Cantidad de headers recibidos. */
+    public int size() {
+        return count;
+    }
+
+    public boolean contains(String name) {
+        return find(name, 0) >= 0;
+    }
+
+    /** Primer valor del header o null si no vino. */
+    public String get(String name) {
+        int i = find(name, 0);
+        return i < 0 ? null : value(i);
+    }
+
+    /** Todos los valores de un header repetido, en orden de llegada. */
+    public List<String> getAll(String name) {
+        List<String> out = new ArrayList<>(1);
+        for (int i = find(name, 0); i >= 0; i = find(name, i + 1)) out.add(value(i));
+        return out;
+    }
+
+    /** Valor numérico del header (sin crear Strings) o def si no vino o no es un número. */
+    public long getLong(String name, long def) {
+        int i = find(name, 0);
+        if (i < 0) return def;
+        return parseLong(data, index[i * 4 + 2], index[i * 4 + 3], def);
+    }
+
+    /** ¿Alguna de las apariciones del header contiene el token (lista separada por comas)? */
+    public boolean hasToken(String name, String token) {
+        for (int i = find(name, 0); i >= 0; i = find(name, i + 1)) {
+            if (containsToken(data, index[i * 4 + 2], index[i * 4 + 3], token)) return true;
+        }
+        return false;
+    }
+
+    /** Copia decodificada de todos los headers (nombre tal como llegó). */
+    public Map<String, List<String>> toMap() {
+        Map<String, List<String>> out = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String n = new String(data, index[i * 4], index[i * 4 + 1] - index[i * 4], StandardCharsets.ISO_8859_1);
+            out.computeIfAbsent(n, k -> new ArrayList<>(1)).add(value(i));
+        }
+        return out;
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+
+    // ================== helpers ==================
+    private String value(int i) {
+        int s = index[i * 4 + 2], e = index[i * 4 + 3];
+        return new String(data, s, e - s, StandardCharsets.ISO_8859_1);
+    }
+
+    private int find(String name, int from) {
+        for (int i = from; i < count; i++) {
+            if (equalsIgnoreCase(data, index[i * 4], index[i * 4 + 1], name)) return i;
+        }
+        return -1;
+    }
+
+    static boolean equalsIgnoreCase(byte[] b, int start, int end, String s) {
+        if (end - start != s.length()) return false;
+        for (int i = 0; i < s.length(); i++) {
+            if (lower(b[start + i]) != lower((byte) s.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    static boolean containsToken(byte[] b, int start, int end, String token) {
+        int i = start;
+        while (i < end) {
+            while (i < end && (b[i] == ' ' || b[i] == '\t' || b[i] == ',')) i++;
+            int s = i;
+            while (i < end && b[i] != ',') i++;
+            int e = i;
+            while (e > s && (b[e - 1] == ' ' || b[e - 1] == '\t')) e--;
+            if (e > s && equalsIgnoreCase(b, s, e, token)) return true;
+        }
+        return false;
+    }
+
+    static long parseLong(byte[] b, int start, int end, long def) {
+        if (start >= end || end - start > 18) return def;
+        long v = 0;
+        for (int i = start; i < end; i++) {
+            int d = b[i] - '0';
+            if (d < 0 || d > 9) return def;
+            v = v * 10 + d;
+        }
+        return v;
+    }
+
+    private static int lower(byte c) {
+        return (c >= 'A' && c <= 'Z') ? c + 32 : c;
+    }
+}
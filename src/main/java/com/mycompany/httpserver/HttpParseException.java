@@ -0,0 +1,20 @@
+package com.mycompany.httpserver;
+
+import java.io.IOException;
+
+/** Petición HTTP mal formada o fuera de límites; lleva el status con el que se responde. */
+public class HttpParseException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+
+    public HttpParseException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public int status() {
+        return status;
+    }
+}
@@ -1,23 +1,145 @@
 package com.mycompany.httpserver;
 
 import java.net.URI;
-import java.net.URLDecoder;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
 
-/** Wrapper simple para leer parámetros de query. */
+/** Wrapper simple para leer método, ruta, headers y parámetros de query. */
 public class HttpRequest {
 
-    private final URI rawUri;
+    private final String method;
+    private final String version;
+    private final String path;
+    private final String rawQuery;
+    private final HttpHeaders headers;
+
+    // Variables de ruta: nombres y pares (inicio, fin) sobre path; se decodifican al pedirlas
+    private String[] pathVarNames = NO_VARS;
+    private int[] pathVarBounds;
+
+    private static final String[] NO_VARS = new String[0];
+
+    private QueryParams query;
+
+    // Tiempo de CPU que tomó parsear la cabecera (para Metrics); 0 si no se midió
+    long parseNanos;
 
     public HttpRequest(URI uri) {
-        this.rawUri = uri;
+        this("GET", HttpRequestParser.HTTP_1_1, uri.getPath() == null || uri.getPath().isEmpty() ? "/" : uri.getPath(),
+                uri.getRawQuery(), HttpHeaders.EMPTY);
+    }
+
+    HttpRequest(String method, String version, String path, String rawQuery, HttpHeaders headers) {
+        this.method = method;
+        this.version = version;
+        this.path = path;
+        this.rawQuery = rawQuery;
+        this.headers = headers;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    /** Ruta ya decodificada, sin query (p.ej. "/stocks"). */
+    public String getPath() {
+        return path;
+    }
+
+    /** Query tal como llegó (sin decodificar) o null. */
+    public String getRawQuery() {
+        return rawQuery;
+    }
+
+    /** Valor de un header (sin distinguir mayúsculas) o null. */
+    public String getHeader(String name) {
+        return headers.get(name);
+    }
+
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    /** Valor de una variable de ruta ({symbol} en /stocks/{symbol}) o null si la ruta no la define. */
+    public String getPathVariable(String name) {
+        for (int i = 0; i < pathVarNames.length; i++) {
+            if (pathVarNames[i].equals(name)) return path.substring(pathVarBounds[2 * i], pathVarBounds[2 * i + 1]);
+        }
+        return null;
+    }
+
+    /** Todas las variables de ruta, en el orden del patrón. */
+    public Map<String, String> getPathVariables() {
+        Map<String, String> out = new LinkedHashMap<>();
+        for (String n : pathVarNames) out.put(n, getPathVariable(n));
+        return out;
     }
 
-    /** Retorna el valor de un parámetro (?name=Pedro) */
+    /** Asocia las variables capturadas por el {@link Router} (copia solo las posiciones usadas). */
+    void bindPathVariables(String[] names, int[] captures) {
+        if (names.length == 0) return;
+        this.pathVarNames = names;
+        this.pathVarBounds = Arrays.copyOf(captures, names.length * 2);
+    }
+
+    // ================== Query (parseada una sola vez, bajo demanda) ==================
+    /** Parámetros de query; se parsean en el primer acceso y se reutilizan. */
+    public QueryParams getQueryParams() {
+        QueryParams q = query;
+        if (q == null) query = q = QueryParams.parse(rawQuery);
+        return q;
+    }
+
+    /** Primer valor del parámetro o null si no vino. */
+    public String getParam(String name) {
+        return getQueryParams().first(name);
+    }
+
+    /** Primer valor del parámetro o def si no vino. */
+    public String getParam(String name, String def) {
+        String v = getQueryParams().first(name);
+        return v == null ? def : v;
+    }
+
+    /** Todos los valores de un parámetro repetido (?s=AAPL&s=MSFT). */
+    public List<String> getParams(String name) {
+        return getQueryParams().all(name);
+    }
+
+    public boolean hasParam(String name) {
+        return getQueryParams().contains(name);
+    }
+
+    /** Parámetro entero; def si no vino o no es un número. */
+    public int getIntParam(String name, int def) {
+        String v = getParam(name);
+        if (v == null || v.isEmpty()) return def;
+        try { return Integer.parseInt(v.trim()); } catch (NumberFormatException e) { return def; }
+    }
+
+    public long getLongParam(String name, long def) {
+        String v = getParam(name);
+        if (v == null || v.isEmpty()) return def;
+        try { return Long.parseLong(v.trim()); } catch (NumberFormatException e) { return def; }
+    }
+
+    public double getDoubleParam(String name, double def) {
+        String v = getParam(name);
+        if (v == null || v.isEmpty()) return def;
+        try { return Double.parseDouble(v.trim()); } catch (NumberFormatException e) { return def; }
+    }
+
+    public boolean getBooleanParam(String name, boolean def) {
+        String v = getParam(name);
+        return (v == null || v.isEmpty()) ? def : Boolean.parseBoolean(v.trim());
+    }
+
+    /** Retorna el valor de un parámetro (?name=Pedro) o "" si no vino. */
     public String getValues(String paramName) {
-        Map<String, String> all = getQueryMap();
-        return all.getOrDefault(paramName, "");
+        return getParam(paramName, "");
     }
 
     /** Alias opcional (por si lo usan en pruebas) */
@@ -25,24 +147,8 @@ public class HttpRequest {
         return getValues(paramName);
     }
 
-    /** Mapa completo de parámetros de query. */
+    /** Mapa de parámetros de query (primer valor de cada uno, inmutable). */
     public Map<String, String> getQueryMap() {
-        String q = rawUri.getRawQuery();
-        Map<String, String> map = new HashMap<>();
-        if (q == null || q.isEmpty()) return map;
-
-        for (String kv : q.split("&")) {
-            int i = kv.indexOf('=');
-            String k = i >= 0 ? kv.substring(0, i) : kv;
-            String v = i >= 0 ? kv.substring(i + 1) : "";
-            k = urlDecode(k);
-            v = urlDecode(v);
-            map.put(k, v);
-        }
-        return map;
-    }
-
-    private String urlDecode(String s) {
-        return URLDecoder.decode(s, StandardCharsets.UTF_8);
+        return getQueryParams().asMap();
     }
 }
@@ -0,0 +1,268 @@
+package com.mycompany.httpserver;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Parser incremental de la cabecera HTTP/1.x que trabaja sobre bytes.
+ * Solo registra posiciones (método, target, versión y cada header); los Strings
+ * se crean al construir el {@link HttpRequest} y los headers se decodifican bajo demanda.
+ *
+ * Uso por conexión (la instancia se reutiliza):
+ * <pre>
+ *   parser.reset();
+ *   int end;
+ *   while ((end = parser.parse(buf, start, limit)) == HttpRequestParser.NEED_MORE) { ...leer más... }
+ *   HttpRequest req = parser.toRequest(buf, start);
+ * </pre>
+ * Entre llamadas los datos pueden moverse en el buffer siempre que {@code start}
+ * siga apuntando al primer byte de la petición (las posiciones son relativas a él).
+ */
+public final class HttpRequestParser {
+
+    public static final int NEED_MORE = -1;
+
+    public static final String HTTP_1_1 = "HTTP/1.1";
+    public static final String HTTP_1_0 = "HTTP/1.0";
+
+    private static final String[] KNOWN_METHODS = {"GET", "HEAD", "POST", "PUT", "DELETE", "OPTIONS", "PATCH", "TRACE", "CONNECT"};
+
+    private final int maxRequestLine;
+    private final int maxHead;
+    private final int maxHeaders;
+
+    // Estado del escaneo (relativo a start)
+    private int scanned;
+    private int lineStart;
+    private boolean requestLineDone;
+    private int headLength;
+
+    // Resultado (relativo a start)
+    private String method;
+    private String version;
+    private int targetStart, targetEnd;
+    private int[] headerIndex;
+    private int headerCount;
+    private long contentLength;
+    private boolean chunkedBody;
+    private boolean connectionClose;
+    private boolean connectionKeepAlive;
+
+    public HttpRequestParser() {
+        this(ServerConfig.maxRequestLineBytes(), ServerConfig.maxHeaderBytes(), ServerConfig.maxHeaderCount());
+    }
+
+    public HttpRequestParser(int maxRequestLine, int maxHead, int maxHeaders) {
+        this.maxRequestLine = maxRequestLine;
+        this.maxHead = maxHead;
+        this.maxHeaders = maxHeaders;
+        this.headerIndex = new int[Math.min(16, maxHeaders) * 4];
+    }
+
+    /** Deja el parser listo para la siguiente petición de la conexión. */
+    public void reset() {
+        scanned = 0;
+        lineStart = 0;
+        requestLineDone = false;
+        headLength = 0;
+        method = null;
+        version = null;
+        headerCount = 0;
+        contentLength = 0;
+        chunkedBody = false;
+        connectionClose = false;
+        connectionKeepAlive = false;
+    }
+
+    /**
+     * Continúa el parseo sobre buf[start, limit).
+     * @return índice absoluto del primer byte tras la cabecera, o {@link #NEED_MORE}
+     * @throws HttpParseException si la petición es inválida o excede los límites
+     */
+    public int parse(byte[] buf, int start, int limit) throws HttpParseException {
+        for (int i = start + scanned; i < limit; i++) {
+            if (buf[i] != '\n') continue;
+
+            int ls = start + lineStart;
+            int contentEnd = (i > ls && buf[i - 1] == '\r') ? i - 1 : i;
+
+            if (!requestLineDone) {
+                if (contentEnd > ls) {
+                    if (contentEnd - ls > maxRequestLine) throw new HttpParseException(414, "URI Too Long");
+                    parseRequestLine(buf, ls, contentEnd, start);
+                    requestLineDone = true;
+                }
+                // Líneas vacías antes de la petición se ignoran (CRLF sobrante entre peticiones)
+            } else if (contentEnd == ls) {
+                headLength = i + 1 - start;
+                scanned = headLength;
+                if (headLength > maxHead) throw new HttpParseException(431, "Request Header Fields Too Large");
+                return i + 1;
+            } else {
+                addHeader(buf, ls, contentEnd, start);
+            }
+            lineStart = i + 1 - start;
+            if (lineStart > maxHead) throw new HttpParseException(431, "Request Header Fields Too Large");
+        }
+        scanned = limit - start;
+        if (!requestLineDone && scanned - lineStart > maxRequestLine) throw new HttpParseException(414, "URI Too Long");
+        if (scanned > maxHead) throw new HttpParseException(431, "Request Header Fields Too Large");
+        return NEED_MORE;
+    }
+
+    private void parseRequestLine(byte[] b, int from, int to, int base) throws HttpParseException {
+        int sp1 = indexOf(b, from, to, (byte) ' ');
+        if (sp1 <= from) throw new HttpParseException(400, "Bad Request");
+        int sp2 = indexOf(b, sp1 + 1, to, (byte) ' ');
+        int tEnd = sp2 < 0 ? to : sp2;
+        if (tEnd == sp1 + 1) throw new HttpParseException(400, "Bad Request");
+
+        for (int i = sp1 + 1; i < tEnd; i++) {
+            if (b[i] <= 0x20 || b[i] == 0x7F) throw new HttpParseException(400, "Bad Request");
+        }
+
+        method = knownMethod(b, from, sp1);
+        targetStart = sp1 + 1 - base;
+        targetEnd = tEnd - base;
+
+        if (sp2 < 0) {
+            version = HTTP_1_1; // tolerante: línea sin versión
+        } else if (matches(b, sp2 + 1, to, HTTP_1_1)) {
+            version = HTTP_1_1;
+        } else if (matches(b, sp2 + 1, to, HTTP_1_0)) {
+            version = HTTP_1_0;
+        } else if (to - sp2 - 1 >= 5 && matches(b, sp2 + 1, sp2 + 6, "HTTP/")) {
+            throw new HttpParseException(505, "HTTP Version Not Supported");
+        } else {
+            throw new HttpParseException(400, "Bad Request");
+        }
+    }
+
+    private void addHeader(byte[] b, int from, int to, int base) throws HttpParseException {
+        if (headerCount >= maxHeaders) throw new HttpParseException(431, "Request Header Fields Too Large");
+        int colon = indexOf(b, from, to, (byte) ':');
+        if (colon <= from) throw new HttpParseException(400, "Bad Request");
+
+        int ne = colon;
+        while (ne > from && isSpace(b[ne - 1])) ne--;
+        int vs = colon + 1;
+        while (vs < to && isSpace(b[vs])) vs++;
+        int ve = to;
+        while (ve > vs && isSpace(b[ve - 1])) ve--;
+
+        if (headerCount * 4 == headerIndex.length) headerIndex = Arrays.copyOf(headerIndex, headerIndex.length * 2);
+        int k = headerCount * 4;
+        headerIndex[k] = from - base;
+        headerIndex[k + 1] = ne - base;
+        headerIndex[k + 2] = vs - base;
+        headerIndex[k + 3] = ve - base;
+        headerCount++;
+
+        // Headers que el propio servidor necesita, leídos sin crear Strings
+        if (HttpHeaders.equalsIgnoreCase(b, from, ne, "Content-Length")) {
+            long len = HttpHeaders.parseLong(b, vs, ve, -1);
+            if (len < 0) throw new HttpParseException(400, "Bad Request");
+            contentLength = len;
+        } else if (HttpHeaders.equalsIgnoreCase(b, from, ne, "Transfer-Encoding")) {
+            chunkedBody = true;
+        } else if (HttpHeaders.equalsIgnoreCase(b, from, ne, "Connection")) {
+            if (HttpHeaders.containsToken(b, vs, ve, "close")) connectionClose = true;
+            if (HttpHeaders.containsToken(b, vs, ve, "keep-alive")) connectionKeepAlive = true;
+        }
+    }
+
+    // ================== Resultado ==================
+    /** Bytes de la cabecera completa (incluye el CRLF final). */
+    public int headLength() { return headLength; }
+
+    public String method() { return method; }
+
+    public String version() { return version; }
+
+    public long contentLength() { return contentLength; }
+
+    /** La petición trae cuerpo con Transfer-Encoding (no soportado por el servidor). */
+    public boolean hasTransferEncoding() { return chunkedBody; }
+
+    /** HTTP/1.1 es persistente salvo "Connection: close"; HTTP/1.0 solo con "Connection: keep-alive". */
+    public boolean keepAlive() {
+        if (connectionClose) return false;
+        return connectionKeepAlive || version == HTTP_1_1;
+    }
+
+    /**
+     * Construye el HttpRequest. Copia solo el bloque de headers (un arreglo) para que
+     * el buffer de la conexión pueda reutilizarse mientras el handler trabaja.
+     */
+    public HttpRequest toRequest(byte[] buf, int start) {
+        int ts = start + targetStart, te = start + targetEnd;
+
+        // Forma absoluta (http://host/ruta): quedarse con la ruta
+        if (te - ts > 7 && (matchesIgnoreCase(buf, ts, "http://") || matchesIgnoreCase(buf, ts, "https://"))) {
+            int afterScheme = indexOf(buf, ts, te, (byte) ':') + 3;
+            int slash = indexOf(buf, afterScheme, te, (byte) '/');
+            ts = slash < 0 ? te : slash;
+        }
+        int q = indexOf(buf, ts, te, (byte) '?');
+        int pathEnd = q < 0 ? te : q;
+        String path = pathEnd > ts ? decodePath(buf, ts, pathEnd) : "/";
+        String rawQuery = q < 0 ? null : new String(buf, q + 1, te - q - 1, StandardCharsets.ISO_8859_1);
+
+        HttpHeaders headers = HttpHeaders.EMPTY;
+        if (headerCount > 0) {
+            int from = headerIndex[0];
+            int to = headerIndex[(headerCount - 1) * 4 + 3];
+            byte[] data = Arrays.copyOfRange(buf, start + from, start + to);
+            int[] idx = Arrays.copyOf(headerIndex, headerCount * 4);
+            for (int i = 0; i < idx.length; i++) idx[i] -= from;
+            headers = new HttpHeaders(data, idx, headerCount);
+        }
+        return new HttpRequest(method, version, path, rawQuery, headers);
+    }
+
+    // ================== helpers ==================
+    /** Decodifica %XX en la ruta (UTF-8). '+' se deja tal cual: solo significa espacio en la query. */
+    static String decodePath(byte[] b, int from, int to) {
+        if (indexOf(b, from, to, (byte) '%') < 0) return new String(b, from, to - from, StandardCharsets.ISO_8859_1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(to - from);
+        for (int i = from; i < to; i++) {
+            int h, l;
+            if (b[i] == '%' && i + 2 < to && (h = Character.digit(b[i + 1], 16)) >= 0 && (l = Character.digit(b[i + 2], 16)) >= 0) {
+                out.write((h << 4) | l);
+                i += 2;
+            } else {
+                out.write(b[i]);
+            }
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static String knownMethod(byte[] b, int from, int to) {
+        for (String m : KNOWN_METHODS) {
+            if (matches(b, from, to, m)) return m;
+        }
+        return new String(b, from, to - from, StandardCharsets.ISO_8859_1);
+    }
+
+    private static boolean matches(byte[] b, int from, int to, String s) {
+        if (to - from != s.length()) return false;
+        for (int i = 0; i < s.length(); i++) {
+            if (b[from + i] != s.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static boolean matchesIgnoreCase(byte[] b, int from, String s) {
+        return from + s.length() <= b.length && HttpHeaders.equalsIgnoreCase(b, from, from + s.length(), s);
+    }
+
+    private static int indexOf(byte[] b, int from, int to, byte c) {
+        for (int i = from; i < to; i++) if (b[i] == c) return i;
+        return -1;
+    }
+
+    private static boolean isSpace(byte c) {
+        return c == ' ' || c == '\t';
+    }
+}
@@ -1,4 +1,357 @@
 package com.mycompany.httpserver;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Respuesta de un handler: status, headers y, opcionalmente, un cuerpo en streaming.
+ * - Si el handler solo retorna un String, ese es el cuerpo (con Content-Length).
+ * - Si usa {@link #getOutputStream()} / {@link #getWriter()}, lo escrito se envía por
+ *   partes: con Content-Length si lo fijó, si no con Transfer-Encoding: chunked
+ *   (en HTTP/1.0, delimitado por el cierre de la conexión). Lo que retorne se agrega al final.
+ * Los headers se envían con la primera parte del cuerpo ({@link #isCommitted()}); después
+ * ya no se pueden cambiar. En un HEAD salen los mismos headers pero el cuerpo se descarta.
+ */
 public class HttpResponse {
+
+    private static final String DEFAULT_CONTENT_TYPE = "application/json; charset=utf-8";
+    private static final int CHUNK_SIZE = 8 * 1024;
+    private static final String ABANDONED = "La respuesta se abandonó: el handler no respondió a tiempo";
+
+    private final OutputStream out;
+    private final String version;
+    private final boolean headOnly;
+    private boolean keepAlive;
+
+    private int status = 200;
+    private String contentType = DEFAULT_CONTENT_TYPE;
+    private long contentLength = -1;
+    private final List<String[]> headers = new ArrayList<>(4);
+
+    private BodyStream body;
+    private PrintWriter writer;
+    // El envío de headers y el abandono por timeout (otro hilo) se deciden bajo este lock
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private volatile boolean committed;
+    private volatile boolean abandoned;
+
+    /** Respuesta desconectada (lo escrito se descarta); útil para probar handlers. */
+    public HttpResponse() {
+        this(OutputStream.nullOutputStream(), HttpRequestParser.HTTP_1_1, true);
+    }
+
+    HttpResponse(OutputStream out, String version, boolean keepAlive) {
+        this(out, version, keepAlive, false);
+    }
+
+    HttpResponse(OutputStream out, String version, boolean keepAlive, boolean headOnly) {
+        this.out = out;
+        this.version = version;
+        this.keepAlive = keepAlive;
+        this.headOnly = headOnly;
+    }
+
+    // ================== Status y headers ==================
+    public int getStatus() {
+        return status;
+    }
+
+    public HttpResponse setStatus(int status) {
+        checkNotCommitted();
+        if (status < 100 || status > 599) throw new IllegalArgumentException("Status inválido: " + status);
+        this.status = status;
+        return this;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public HttpResponse setContentType(String contentType) {
+        checkNotCommitted();
+        checkValue("Content-Type", contentType);
+        this.contentType = contentType;
+        return this;
+    }
+
+    /** Largo del cuerpo en streaming, si se conoce de antemano (evita el chunked). */
+    public HttpResponse setContentLength(long length) {
+        checkNotCommitted();
+        if (length < 0) throw new IllegalArgumentException("Content-Length negativo: " + length);
+        this.contentLength = length;
+        return this;
+    }
+
+    /**
+     * Define un header, reemplazando los de igual nombre. Content-Type y Content-Length
+     * se guardan aparte; Transfer-Encoding lo decide el servidor; "Connection: close" cierra
+     * la conexión después de la respuesta.
+     */
+    public HttpResponse setHeader(String name, String value) {
+        checkNotCommitted();
+        checkHeader(name, value);
+        if (special(name, value)) return this;
+        headers.removeIf(h -> h[0].equalsIgnoreCase(name));
+        headers.add(new String[]{name, value});
+        return this;
+    }
+
+    /** Agrega un header sin quitar los existentes (p.ej. varios Set-Cookie). */
+    public HttpResponse addHeader(String name, String value) {
+        checkNotCommitted();
+        checkHeader(name, value);
+        if (!special(name, value)) headers.add(new String[]{name, value});
+        return this;
+    }
+
+    public String getHeader(String name) {
+        if ("Content-Type".equalsIgnoreCase(name)) return contentType;
+        if ("Content-Length".equalsIgnoreCase(name)) return contentLength < 0 ? null : Long.toString(contentLength);
+        for (String[] h : headers) if (h[0].equalsIgnoreCase(name)) return h[1];
+        return null;
+    }
+
+    /**
+     * El nombre debe ser un token (RFC 9110 §5.1) y el valor no puede tener CR, LF ni NUL:
+     * si no, un valor con datos del cliente podría inyectar headers o partir la respuesta.
+     */
+    private static void checkHeader(String name, String value) {
+        if (name == null || name.isEmpty()) throw new IllegalArgumentException("Nombre de header vacío");
+        for (int i = 0; i < name.length(); i++) {
+            if (!isTokenChar(name.charAt(i))) throw new IllegalArgumentException("Nombre de header inválido: " + name);
+        }
+        checkValue(name, value);
+    }
+
+    private static void checkValue(String name, String value) {
+        if (value == null) throw new IllegalArgumentException("Valor nulo para el header " + name);
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == '\r' || ch == '\n' || ch == 0) throw new IllegalArgumentException("Valor inválido para el header " + name);
+        }
+    }
+
+    private static boolean isTokenChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || "!#$%&'*+-.^_`|~".indexOf(c) >= 0;
+    }
+
+    private boolean special(String name, String value) {
+        if (name.equalsIgnoreCase("Content-Type")) {
+            contentType = value;
+        } else if (name.equalsIgnoreCase("Content-Length")) {
+            contentLength = parseContentLength(value);
+        } else if (name.equalsIgnoreCase("Connection")) {
+            for (String t : value.split(",")) if (t.trim().equalsIgnoreCase("close")) keepAlive = false;
+        } else {
+            return name.equalsIgnoreCase("Transfer-Encoding");
+        }
+        return true;
+    }
+
+    private static long parseContentLength(String value) {
+        long length;
+        try {
+            length = Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Content-Length no numérico: " + value);
+        }
+        if (length < 0) throw new IllegalArgumentException("Content-Length negativo: " + value);
+        return length;
+    }
+
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    private void checkNotCommitted() {
+        if (committed) throw new IllegalStateException("Los headers ya se enviaron");
+        if (abandoned) throw new IllegalStateException(ABANDONED);
+    }
+
+    /**
+     * El servidor deja de esperar al handler (timeout) para responder él mismo. Retorna false
+     * si los headers ya salieron; si retorna true, lo que el handler escriba después falla.
+     */
+    boolean abandon() {
+        commitLock.lock();
+        try {
+            if (committed) return false;
+            abandoned = true;
+            return true;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    // ================== Cuerpo en streaming ==================
+    /** Cuerpo en streaming. Los bytes se agrupan en bloques de 8 KB antes de enviarse. */
+    public OutputStream getOutputStream() {
+        if (body == null) body = new BodyStream();
+        return body;
+    }
+
+    /** Writer UTF-8 sobre {@link #getOutputStream()}. */
+    public PrintWriter getWriter() {
+        if (writer == null) writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), StandardCharsets.UTF_8), false);
+        return writer;
+    }
+
+    /** Envía al cliente lo escrito hasta ahora (y los headers, si faltaban); pasa a modo streaming. */
+    public void flush() throws IOException {
+        if (writer != null) writer.flush();
+        getOutputStream().flush();
+    }
+
+    boolean isStreaming() {
+        return body != null;
+    }
+
+    boolean keepAlive() {
+        return keepAlive;
+    }
+
+    /** Cierra el cuerpo en streaming agregando el texto que retornó el handler. */
+    void finish(String trailing) throws IOException {
+        body.finishing = true; // el flush del writer no debe forzar el envío (ni el chunked)
+        if (writer != null) writer.flush();
+        if (trailing != null && !trailing.isEmpty()) body.write(trailing.getBytes(StandardCharsets.UTF_8));
+        body.finish();
+    }
+
+    /** Respuesta completa en memoria (el handler no usó el stream). */
+    void send(byte[] payload) throws IOException {
+        commitLock.lock();
+        try {
+            if (abandoned) throw new IOException(ABANDONED);
+            contentLength = payload.length;
+            if (headOnly) ResponseWriter.sendHead(out, head());
+            else ResponseWriter.send(out, head(), payload);
+            committed = true;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    private ResponseWriter.Head head() {
+        ResponseWriter.Head h = ResponseWriter.head(out)
+                .status(version, status)
+                .header(ResponseWriter.CONTENT_TYPE, contentType);
+        if (contentLength >= 0) h.header(ResponseWriter.CONTENT_LENGTH, contentLength);
+        else if (chunked()) h.raw(TRANSFER_CHUNKED);
+        for (String[] e : headers) h.header(e[0], e[1]);
+        return h.end(keepAlive);
+    }
+
+    private boolean chunked() {
+        return contentLength < 0 && !HttpRequestParser.HTTP_1_0.equals(version);
+    }
+
+    /** Envía los headers; si el largo es desconocido decide entre chunked y cierre de conexión. */
+    private void commit(long knownLength) throws IOException {
+        if (committed) return;
+        commitLock.lock();
+        try {
+            if (abandoned) throw new IOException(ABANDONED);
+            if (contentLength < 0 && knownLength >= 0) contentLength = knownLength;
+            if (contentLength < 0 && !chunked()) keepAlive = false; // HTTP/1.0: el cierre marca el final
+            ResponseWriter.sendHead(out, head());
+            committed = true;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    private static final byte[] TRANSFER_CHUNKED = ResponseWriter.ascii("Transfer-Encoding: chunked\r\n");
+    private static final byte[] CRLF = ResponseWriter.ascii("\r\n");
+    private static final byte[] LAST_CHUNK = ResponseWriter.ascii("0\r\n\r\n");
+
+    /**
+     * Acumula hasta CHUNK_SIZE y envía cada bloque como un chunk (o tal cual si el largo es
+     * conocido). Si todo cabe en un bloque y nadie hizo flush, sale con Content-Length.
+     */
+    private final class BodyStream extends OutputStream {
+        private final byte[] buf = new byte[CHUNK_SIZE];
+        private int count;
+        private long written;
+        private boolean finished;
+        boolean finishing;
+
+        @Override
+        public void write(int b) throws IOException {
+            checkWritable();
+            if (count == buf.length) drain();
+            buf[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            checkWritable();
+            while (len > 0) {
+                if (count == buf.length) drain();
+                int n = Math.min(len, buf.length - count);
+                System.arraycopy(b, off, buf, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        private void checkWritable() throws IOException {
+            if (abandoned) throw new IOException(ABANDONED);
+            if (finished) throw new IOException("La respuesta ya terminó");
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (finished || finishing) return;
+            drain();
+        }
+
+        /** El handler no debe cerrar la conexión: close() solo termina el cuerpo. */
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+
+        void finish() throws IOException {
+            if (finished) return;
+            if (!committed) commit(count); // cabe en un bloque: Content-Length exacto
+            drain();
+            finished = true;
+            if (contentLength < 0 && chunked() && !headOnly) out.write(LAST_CHUNK);
+            if (contentLength >= 0 && written != contentLength) {
+                keepAlive = false; // el cliente no puede delimitar la siguiente respuesta
+                throw new IOException("Se escribieron " + written + " bytes y Content-Length es " + contentLength);
+            }
+        }
+
+        private void drain() throws IOException {
+            commit(-1);
+            if (count == 0) return;
+            if (headOnly) {
+                // HEAD: se cuenta (para validar Content-Length) pero no se envía
+                written += count;
+                count = 0;
+                return;
+            }
+            if (contentLength < 0 && chunked()) {
+                out.write(ResponseWriter.ascii(Integer.toHexString(count)));
+                out.write(CRLF);
+                out.write(buf, 0, count);
+                out.write(CRLF);
+            } else {
+                out.write(buf, 0, count);
+            }
+            written += count;
+            count = 0;
+            out.flush();
+        }
+    }
 }
@@ -2,19 +2,40 @@ package com.mycompany.httpserver;
 
 import java.io.*;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Mini framework para rutas GET con lambdas, parámetros de query y estáticos.
  * Puerto por defecto: 8080 (se puede pasar por args[0]).
+ * Las conexiones se atienden en paralelo según {@link ServerConfig} (hilos virtuales por defecto).
+ * Con -Dhttp.engine=nio se usa el motor de eventos {@link NioHttpServer} con las mismas rutas.
  */
 public class HttpServer {
 
     // ====== Variables RENOMBRADAS para diferenciación ======
-    // Registro de endpoints (antes: services)
-    private static final Map<String, Service> endpointRegistry = new HashMap<>();
+    // Registro de endpoints (antes: services): ruta normalizada -> patrón original + handler
+    private static final Map<String, Map.Entry<String, Service>> endpointRegistry = new LinkedHashMap<>();
+
+    // Árbol de rutas compilado; se reemplaza completo en cada registro (nunca se modifica)
+    private static volatile Router router = Router.EMPTY;
+
+    // Buffer de capturas del router reutilizado por hilo
+    private static final ThreadLocal<int[]> routeCaptures = ThreadLocal.withInitial(() -> new int[16]);
+
+    // Rutas WebSocket (coincidencia exacta): ruta normalizada -> handler
+    private static final Map<String, WebSocketHandler> webSockets = new java.util.concurrent.ConcurrentHashMap<>();
 
     // Carpeta base de estáticos en target/classes (antes: principalPath)
     private static String assetsBasePath = "target/classes/webroot";
@@ -22,6 +43,9 @@ public class HttpServer {
     // Carpeta base de origen (dev) desde resources (para copiar)
     private static String resourcesBasePath = "src/main/resources";
 
+    // Caché de estáticos (se invalida sola cuando cambian los archivos)
+    private static final StaticAssetCache assetCache = new StaticAssetCache(ServerConfig.staticCacheBytes());
+
     // Tipos MIME
     private static final Map<String, String> MIME = new HashMap<>();
     static {
@@ -38,6 +62,23 @@ public class HttpServer {
         MIME.put("ong",  "image/png"); // por si el archivo quedó con extensión .ong
     }
 
+    // Cache-Control por extensión (se sobrescribe con -Dhttp.cacheControl.<ext>=... o cacheControl(ext, política))
+    private static final String DEFAULT_CACHE_CONTROL = "no-cache";
+    private static final Map<String, String> CACHE_CONTROL = new java.util.concurrent.ConcurrentHashMap<>();
+    static {
+        CACHE_CONTROL.put("html", "no-cache"); // siempre se revalida (ETag), para ver cambios al instante
+        CACHE_CONTROL.put("json", "no-cache");
+        CACHE_CONTROL.put("css",  "public, max-age=3600");
+        CACHE_CONTROL.put("js",   "public, max-age=3600");
+        for (String img : List.of("png", "jpg", "jpeg", "gif", "ico", "svg", "ong")) {
+            CACHE_CONTROL.put(img, "public, max-age=86400");
+        }
+        String prefix = "http.cacheControl.";
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith(prefix)) CACHE_CONTROL.put(key.substring(prefix.length()).toLowerCase(Locale.ROOT), System.getProperty(key));
+        }
+    }
+
     // --- normalización de rutas (case-insensitive y con '/' inicial)
     private static String normalizeRoute(String r) {
         if (r == null || r.isEmpty()) return "/";
@@ -46,9 +87,79 @@ public class HttpServer {
         return s.toLowerCase(java.util.Locale.ROOT);
     }
 
-    /** Define una ruta GET y su lambda. */
+    /**
+     * Define una ruta GET y su lambda. Admite variables ({symbol}), '*' para un
+     * segmento y '**' al final; ver {@link Router}. Registrar otra vez la misma ruta la reemplaza.
+     */
     public static void get(String route, Service handler) {
-        endpointRegistry.put(normalizeRoute(route), handler);
+        String pattern = (route == null || route.isBlank()) ? "/" : route.trim();
+        String key = normalizeRoute(pattern);
+        Map.Entry<String, Service> endpoint = Map.entry(pattern, handler);
+        synchronized (endpointRegistry) {
+            // Se arma el router con una copia: si el patrón es inválido, registro y router quedan como estaban
+            Map<String, Map.Entry<String, Service>> next = new LinkedHashMap<>(endpointRegistry);
+            next.put(key, endpoint);
+            Map<String, Service> table = new LinkedHashMap<>();
+            for (Map.Entry<String, Service> e : next.values()) table.put(e.getKey(), e.getValue());
+            Router built = Router.build(table);
+            endpointRegistry.put(key, endpoint);
+            router = built;
+        }
+    }
+
+    /** Registra un handler asíncrono (ver {@link AsyncService}). */
+    public static void getAsync(String route, AsyncService handler) {
+        get(route, handler);
+    }
+
+    /** Publica {@link Metrics#scrape} en /metrics, salvo que la aplicación ya use esa ruta. */
+    private static void registerMetricsEndpoint() {
+        synchronized (endpointRegistry) {
+            if (endpointRegistry.containsKey(normalizeRoute("/metrics"))) return;
+        }
+        get("/metrics", (req, resp) -> {
+            resp.setContentType(Metrics.CONTENT_TYPE).setHeader("Cache-Control", "no-store");
+            return Metrics.scrape();
+        });
+    }
+
+    /** Abre el access log en http.accessLog.dir; al apagarse la JVM se vacía lo pendiente. */
+    private static void startAccessLog() throws IOException {
+        AccessLog log = new AccessLog(Paths.get(ServerConfig.accessLogDir()), ServerConfig.accessLogRingSize(),
+                ServerConfig.accessLogSegmentBytes(), ServerConfig.accessLogMaxSegments());
+        AccessLog.install(log);
+        Runtime.getRuntime().addShutdownHook(new Thread(log::close, "access-log-shutdown"));
+        Metrics.counter("http_access_log_written_total", "Registros del access log escritos en archivo.", log::written);
+        Metrics.counter("http_access_log_dropped_total", "Registros del access log descartados (anillo lleno).", log::dropped);
+        System.out.println("[accesslog] " + log.directory().toAbsolutePath());
+    }
+
+    /** Busca el handler de la ruta y asocia sus variables al request; null si no hay ruta. */
+    static Router.Route route(HttpRequest req) {
+        Router r = router;
+        int[] caps = routeCaptures.get();
+        if (caps.length < r.maxVariables() * 2) {
+            caps = new int[r.maxVariables() * 2];
+            routeCaptures.set(caps);
+        }
+        Router.Route route = r.match(req.getPath(), caps);
+        if (route != null) req.bindPathVariables(route.variables(), caps);
+        return route;
+    }
+
+    /**
+     * Define una ruta WebSocket (RFC 6455), p.ej. websocket("/ws/stocks", handler).
+     * Un GET con "Upgrade: websocket" a esa ruta pasa a ser una conexión WebSocket;
+     * sin el upgrade se responde 426.
+     */
+    public static void websocket(String route, WebSocketHandler handler) {
+        webSockets.put(normalizeRoute(route), handler);
+    }
+
+    /** Handler WebSocket de la ruta pedida (solo GET), o null si la ruta es HTTP normal. */
+    static WebSocketHandler webSocketHandler(HttpRequest req) {
+        if (webSockets.isEmpty() || !"GET".equals(req.getMethod())) return null;
+        return webSockets.get(normalizeRoute(req.getPath()));
     }
 
     /**
@@ -70,6 +181,20 @@ public class HttpServer {
         } catch (IOException e) {
             System.err.println("[staticfiles] Advertencia: no se pudieron copiar los archivos: " + e.getMessage());
         }
+
+        // La caché se rellena bajo demanda; vigilar ambas carpetas para invalidar cambios
+        assetCache.clear();
+        assetCache.watch(Paths.get(assetsBasePath), Paths.get(resourcesBasePath));
+    }
+
+    /**
+     * Define la política Cache-Control de una extensión de estáticos (p.ej. "css", "public, max-age=600").
+     * Las entradas ya cacheadas se descartan para que tomen la nueva política.
+     */
+    public static void cacheControl(String extension, String policy) {
+        String ext = extension.startsWith(".") ? extension.substring(1) : extension;
+        CACHE_CONTROL.put(ext.toLowerCase(Locale.ROOT), policy);
+        assetCache.clear();
     }
 
     /** Inicia el servidor (args[0] = puerto opcional) */
@@ -79,75 +204,450 @@ public class HttpServer {
             try { port = Integer.parseInt(args[0]); } catch (NumberFormatException ignored) {}
         }
 
-        try (ServerSocket listener = new ServerSocket(port)) {
-            System.out.println("Servidor corriendo en http://localhost:" + port);
+        if (ServerConfig.metricsEndpoint()) registerMetricsEndpoint();
+        if (ServerConfig.accessLogDir() != null && AccessLog.global() == null) startAccessLog();
+
+        if (ServerConfig.engine() == ServerConfig.Engine.NIO) {
+            new NioHttpServer(port).run();
+            return;
+        }
+
+        // ServerSocketChannel en modo bloqueante: los sockets aceptados tienen canal (transferTo)
+        try (ServerSocketChannel listener = ServerSocketChannel.open();
+             ConnectionDispatcher dispatcher = ConnectionDispatcher.fromConfig()) {
+            listener.bind(new InetSocketAddress(port), ServerConfig.acceptBacklog());
+            System.out.println("Servidor corriendo en http://localhost:" + port + " (modo " + dispatcher.mode() + ")");
             while (true) {
-                Socket client = listener.accept();
-                handleClient(client);
+                SocketChannel client = listener.accept();
+                // Admisión: sobre el tope se responde 503 sin ocupar un hilo de atención
+                if (dispatcher.inFlight() >= ServerConfig.maxConnections()) {
+                    rejectOverloaded(client);
+                    continue;
+                }
+                try {
+                    dispatcher.dispatch(client, () -> handleClient(client));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    client.close();
+                    return;
+                }
             }
         }
     }
 
+    /** Respuesta fija para las conexiones que superan maxConnections. */
+    static final byte[] OVERLOADED = ResponseWriter.ascii("HTTP/1.1 503 Service Unavailable\r\n"
+            + "Content-Type: text/plain; charset=utf-8\r\nContent-Length: 19\r\n"
+            + "Retry-After: 1\r\nConnection: close\r\n\r\nService Unavailable");
+
+    // Tras el 503 se descarta lo que mande el cliente hasta este plazo: cerrar con datos sin
+    // leer manda RST y el cliente podría perder la respuesta
+    static final int REJECT_LINGER_MS = 1_000;
+
+    /**
+     * Escribe el 503 desde el hilo del accept (cabe en el buffer de envío de un socket recién
+     * aceptado) y deja el cierre a un hilo virtual que drena la entrada.
+     */
+    private static void rejectOverloaded(SocketChannel client) {
+        Metrics.connectionRejected();
+        try {
+            client.write(ByteBuffer.wrap(OVERLOADED));
+            client.shutdownOutput();
+            Thread.startVirtualThread(() -> {
+                try (SocketChannel ch = client) {
+                    ch.socket().setSoTimeout(REJECT_LINGER_MS);
+                    InputStream in = ch.socket().getInputStream();
+                    byte[] sink = new byte[1024];
+                    long deadline = System.nanoTime() + REJECT_LINGER_MS * 1_000_000L;
+                    while (in.read(sink) >= 0 && System.nanoTime() - deadline < 0) { }
+                } catch (IOException ignored) {}
+            });
+        } catch (IOException | RuntimeException e) {
+            try { client.close(); } catch (IOException ignored) {}
+        }
+    }
+
     // ================== Núcleo de atención ==================
-    private static void handleClient(Socket client) {
-        try (InputStream inRaw = client.getInputStream();
-             OutputStream outRaw = new BufferedOutputStream(client.getOutputStream());
-             BufferedReader in = new BufferedReader(new InputStreamReader(inRaw, StandardCharsets.US_ASCII))) {
+    /**
+     * Atiende una conexión HTTP/1.1 persistente: procesa las peticiones en orden
+     * (incluidas las que llegan en pipeline) hasta que el cliente pide cerrar,
+     * se agota el tiempo de inactividad o se alcanza el máximo de peticiones.
+     * La cabecera se parsea sobre un buffer de bytes reutilizado por la conexión.
+     * Sin bytes pendientes se espera keepAliveTimeoutMs y se cierra en silencio; con una
+     * petición a medias cada lectura espera hasta readTimeoutMs y la cabecera completa debe
+     * llegar en headerTimeoutMs desde su primer byte, si no se responde 408.
+     */
+    private static void handleClient(SocketChannel channel) {
+        Socket client = channel.socket();
+        Metrics.connectionOpened();
+        try (InputStream in = client.getInputStream();
+             OutputStream outRaw = new SocketChannelOutput(channel, 8 * 1024)) {
+
+            int idleTimeout = ServerConfig.keepAliveTimeoutMs();
+            int readTimeout = ServerConfig.readTimeoutMs();
+            long headerNanos = ServerConfig.headerTimeoutMs() * 1_000_000L;
+            int maxRequests = ServerConfig.maxRequestsPerConnection();
+            int maxBuffer = ServerConfig.maxHeaderBytes() + 1;
+
+            HttpRequestParser parser = new HttpRequestParser();
+            byte[] buf = new byte[Math.min(8 * 1024, maxBuffer)];
+            int start = 0, limit = 0;
+
+            for (int served = 1; ; served++) {
+                parser.reset();
+                int end;
+                long parseNanos = 0; // solo el parseo: no cuenta la espera de bytes
+                long requestStart = start < limit ? System.nanoTime() : 0; // 0 = aún sin bytes de esta petición
+                try {
+                    while (true) {
+                        long p0 = System.nanoTime();
+                        end = parser.parse(buf, start, limit);
+                        parseNanos += System.nanoTime() - p0;
+                        if (end != HttpRequestParser.NEED_MORE) break;
+                        // Compactar al inicio y, si hace falta, crecer hasta el límite de cabecera
+                        if (start > 0) {
+                            System.arraycopy(buf, start, buf, 0, limit - start);
+                            limit -= start;
+                            start = 0;
+                        }
+                        if (limit == buf.length) buf = Arrays.copyOf(buf, Math.min(buf.length * 2, maxBuffer));
+                        int timeout = idleTimeout;
+                        if (requestStart != 0) {
+                            timeout = readTimeout;
+                            if (headerNanos > 0) {
+                                long left = headerNanos - (System.nanoTime() - requestStart);
+                                if (left <= 0) {
+                                    requestTimeout(outRaw);
+                                    return;
+                                }
+                                timeout = minTimeout(timeout, (int) Math.max(1, left / 1_000_000L));
+                            }
+                        }
+                        client.setSoTimeout(timeout);
+                        int n;
+                        try {
+                            n = in.read(buf, limit, buf.length - limit);
+                        } catch (SocketTimeoutException slow) {
+                            if (requestStart != 0) requestTimeout(outRaw);
+                            return; // sin petición en curso: inactiva, se cierra sin respuesta
+                        }
+                        if (n < 0) return;
+                        if (requestStart == 0) requestStart = System.nanoTime();
+                        limit += n;
+                    }
+                } catch (HttpParseException bad) {
+                    writeText(outRaw, HttpRequestParser.HTTP_1_1, bad.status(), bad.getMessage(), false);
+                    outRaw.flush();
+                    return;
+                }
+
+                long p0 = System.nanoTime();
+                HttpRequest req = parser.toRequest(buf, start);
+                req.parseNanos = parseNanos + System.nanoTime() - p0;
+                start = end;
+
+                // Descartar un posible cuerpo para no desalinear la siguiente petición
+                long body = parser.contentLength();
+                if (body > ServerConfig.maxDrainBytes()) {
+                    writeText(outRaw, req.getVersion(), 413, "Content Too Large", false);
+                    outRaw.flush();
+                    return;
+                }
+                int inline = (int) Math.min(body, limit - start);
+                start += inline;
+                if (body > inline) {
+                    client.setSoTimeout(readTimeout);
+                    in.skipNBytes(body - inline);
+                }
+
+                if (parser.hasTransferEncoding()) {
+                    writeText(outRaw, req.getVersion(), 501, "Not Implemented", false);
+                    outRaw.flush();
+                    return;
+                }
+
+                // Upgrade a WebSocket: la conexión deja de ser HTTP y la atiende este mismo hilo
+                WebSocketHandler ws = webSocketHandler(req);
+                if (ws != null) {
+                    outRaw.flush();
+                    WebSocket.serve(channel, in, Arrays.copyOfRange(buf, start, limit), req, ws);
+                    return;
+                }
+
+                boolean keepAlive = parser.keepAlive() && served < maxRequests;
+                if (!respond(outRaw, req, keepAlive)) keepAlive = false;
+
+                // Si ya hay otra petición en el buffer (pipeline), se agrupan las respuestas
+                if (!keepAlive || start == limit) outRaw.flush();
+                if (!keepAlive) return;
+                if (start == limit) start = limit = 0;
+            }
+
+        } catch (SocketTimeoutException idle) {
+            // Conexión inactiva más allá del keep-alive: se cierra sin respuesta
+        } catch (IOException ioe) {
+            System.err.println("[handleClient] " + ioe.getMessage());
+        } finally {
+            try { channel.close(); } catch (IOException ignored) {}
+            Metrics.connectionClosed();
+        }
+    }
 
-            String start = in.readLine(); // "GET /ruta?x=1 HTTP/1.1"
-            if (start == null || start.isEmpty()) return;
+    /** La cabecera no llegó a tiempo: 408 y cierre. */
+    private static void requestTimeout(OutputStream out) throws IOException {
+        Metrics.requestTimedOut();
+        writeText(out, HttpRequestParser.HTTP_1_1, 408, "Request Timeout", false);
+        out.flush();
+    }
 
-            String[] parts = start.split(" ");
-            String method = parts.length > 0 ? parts[0] : "GET";
-            String target = parts.length > 1 ? parts[1] : "/";
-            String version = parts.length > 2 ? parts[2] : "HTTP/1.1";
+    /** El menor de dos timeouts de socket, donde 0 es sin límite. */
+    static int minTimeout(int a, int b) {
+        if (a == 0) return b;
+        if (b == 0) return a;
+        return Math.min(a, b);
+    }
 
-            // Consumir headers (no los usamos aún)
-            String line;
-            while ((line = in.readLine()) != null && !line.isEmpty()) {}
+    /** HTTP/1.1 es persistente salvo "Connection: close"; HTTP/1.0 solo con "Connection: keep-alive". */
+    static boolean isKeepAlive(String version, String connection) {
+        boolean http11 = "HTTP/1.1".equalsIgnoreCase(version);
+        if (connection == null) return http11;
+        for (String token : connection.split(",")) {
+            String t = token.trim();
+            if (t.equalsIgnoreCase("close")) return false;
+            if (t.equalsIgnoreCase("keep-alive")) return true;
+        }
+        return http11;
+    }
 
-            URI uri;
+    /**
+     * Genera la respuesta de una petición ya parseada.
+     * Retorna false si la conexión debe cerrarse después.
+     * Un handler {@link AsyncService} se espera aquí: en el motor bloqueante la conexión es
+     * del hilo y con hilos virtuales la espera no ocupa un hilo del sistema.
+     */
+    static boolean respond(OutputStream out, HttpRequest req, boolean keepAlive) throws IOException {
+        Router.Route route = isGetOrHead(req) ? route(req) : null;
+        if (route != null && route.handler() instanceof AsyncService async) {
+            Timing timing = new Timing(route.pattern(), req, out);
+            HttpResponse resp = new HttpResponse(out, req.getVersion(), keepAlive, isHead(req));
+            Object value = null;
+            Throwable error = null;
             try {
-                uri = new URI(target);
-            } catch (URISyntaxException e) {
-                writeText(outRaw, version, 400, "Bad Request");
-                return;
+                value = startAsync(async, req, resp).join();
+            } catch (CompletionException | CancellationException e) {
+                error = e;
             }
+            timing.handled();
+            return complete(out, req, resp, keepAlive, value, error, timing);
+        }
+        return respond(out, req, keepAlive, route);
+    }
 
-            String path = uri.getPath();
+    private static final CompletionStage<Boolean> KEEP_OPEN = CompletableFuture.completedStage(true);
+    private static final CompletionStage<Boolean> CLOSE = CompletableFuture.completedStage(false);
 
-            // 1) ¿Hay handler registrado exacto?
-            Service svc = endpointRegistry.get(normalizeRoute(path));
-            if ("GET".equalsIgnoreCase(method) && svc != null) {
-                HttpRequest req = new HttpRequest(uri);
-                HttpResponse resp = new HttpResponse();
-                String payload;
+    /**
+     * Variante para el motor NIO: la etapa termina cuando la respuesta quedó escrita en out
+     * (con el mismo resultado que {@link #respond}). Las rutas síncronas se responden aquí
+     * mismo; las asíncronas se completan en el hilo que termine su etapa.
+     */
+    static CompletionStage<Boolean> respondAsync(OutputStream out, HttpRequest req, boolean keepAlive) throws IOException {
+        Router.Route route = isGetOrHead(req) ? route(req) : null;
+        if (route != null && route.handler() instanceof AsyncService async) {
+            Timing timing = new Timing(route.pattern(), req, out);
+            HttpResponse resp = new HttpResponse(out, req.getVersion(), keepAlive, isHead(req));
+            return startAsync(async, req, resp).handle((value, error) -> {
+                timing.handled();
                 try {
-                    payload = svc.handle(req, resp);
-                } catch (Exception ex) {
-                    payload = "Internal Server Error: " + ex.getMessage();
-                    write(outRaw, version, 500, "text/plain; charset=utf-8", payload.getBytes(StandardCharsets.UTF_8));
-                    return;
+                    return complete(out, req, resp, keepAlive, value, error, timing);
+                } catch (IOException e) {
+                    return false;
                 }
-                write(outRaw, version, 200, "application/json; charset=utf-8", payload.getBytes(StandardCharsets.UTF_8));
-                return;
+            });
+        }
+        return respond(out, req, keepAlive, route) ? KEEP_OPEN : CLOSE;
+    }
+
+    private static final byte[] METHOD_NOT_ALLOWED = ResponseWriter.ascii("Method Not Allowed");
+    private static final byte[] ALLOW_GET_HEAD = ResponseWriter.ascii("Allow: GET, HEAD\r\n");
+
+    /** HEAD se atiende como GET pero sin cuerpo. */
+    private static boolean isGetOrHead(HttpRequest req) {
+        return "GET".equals(req.getMethod()) || isHead(req);
+    }
+
+    private static boolean isHead(HttpRequest req) {
+        return "HEAD".equals(req.getMethod());
+    }
+
+    /** Respuesta síncrona: handler registrado o, si no hay ruta, estático (que cuenta todo como escritura). */
+    private static boolean respond(OutputStream out, HttpRequest req, boolean keepAlive, Router.Route route) throws IOException {
+        String version = req.getVersion();
+        Timing timing = new Timing(route != null ? route.pattern() : Metrics.STATIC, req, out);
+        int status = 0; // queda en 0 si la escritura falla
+        try {
+            // 1) Solo se sirven GET y HEAD
+            if (!isGetOrHead(req)) {
+                ResponseWriter.send(out, head(out, version, 405, ResponseWriter.TEXT_PLAIN, METHOD_NOT_ALLOWED.length)
+                        .raw(ALLOW_GET_HEAD).end(keepAlive), METHOD_NOT_ALLOWED);
+                status = 405;
+                return keepAlive;
             }
 
             // 2) Servir estáticos desde assetsBasePath
-            serveStatic(outRaw, version, path);
+            if (route == null) {
+                status = serveStatic(out, req, req.getPath(), keepAlive);
+                return keepAlive;
+            }
 
-        } catch (IOException ioe) {
-            System.err.println("[handleClient] " + ioe.getMessage());
+            // 3) Handler registrado para la ruta
+            HttpResponse resp = new HttpResponse(out, version, keepAlive, isHead(req));
+            String payload = null;
+            Exception failure = null;
+            try {
+                payload = route.handler().handle(req, resp);
+            } catch (Exception ex) {
+                failure = ex;
+            }
+            timing.handled();
+            if (failure == null && resp.isStreaming()) {
+                try {
+                    resp.finish(payload);
+                    status = resp.getStatus();
+                    return resp.keepAlive();
+                } catch (IOException ex) {
+                    failure = ex;
+                }
+            }
+            if (failure != null) {
+                // Si ya salieron headers no se puede cambiar el status: se corta la conexión
+                if (resp.isCommitted()) {
+                    status = resp.getStatus();
+                    return false;
+                }
+                payload = "Internal Server Error: " + failure.getMessage();
+                write(out, version, 500, ResponseWriter.TEXT_PLAIN, payload.getBytes(StandardCharsets.UTF_8), keepAlive, isHead(req));
+                status = 500;
+                return keepAlive;
+            }
+            resp.send(payload == null ? new byte[0] : payload.getBytes(StandardCharsets.UTF_8));
+            status = resp.getStatus();
+            return resp.keepAlive();
         } finally {
-            try { client.close(); } catch (IOException ignored) {}
+            timing.end(status);
+        }
+    }
+
+    /** Llama al handler asíncrono; su etapa se copia a un future propio para aplicar el timeout. */
+    private static CompletableFuture<Object> startAsync(AsyncService svc, HttpRequest req, HttpResponse resp) {
+        CompletableFuture<Object> f = new CompletableFuture<>();
+        try {
+            CompletionStage<?> stage = svc.handleAsync(req, resp);
+            if (stage == null) {
+                f.complete(null);
+            } else {
+                stage.whenComplete((v, t) -> {
+                    if (t != null) f.completeExceptionally(t);
+                    else f.complete(v);
+                });
+            }
+        } catch (Exception e) {
+            f.completeExceptionally(e);
+        }
+        int timeout = ServerConfig.asyncTimeoutMs();
+        return timeout > 0 && !f.isDone() ? f.orTimeout(timeout, TimeUnit.MILLISECONDS) : f;
+    }
+
+    /**
+     * Escribe el resultado de un handler asíncrono; retorna false si hay que cerrar la conexión.
+     */
+    private static boolean complete(OutputStream out, HttpRequest req, HttpResponse resp, boolean keepAlive,
+                                    Object value, Throwable error, Timing timing) throws IOException {
+        int status = 0;
+        try {
+            if (error != null) {
+                if (resp.isCommitted()) {
+                    status = resp.getStatus();
+                    return false;
+                }
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                if (cause instanceof TimeoutException) {
+                    // Si el handler envió headers mientras tanto, gana él: no se puede cambiar el status
+                    if (!resp.abandon()) {
+                        status = resp.getStatus();
+                        return false;
+                    }
+                    // Desde aquí lo que escriba el handler falla; igual se cierra por si tenía algo a medias
+                    write(out, req.getVersion(), 503, ResponseWriter.TEXT_PLAIN,
+                            "Service Unavailable: el handler no respondió a tiempo".getBytes(StandardCharsets.UTF_8), false, isHead(req));
+                    status = 503;
+                    return false;
+                }
+                byte[] body = ("Internal Server Error: " + cause.getMessage()).getBytes(StandardCharsets.UTF_8);
+                write(out, req.getVersion(), 500, ResponseWriter.TEXT_PLAIN, body, keepAlive, isHead(req));
+                status = 500;
+                return keepAlive;
+            }
+            if (resp.isStreaming()) {
+                resp.finish(value instanceof byte[] b ? new String(b, StandardCharsets.UTF_8) : value == null ? null : value.toString());
+            } else if (value instanceof byte[] b) {
+                resp.send(b);
+            } else {
+                resp.send(value == null ? new byte[0] : value.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            status = resp.getStatus();
+            return resp.keepAlive();
+        } finally {
+            timing.end(status);
+        }
+    }
+
+    /**
+     * Medición de una petición: fases en {@link Metrics} y, al terminar, un registro en el
+     * {@link AccessLog} con los bytes que salieron por out y la latencia desde el enrutamiento.
+     */
+    private static final class Timing {
+        private final Metrics.RouteStats stats;
+        private final OutputStream out;
+        private final long begin;
+        private final long bytesBefore;
+        private long phaseStart;
+
+        Timing(String route, HttpRequest req, OutputStream out) {
+            this.stats = Metrics.route(route);
+            this.out = out;
+            this.bytesBefore = bytesWritten(out);
+            this.begin = phaseStart = stats.begin(req);
+        }
+
+        void handled() {
+            phaseStart = stats.handled(phaseStart);
+        }
+
+        void end(int status) {
+            stats.end(status, phaseStart);
+            AccessLog.log(stats.route(), status, bytesWritten(out) - bytesBefore, System.nanoTime() - begin);
+        }
+
+        private static long bytesWritten(OutputStream out) {
+            return out instanceof GatheringOutput g ? g.bytesWritten() : 0;
         }
     }
 
     // ================== Estáticos (binario-seguro) ==================
-    private static void serveStatic(OutputStream out, String version, String reqPath) throws IOException {
+    /** Sirve un archivo estático; retorna el status enviado. */
+    private static int serveStatic(OutputStream out, HttpRequest req, String reqPath, boolean keepAlive) throws IOException {
+        String version = req.getVersion();
         String clean = normalize(reqPath);
         if ("/".equals(clean)) clean = "/index.html";
 
+        // Acierto en caché: cero llamadas al sistema de archivos
+        StaticAssetCache.Entry cached = assetCache.get(clean);
+        if (cached != null) {
+            return sendStatic(out, req, cached, null, cached.contentType, cached.body.length, cached.validators, keepAlive);
+        }
+
+        long gen = assetCache.generation();
         // target/classes/webroot + clean
         Path candidate = Paths.get(assetsBasePath + clean);
         // Fallback: si no existe, intenta servir directo desde resources (útil en dev sin compilar)
@@ -156,19 +656,192 @@ public class HttpServer {
         Path file = Files.exists(candidate) ? candidate : (Files.exists(devCandidate) ? devCandidate : null);
 
         if (file == null || Files.isDirectory(file) || !Files.exists(file)) {
-            writeText(out, version, 404, "Not Found: " + clean);
-            return;
+            write(out, version, 404, ResponseWriter.TEXT_PLAIN, ("Not Found: " + clean).getBytes(StandardCharsets.UTF_8),
+                    keepAlive, isHead(req));
+            return 404;
+        }
+
+        String ext = extensionOf(file.toString());
+        String ctype = MIME.getOrDefault(ext, "application/octet-stream");
+        String cacheControl = CACHE_CONTROL.getOrDefault(ext, DEFAULT_CACHE_CONTROL);
+        long size = Files.size(file);
+        long modified = Files.getLastModifiedTime(file).toMillis();
+        if (size >= ServerConfig.streamThresholdBytes()) {
+            StaticAssetCache.Validators v = assetCache.validatorsFor(file, size, modified, cacheControl);
+            return sendStatic(out, req, null, file, ctype, size, v, keepAlive);
         }
 
         byte[] data = Files.readAllBytes(file);
-        String ctype = detectContentType(file.toString());
-        write(out, version, 200, ctype, data);
+        StaticAssetCache.Entry entry = assetCache.load(clean, file, ctype, cacheControl, modified, data, gen);
+        return sendStatic(out, req, entry, null, ctype, data.length, entry.validators, keepAlive);
+    }
+
+    /**
+     * Elige la respuesta de un estático ya resuelto: 304, 206/416 (Range) o 200 completo.
+     * Con entry el contenido está en memoria; si no, se lee de file solo lo que se envía.
+     * Retorna el status enviado.
+     */
+    private static int sendStatic(OutputStream out, HttpRequest req, StaticAssetCache.Entry entry, Path file,
+                                   String ctype, long size, StaticAssetCache.Validators v, boolean keepAlive) throws IOException {
+        String version = req.getVersion();
+        if (isNotModified(req, v)) {
+            writeNotModified(out, version, v.lines(), keepAlive);
+            return 304;
+        }
+        List<ByteRanges.Range> ranges = requestedRanges(req, v, size);
+        if (ranges != null) {
+            return writeRanges(out, version, entry != null ? entry.body : null, file, ctype, size, ranges, v, keepAlive);
+        }
+        boolean headOnly = isHead(req);
+        if (entry != null) writeCached(out, version, entry, keepAlive, headOnly);
+        else streamFile(out, version, file, ctype, size, v, keepAlive, headOnly);
+        return 200;
+    }
+
+    /**
+     * GET condicional (RFC 9110 §13): If-None-Match manda sobre If-Modified-Since.
+     * Solo aplica a GET/HEAD; el resto de métodos recibe la respuesta completa.
+     */
+    static boolean isNotModified(HttpRequest req, StaticAssetCache.Validators v) {
+        String method = req.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) return false;
+
+        String inm = req.getHeader("If-None-Match");
+        if (inm != null) return etagMatches(inm, v.etag());
+
+        long since = StaticAssetCache.parseHttpDate(req.getHeader("If-Modified-Since"));
+        // Las fechas HTTP tienen precisión de segundos
+        return since >= 0 && v.lastModified() / 1000 <= since / 1000;
+    }
+
+    /**
+     * Tramos pedidos con Range, o null si la petición debe recibir el recurso completo
+     * (no es GET, no trae Range, el header no es válido o If-Range ya no coincide).
+     */
+    private static List<ByteRanges.Range> requestedRanges(HttpRequest req, StaticAssetCache.Validators v, long size) {
+        if (!"GET".equals(req.getMethod())) return null;
+        String range = req.getHeader("Range");
+        if (range == null) return null;
+        String ifRange = req.getHeader("If-Range");
+        if (ifRange != null) {
+            String cond = ifRange.trim();
+            // If-Range usa comparación fuerte: un ETag débil nunca coincide
+            boolean same = cond.startsWith("\"") ? cond.equals(v.etag())
+                    : cond.equals(StaticAssetCache.httpDate(v.lastModified()));
+            if (!same) return null;
+        }
+        return ByteRanges.parse(range, size);
+    }
+
+    /** 206 con uno o varios tramos (multipart/byteranges), o 416 si ninguno es satisfacible. */
+    private static int writeRanges(OutputStream out, String version, byte[] body, Path file, String ctype, long size,
+                                    List<ByteRanges.Range> ranges, StaticAssetCache.Validators v, boolean keepAlive) throws IOException {
+        if (ranges.isEmpty()) {
+            ResponseWriter.sendHead(out, head(out, version, 416, ResponseWriter.TEXT_PLAIN, 0)
+                    .header(ResponseWriter.CONTENT_RANGE, "bytes */" + size).end(keepAlive));
+            return 416;
+        }
+        if (ranges.size() == 1) {
+            ByteRanges.Range r = ranges.get(0);
+            ResponseWriter.sendHead(out, head(out, version, 206, ctype, r.length())
+                    .header(ResponseWriter.CONTENT_RANGE, r.contentRange(size)).raw(v.lines()).end(keepAlive));
+            writeSlice(out, body, file, r.start(), r.length());
+            return 206;
+        }
+
+        // Varios tramos: cada parte lleva su propio Content-Type y Content-Range
+        String boundary = Long.toHexString(java.util.concurrent.ThreadLocalRandom.current().nextLong() | Long.MIN_VALUE);
+        byte[][] partHeads = new byte[ranges.size()][];
+        long total = 0;
+        for (int i = 0; i < partHeads.length; i++) {
+            ByteRanges.Range r = ranges.get(i);
+            partHeads[i] = ("\r\n--" + boundary + "\r\nContent-Type: " + ctype + "\r\nContent-Range: "
+                    + r.contentRange(size) + "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+            total += partHeads[i].length + r.length();
+        }
+        byte[] tail = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        total += tail.length;
+
+        ResponseWriter.sendHead(out, head(out, version, 206, "multipart/byteranges; boundary=" + boundary, total)
+                .raw(v.lines()).end(keepAlive));
+        for (int i = 0; i < partHeads.length; i++) {
+            ResponseWriter.sendAll(out, partHeads[i]);
+            writeSlice(out, body, file, ranges.get(i).start(), ranges.get(i).length());
+        }
+        ResponseWriter.sendAll(out, tail);
+        return 206;
+    }
+
+    /** Escribe un tramo desde memoria o, si no hay cuerpo cargado, directo del archivo. */
+    private static void writeSlice(OutputStream out, byte[] body, Path file, long start, long count) throws IOException {
+        if (body != null) {
+            ResponseWriter.sendSlice(out, body, (int) start, (int) count);
+            return;
+        }
+        FileChannel fc = FileChannel.open(file, StandardOpenOption.READ);
+        if (out instanceof ZeroCopyOutput zc) {
+            zc.transferFrom(fc, start, count); // la salida cierra el canal
+            return;
+        }
+        try (fc) {
+            copyRegion(fc, start, count, out);
+        }
+    }
+
+    /** Comparación débil contra la lista de If-None-Match ("*" coincide con cualquiera). */
+    private static boolean etagMatches(String header, String etag) {
+        String target = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String tag : header.split(",")) {
+            String t = tag.trim();
+            if (t.equals("*")) return true;
+            if (t.startsWith("W/")) t = t.substring(2);
+            if (t.equals(target)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Archivo grande: no se carga en memoria. Con un socket con canal se usa transferTo
+     * (sendfile); si no, se copia en bloques de tamaño fijo. Con headOnly (HEAD) solo salen los headers.
+     */
+    private static void streamFile(OutputStream out, String version, Path file, String ctype, long size,
+                                   StaticAssetCache.Validators v, boolean keepAlive, boolean headOnly) throws IOException {
+        ResponseWriter.Head head = head(out, version, 200, ctype, size)
+                .raw(ResponseWriter.ACCEPT_RANGES_BYTES).raw(v.lines()).end(keepAlive);
+        if (headOnly) {
+            ResponseWriter.sendHead(out, head);
+            return;
+        }
+        FileChannel fc = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ResponseWriter.sendHead(out, head);
+            if (out instanceof ZeroCopyOutput zc) {
+                FileChannel owned = fc;
+                fc = null; // ahora lo cierra la salida
+                zc.transferFrom(owned, 0, size);
+            } else {
+                copyRegion(fc, 0, size, out);
+            }
+        } finally {
+            if (fc != null) fc.close();
+        }
+    }
+
+    private static void copyRegion(FileChannel fc, long position, long count, OutputStream out) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate((int) Math.min(64 * 1024, Math.max(1, count)));
+        long end = position + count;
+        while (position < end) {
+            chunk.clear().limit((int) Math.min(chunk.capacity(), end - position));
+            int n = fc.read(chunk, position);
+            if (n < 0) throw new IOException("El archivo se truncó durante el envío");
+            out.write(chunk.array(), 0, n);
+            position += n;
+        }
     }
 
-    private static String detectContentType(String path) {
+    private static String extensionOf(String path) {
         int i = path.lastIndexOf('.');
-        String ext = (i >= 0) ? path.substring(i + 1).toLowerCase() : "";
-        return MIME.getOrDefault(ext, "application/octet-stream");
+        return (i >= 0) ? path.substring(i + 1).toLowerCase(Locale.ROOT) : "";
     }
 
     private static String normalize(String p) {
@@ -179,22 +852,57 @@ public class HttpServer {
         return s;
     }
 
-    // ================== Escritura de respuestas ==================
-    private static void writeText(OutputStream out, String version, int code, String text) throws IOException {
-        write(out, version, code, "text/plain; charset=utf-8", text.getBytes(StandardCharsets.UTF_8));
+    // ================== Escritura de respuestas (ver ResponseWriter) ==================
+    private static void writeText(OutputStream out, String version, int code, String text, boolean keepAlive) throws IOException {
+        write(out, version, code, ResponseWriter.TEXT_PLAIN, text.getBytes(StandardCharsets.UTF_8), keepAlive);
     }
 
-    private static void write(OutputStream out, String version, int code, String contentType, byte[] body) throws IOException {
-        String status = switch (code) { case 200 -> "OK"; case 400 -> "Bad Request"; case 404 -> "Not Found"; default -> "Status"; };
-        ByteArrayOutputStream buf = new ByteArrayOutputStream();
-        buf.write((version + " " + code + " " + status + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
-        buf.write(("Content-Type: " + contentType + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
-        buf.write(("Content-Length: " + body.length + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
-        buf.write(("Connection: close\r\n").getBytes(StandardCharsets.ISO_8859_1));
-        buf.write(("\r\n").getBytes(StandardCharsets.ISO_8859_1));
-        out.write(buf.toByteArray());
-        out.write(body);
-        out.flush();
+    private static void write(OutputStream out, String version, int code, byte[] contentType, byte[] body, boolean keepAlive) throws IOException {
+        write(out, version, code, contentType, body, keepAlive, false);
+    }
+
+    /**
+     * Escribe status, headers y cuerpo; con headOnly (HEAD) solo los headers, con el mismo
+     * Content-Length. No hace flush: lo decide quien atiende la conexión.
+     */
+    private static void write(OutputStream out, String version, int code, byte[] contentType, byte[] body,
+                              boolean keepAlive, boolean headOnly) throws IOException {
+        ResponseWriter.Head head = ResponseWriter.head(out)
+                .status(version, code)
+                .header(ResponseWriter.CONTENT_TYPE, contentType)
+                .header(ResponseWriter.CONTENT_LENGTH, body.length)
+                .end(keepAlive);
+        if (headOnly) ResponseWriter.sendHead(out, head);
+        else ResponseWriter.send(out, head, body);
+    }
+
+    /** Status, Content-Type y Content-Length; quien llama agrega el resto y cierra con end(). */
+    private static ResponseWriter.Head head(OutputStream out, String version, int code, String contentType, long contentLength) {
+        return ResponseWriter.head(out)
+                .status(version, code)
+                .header(ResponseWriter.CONTENT_TYPE, contentType)
+                .header(ResponseWriter.CONTENT_LENGTH, contentLength);
+    }
+
+    private static ResponseWriter.Head head(OutputStream out, String version, int code, byte[] contentType, long contentLength) {
+        return ResponseWriter.head(out)
+                .status(version, code)
+                .header(ResponseWriter.CONTENT_TYPE, contentType)
+                .header(ResponseWriter.CONTENT_LENGTH, contentLength);
+    }
+
+    /** 200 de un estático con headers ya codificados: solo se encadenan buffers (sin el cuerpo si es HEAD). */
+    private static void writeCached(OutputStream out, String version, StaticAssetCache.Entry e, boolean keepAlive,
+                                    boolean headOnly) throws IOException {
+        byte[] connection = keepAlive ? ResponseWriter.CONN_KEEP_ALIVE : ResponseWriter.CONN_CLOSE;
+        if (headOnly) ResponseWriter.sendAll(out, ResponseWriter.statusLine(version, 200), e.headers, connection);
+        else ResponseWriter.sendAll(out, ResponseWriter.statusLine(version, 200), e.headers, connection, e.body);
+    }
+
+    /** 304 sin cuerpo: solo los validadores (ETag, Last-Modified, Cache-Control). */
+    private static void writeNotModified(OutputStream out, String version, byte[] validators, boolean keepAlive) throws IOException {
+        ResponseWriter.sendAll(out, ResponseWriter.statusLine(version, 304), validators,
+                keepAlive ? ResponseWriter.CONN_KEEP_ALIVE : ResponseWriter.CONN_CLOSE);
     }
 
     // ================== Utilidades de copia ==================
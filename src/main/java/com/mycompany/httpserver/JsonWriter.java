@@ -0,0 +1,371 @@
+package com.mycompany.httpserver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Escritor JSON que genera UTF-8 directo sobre un byte[] reutilizable, sin Strings intermedios:
+ * decimales en punto fijo, enteros y cadenas escapadas se escriben byte a byte.
+ * Las comas entre elementos se ponen solas. Las instancias salen de un pool:
+ * <pre>
+ * try (JsonWriter w = JsonWriter.acquire()) {
+ *     w.beginObject().name(PRICE).value(123.456, 2).endObject();
+ *     w.writeTo(resp.getOutputStream());
+ * }
+ * </pre>
+ * No es thread-safe: cada instancia la usa un solo hilo mientras la tiene.
+ */
+public final class JsonWriter implements AutoCloseable {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_POOLED_CAPACITY = 64 * 1024; // buffers más grandes no vuelven al pool
+    private static final int MAX_DEPTH = 64;
+    private static final ArrayBlockingQueue<JsonWriter> POOL = new ArrayBlockingQueue<>(256);
+
+    private static final long[] POW10 = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000, 1_000_000_000};
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+
+    private byte[] buf = new byte[INITIAL_CAPACITY];
+    private int len;
+    // Por nivel de anidamiento: ¿ya hay un elemento? (para decidir la coma)
+    private final boolean[] hasElement = new boolean[MAX_DEPTH];
+    private int depth;
+    private boolean afterName;
+    private boolean inPool; // ya devuelto: un segundo close() no debe ofrecerlo otra vez
+
+    /** Toma un escritor vacío del pool (o crea uno). Devolverlo con {@link #close()}. */
+    public static JsonWriter acquire() {
+        JsonWriter w = POOL.poll();
+        if (w == null) return new JsonWriter();
+        w.inPool = false;
+        return w;
+    }
+
+    /** Vacía el escritor y lo devuelve al pool; no usarlo después. Cerrarlo otra vez no hace nada. */
+    @Override
+    public void close() {
+        if (inPool) return;
+        inPool = true;
+        reset();
+        if (buf.length <= MAX_POOLED_CAPACITY) POOL.offer(this);
+    }
+
+    public JsonWriter reset() {
+        len = 0;
+        depth = 0;
+        afterName = false;
+        return this;
+    }
+
+    // ================== Estructura ==================
+    public JsonWriter beginObject() {
+        return open('{');
+    }
+
+    public JsonWriter endObject() {
+        return close('}');
+    }
+
+    public JsonWriter beginArray() {
+        return open('[');
+    }
+
+    public JsonWriter endArray() {
+        return close(']');
+    }
+
+    /** Clave de un objeto (se escapa en cada llamada; para claves fijas usar {@link #key}). */
+    public JsonWriter name(String name) {
+        separator();
+        string(name);
+        put(':');
+        afterName = true;
+        return this;
+    }
+
+    /** Clave ya codificada con {@link #key}: solo copia bytes. */
+    public JsonWriter name(byte[] encodedKey) {
+        separator();
+        raw(encodedKey);
+        afterName = true;
+        return this;
+    }
+
+    /** Codifica una clave fija una sola vez: "\"price\":". */
+    public static byte[] key(String name) {
+        try (JsonWriter w = acquire()) {
+            w.string(name);
+            w.put(':');
+            return w.toByteArray();
+        }
+    }
+
+    // ================== Valores ==================
+    public JsonWriter value(String s) {
+        element();
+        if (s == null) raw(NULL);
+        else string(s);
+        return this;
+    }
+
+    public JsonWriter value(long v) {
+        element();
+        number(v);
+        return this;
+    }
+
+    public JsonWriter value(boolean v) {
+        element();
+        raw(v ? TRUE : FALSE);
+        return this;
+    }
+
+    /**
+     * Decimal en punto fijo con {@code decimals} cifras (0..9), mismo resultado que
+     * String.format(Locale.US, "%.2f") (HALF_UP sobre el decimal más corto del double).
+     * NaN e infinitos se escriben como null (JSON no los admite).
+     */
+    public JsonWriter value(double v, int decimals) {
+        element();
+        if (decimals < 0 || decimals >= POW10.length) throw new IllegalArgumentException("decimals fuera de rango: " + decimals);
+        if (Double.isNaN(v) || Double.isInfinite(v)) {
+            raw(NULL);
+            return this;
+        }
+        double scaledAbs = Math.abs(v) * POW10[decimals];
+        if (scaledAbs >= 0x1p53) {
+            // Fuera del rango exacto de long/double: caso raro, se acepta la asignación
+            ascii(BigDecimal.valueOf(v).setScale(decimals, RoundingMode.HALF_UP).toPlainString());
+            return this;
+        }
+        long scaled = (long) (scaledAbs + 0.5);
+        if (Math.abs(scaledAbs - Math.floor(scaledAbs) - 0.5) <= 4 * Math.ulp(scaledAbs)) {
+            // Casi empate: la multiplicación pudo redondear; se decide sobre el decimal más corto
+            // del double, igual que Formatter (rara vez pasa, se acepta la asignación)
+            scaled = BigDecimal.valueOf(Math.abs(v)).setScale(decimals, RoundingMode.HALF_UP).unscaledValue().longValue();
+        }
+        if (Double.doubleToRawLongBits(v) < 0) put('-'); // como String.format: -0.001 -> "-0.00"
+        long unit = POW10[decimals];
+        number(scaled / unit);
+        if (decimals > 0) {
+            put('.');
+            long frac = scaled % unit;
+            for (long p = unit / 10; p > 0; p /= 10) {
+                put((char) ('0' + (frac / p) % 10));
+            }
+        }
+        return this;
+    }
+
+    public JsonWriter nullValue() {
+        element();
+        raw(NULL);
+        return this;
+    }
+
+    /**
+     * Instante UTC en ISO-8601 con milisegundos ("2024-05-01T12:30:00.123Z"), calculado
+     * sin pasar por java.time ni DateTimeFormatter.
+     */
+    public JsonWriter timestamp(long epochMillis) {
+        element();
+        long secs = Math.floorDiv(epochMillis, 1000);
+        int millis = Math.floorMod(epochMillis, 1000);
+        long days = Math.floorDiv(secs, 86_400);
+        int secOfDay = Math.floorMod(secs, 86_400);
+
+        // Días desde la época -> fecha civil (algoritmo de H. Hinnant)
+        long z = days + 719_468;
+        long era = Math.floorDiv(z, 146_097);
+        long doe = z - era * 146_097;
+        long yoe = (doe - doe / 1460 + doe / 36_524 - doe / 146_096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        int day = (int) (doy - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+
+        put('"');
+        number(year);
+        put('-'); twoDigits(month);
+        put('-'); twoDigits(day);
+        put('T'); twoDigits(secOfDay / 3600);
+        put(':'); twoDigits(secOfDay / 60 % 60);
+        put(':'); twoDigits(secOfDay % 60);
+        put('.');
+        put((char) ('0' + millis / 100));
+        twoDigits(millis % 100);
+        put('Z');
+        put('"');
+        return this;
+    }
+
+    /** Fragmento JSON ya codificado (p.ej. un valor cacheado). No se valida. */
+    public JsonWriter rawValue(byte[] json) {
+        element();
+        raw(json);
+        return this;
+    }
+
+    // ================== Salida ==================
+    public int size() {
+        return len;
+    }
+
+    /** Buffer interno (válido hasta el siguiente cambio); los datos van de 0 a {@link #size()}. */
+    public byte[] buffer() {
+        return buf;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, len);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buf, 0, len);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buf, 0, len, StandardCharsets.UTF_8);
+    }
+
+    // ================== Internos ==================
+    private JsonWriter open(char c) {
+        element();
+        if (depth == MAX_DEPTH) throw new IllegalStateException("Anidamiento JSON demasiado profundo");
+        hasElement[depth++] = false;
+        put(c);
+        return this;
+    }
+
+    private JsonWriter close(char c) {
+        if (depth == 0) throw new IllegalStateException("No hay objeto/arreglo abierto");
+        depth--;
+        put(c);
+        return this;
+    }
+
+    /** Antes de un valor: coma si corresponde (salvo que venga después de una clave). */
+    private void element() {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        separator();
+    }
+
+    private void separator() {
+        if (depth == 0) return;
+        if (hasElement[depth - 1]) put(',');
+        hasElement[depth - 1] = true;
+    }
+
+    private void string(String s) {
+        put('"');
+        int n = s.length();
+        ensure(n + 2);
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                if (len == buf.length) ensure(1);
+                buf[len++] = (byte) c;
+            } else {
+                escapeOrEncode(s, i, c);
+                if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) i++;
+            }
+        }
+        put('"');
+    }
+
+    private void escapeOrEncode(String s, int i, char c) {
+        switch (c) {
+            case '"' -> { put('\\'); put('"'); }
+            case '\\' -> { put('\\'); put('\\'); }
+            case '\n' -> { put('\\'); put('n'); }
+            case '\r' -> { put('\\'); put('r'); }
+            case '\t' -> { put('\\'); put('t'); }
+            case '\b' -> { put('\\'); put('b'); }
+            case '\f' -> { put('\\'); put('f'); }
+            default -> {
+                if (c < 0x20) {
+                    put('\\'); put('u'); put('0'); put('0');
+                    putByte(HEX[c >> 4]);
+                    putByte(HEX[c & 0xF]);
+                } else if (c < 0x800) {
+                    putByte((byte) (0xC0 | (c >> 6)));
+                    putByte((byte) (0x80 | (c & 0x3F)));
+                } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(i + 1));
+                    putByte((byte) (0xF0 | (cp >> 18)));
+                    putByte((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                    putByte((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                    putByte((byte) (0x80 | (cp & 0x3F)));
+                } else if (Character.isSurrogate(c)) {
+                    putByte((byte) '?'); // surrogate suelto: no es UTF-8 válido
+                } else {
+                    putByte((byte) (0xE0 | (c >> 12)));
+                    putByte((byte) (0x80 | ((c >> 6) & 0x3F)));
+                    putByte((byte) (0x80 | (c & 0x3F)));
+                }
+            }
+        }
+    }
+
+    private void number(long v) {
+        if (v == Long.MIN_VALUE) {
+            ascii("-9223372036854775808");
+            return;
+        }
+        if (v < 0) {
+            put('-');
+            v = -v;
+        }
+        ensure(19);
+        int start = len;
+        do {
+            buf[len++] = (byte) ('0' + (v % 10));
+            v /= 10;
+        } while (v > 0);
+        for (int i = start, j = len - 1; i < j; i++, j--) {
+            byte t = buf[i]; buf[i] = buf[j]; buf[j] = t;
+        }
+    }
+
+    private void twoDigits(int v) {
+        put((char) ('0' + v / 10));
+        put((char) ('0' + v % 10));
+    }
+
+    private void ascii(String s) {
+        ensure(s.length());
+        for (int i = 0; i < s.length(); i++) buf[len++] = (byte) s.charAt(i);
+    }
+
+    private void raw(byte[] b) {
+        ensure(b.length);
+        System.arraycopy(b, 0, buf, len, b.length);
+        len += b.length;
+    }
+
+    private void put(char c) {
+        putByte((byte) c);
+    }
+
+    private void putByte(byte b) {
+        if (len == buf.length) ensure(1);
+        buf[len++] = b;
+    }
+
+    private void ensure(int extra) {
+        if (len + extra > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + extra));
+    }
+}
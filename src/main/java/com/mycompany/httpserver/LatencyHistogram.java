@@ -0,0 +1,80 @@
+package com.mycompany.httpserver;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma log-lineal de latencias en nanosegundos, sin locks.
+ * Cada potencia de dos se divide en 16 sub-buckets iguales: el error relativo de un
+ * percentil es como mucho 1/16 (~6%) y registrar un valor es un incremento atómico.
+ * Valores desde 0 hasta 2^40 ns (~18 min); los mayores caen en el último bucket.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int MAX_EXP = 40;
+    static final int BUCKETS = (MAX_EXP - SUB_BITS + 2) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(bucket(nanos));
+        count.increment();
+        sum.add(nanos);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long sumNanos() {
+        return sum.sum();
+    }
+
+    /** Percentil (0..1) en nanosegundos; ver {@link #percentiles}. */
+    public long percentile(double q) {
+        return percentiles(q)[0];
+    }
+
+    /**
+     * Varios percentiles (0..1, en orden creciente) sobre una misma foto de los buckets.
+     * Cada uno es el límite superior del bucket que lo contiene; 0 si no hay registros.
+     * Se lee sin detener a los escritores, así que puede mezclar registros en curso.
+     */
+    public long[] percentiles(double... qs) {
+        long[] snap = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) total += snap[i] = counts.get(i);
+        long[] out = new long[qs.length];
+        if (total == 0) return out;
+        int i = 0;
+        long seen = snap[0];
+        for (int k = 0; k < qs.length; k++) {
+            long rank = Math.max(1, (long) Math.ceil(qs[k] * total));
+            while (seen < rank && i < BUCKETS - 1) seen += snap[++i];
+            out[k] = upperBound(i);
+        }
+        return out;
+    }
+
+    static int bucket(long v) {
+        if (v < SUB_COUNT) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        if (exp > MAX_EXP) return BUCKETS - 1;
+        int sub = (int) (v >>> (exp - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exp - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    /** Mayor valor que cae en el bucket i. */
+    static long upperBound(int i) {
+        if (i < SUB_COUNT) return i;
+        int exp = i / SUB_COUNT + SUB_BITS - 1;
+        int sub = i % SUB_COUNT;
+        long lower = (long) (SUB_COUNT + sub) << (exp - SUB_BITS);
+        return lower + (1L << (exp - SUB_BITS)) - 1;
+    }
+}
@@ -0,0 +1,414 @@
+package com.mycompany.httpserver;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generador de carga HTTP/1.1 para pruebas de capacidad contra un servidor en marcha.
+ * - Lazo abierto: las peticiones salen a tasa constante (-r req/s) repartidas entre -c
+ *   conexiones, cada una con su propio calendario. Si el servidor se atrasa el calendario no
+ *   espera: la conexión envía apenas puede y la latencia se mide desde la hora en que la
+ *   petición debía salir (corrección de coordinated omission, como wrk2). También se informa
+ *   el tiempo de servicio (desde el envío real), que es lo que mide un cliente ingenuo.
+ * - Con -r 0 cada conexión envía apenas recibe la respuesta anterior (lazo cerrado, máximo
+ *   throughput); ahí las dos latencias coinciden.
+ * - Mezcla de URLs con peso: "4:/stocks?symbol=AAPL 1:/app/hello /css/styles.css" (peso 1 por defecto).
+ * - Lo que se envía durante el warmup (-w) no entra en el informe.
+ * Uso: java -cp target/classes com.mycompany.httpserver.LoadGenerator [-h host] [-p puerto]
+ *      [-c conexiones] [-r req/s] [-d segundos] [-w segundos] [--close] [ruta...]
+ */
+public final class LoadGenerator {
+
+    /** Una URL de la mezcla; se elige con probabilidad weight / suma de pesos. */
+    public record Target(String path, int weight) {
+
+        public Target {
+            if (path == null || !path.startsWith("/")) throw new IllegalArgumentException("Ruta inválida: " + path);
+            if (weight <= 0) throw new IllegalArgumentException("Peso inválido para " + path + ": " + weight);
+        }
+
+        /** "peso:/ruta" o "/ruta". */
+        public static Target parse(String spec) {
+            int colon = spec.indexOf(':');
+            if (colon > 0 && !spec.startsWith("/")) {
+                try {
+                    return new Target(spec.substring(colon + 1), Integer.parseInt(spec.substring(0, colon)));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Peso inválido: " + spec);
+                }
+            }
+            return new Target(spec, 1);
+        }
+    }
+
+    /** Parámetros de una corrida; rate 0 = lazo cerrado. */
+    public record Config(String host, int port, int connections, double rate, double durationSeconds,
+                         double warmupSeconds, boolean keepAlive, List<Target> targets) {
+
+        public Config {
+            if (connections <= 0) throw new IllegalArgumentException("Conexiones debe ser > 0");
+            if (rate < 0) throw new IllegalArgumentException("Tasa debe ser >= 0");
+            if (durationSeconds <= 0) throw new IllegalArgumentException("Duración debe ser > 0");
+            if (warmupSeconds < 0) throw new IllegalArgumentException("Warmup debe ser >= 0");
+            if (targets.isEmpty()) throw new IllegalArgumentException("Falta al menos una ruta");
+            targets = List.copyOf(targets);
+        }
+
+        public static Config parse(String[] args) {
+            String host = "localhost";
+            int port = Integer.getInteger("PORT", 35000);
+            int connections = 8;
+            double rate = 1000, duration = 10, warmup = 2;
+            boolean keepAlive = true;
+            List<Target> targets = new ArrayList<>();
+            for (int i = 0; i < args.length; i++) {
+                String a = args[i];
+                switch (a) {
+                    case "-h", "--host" -> host = value(args, ++i, a);
+                    case "-p", "--port" -> port = Integer.parseInt(value(args, ++i, a));
+                    case "-c", "--connections" -> connections = Integer.parseInt(value(args, ++i, a));
+                    case "-r", "--rate" -> rate = Double.parseDouble(value(args, ++i, a));
+                    case "-d", "--duration" -> duration = Double.parseDouble(value(args, ++i, a));
+                    case "-w", "--warmup" -> warmup = Double.parseDouble(value(args, ++i, a));
+                    case "--close" -> keepAlive = false;
+                    default -> {
+                        if (a.startsWith("-")) throw new IllegalArgumentException("Opción desconocida: " + a);
+                        targets.add(Target.parse(a));
+                    }
+                }
+            }
+            if (targets.isEmpty()) targets.add(new Target("/", 1));
+            return new Config(host, port, connections, rate, duration, warmup, keepAlive, targets);
+        }
+
+        private static String value(String[] args, int i, String option) {
+            if (i >= args.length) throw new IllegalArgumentException("Falta el valor de " + option);
+            return args[i];
+        }
+    }
+
+    /** Resultado de una corrida (solo lo posterior al warmup). */
+    public static final class Report {
+        private final Config config;
+        private final LatencyHistogram corrected = new LatencyHistogram();
+        private final LatencyHistogram service = new LatencyHistogram();
+        private final LongAccumulator maxCorrected = new LongAccumulator(Math::max, 0);
+        private final LongAccumulator maxService = new LongAccumulator(Math::max, 0);
+        private final AtomicLongArray statuses = new AtomicLongArray(600);
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private volatile long elapsedNanos;
+
+        Report(Config config) {
+            this.config = config;
+        }
+
+        void record(int status, long correctedNanos, long serviceNanos, long received) {
+            corrected.record(correctedNanos);
+            service.record(serviceNanos);
+            maxCorrected.accumulate(correctedNanos);
+            maxService.accumulate(serviceNanos);
+            statuses.incrementAndGet(status > 0 && status < 600 ? status : 0);
+            bytes.add(received);
+        }
+
+        /** Respuestas completas recibidas. */
+        public long requests() {
+            return corrected.count();
+        }
+
+        /** Peticiones fallidas (conexión rechazada o cortada, timeout, respuesta ilegible). */
+        public long errors() {
+            return errors.sum();
+        }
+
+        public long requests(int status) {
+            return status >= 0 && status < 600 ? statuses.get(status) : 0;
+        }
+
+        public long bytesReceived() {
+            return bytes.sum();
+        }
+
+        public double seconds() {
+            return elapsedNanos / 1e9;
+        }
+
+        public double throughput() {
+            return elapsedNanos > 0 ? requests() / seconds() : 0;
+        }
+
+        /** Latencia desde la hora programada de envío (corregida por coordinated omission). */
+        public LatencyHistogram corrected() {
+            return corrected;
+        }
+
+        /** Latencia desde el envío real. */
+        public LatencyHistogram service() {
+            return service;
+        }
+
+        public long maxCorrectedNanos() {
+            return maxCorrected.get();
+        }
+
+        public long maxServiceNanos() {
+            return maxService.get();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(1024);
+            sb.append(String.format(Locale.ROOT, "%s:%d, %d conexiones, %s, %.0f s (+%.0f s warmup), %s%n",
+                    config.host(), config.port(), config.connections(),
+                    config.rate() > 0 ? String.format(Locale.ROOT, "%.0f req/s", config.rate()) : "lazo cerrado",
+                    config.durationSeconds(), config.warmupSeconds(), config.keepAlive() ? "keep-alive" : "una conexión por petición"));
+            sb.append(String.format(Locale.ROOT, "Respuestas %d en %.2f s: %.1f req/s, %.2f MB recibidos, errores %d%n",
+                    requests(), seconds(), throughput(), bytesReceived() / 1e6, errors()));
+            sb.append("Status:");
+            for (int s = 0; s < 600; s++) {
+                long n = statuses.get(s);
+                if (n > 0) sb.append(' ').append(s).append('=').append(n);
+            }
+            sb.append(String.format(Locale.ROOT, "%n%-8s %14s %14s%n", "", "corregida", "servicio"));
+            double[] qs = {0.5, 0.75, 0.9, 0.99, 0.999, 0.9999};
+            String[] labels = {"p50", "p75", "p90", "p99", "p99.9", "p99.99"};
+            long[] c = corrected.percentiles(qs);
+            long[] s = service.percentiles(qs);
+            for (int i = 0; i < qs.length; i++) { // el límite del bucket puede pasar del máximo real
+                sb.append(row(labels[i], Math.min(c[i], maxCorrectedNanos()), Math.min(s[i], maxServiceNanos())));
+            }
+            sb.append(row("max", maxCorrectedNanos(), maxServiceNanos()));
+            return sb.toString();
+        }
+
+        private static String row(String label, long corrected, long service) {
+            return String.format(Locale.ROOT, "%-8s %12.3fms %12.3fms%n", label, corrected / 1e6, service / 1e6);
+        }
+    }
+
+    private static final int TIMEOUT_MS = 30_000;
+
+    private final Config config;
+    private final byte[][] requests;
+    private final int[] cumulative;
+    private final Report report;
+
+    private LoadGenerator(Config config) {
+        this.config = config;
+        this.report = new Report(config);
+        List<Target> targets = config.targets();
+        this.requests = new byte[targets.size()][];
+        this.cumulative = new int[targets.size()];
+        int sum = 0;
+        for (int i = 0; i < targets.size(); i++) {
+            requests[i] = ("GET " + targets.get(i).path() + " HTTP/1.1\r\n"
+                    + "Host: " + config.host() + ":" + config.port() + "\r\n"
+                    + "User-Agent: LoadGenerator\r\n"
+                    + (config.keepAlive() ? "" : "Connection: close\r\n")
+                    + "\r\n").getBytes(StandardCharsets.ISO_8859_1);
+            cumulative[i] = sum += targets.get(i).weight();
+        }
+    }
+
+    /** Ejecuta la corrida completa (warmup + duración) y retorna el informe. */
+    public static Report run(Config config) throws InterruptedException {
+        return new LoadGenerator(config).run();
+    }
+
+    private Report run() throws InterruptedException {
+        long start = System.nanoTime() + 10_000_000L; // margen para arrancar los hilos
+        long warmupEnd = start + (long) (config.warmupSeconds() * 1e9);
+        long end = warmupEnd + (long) (config.durationSeconds() * 1e9);
+        Thread[] threads = new Thread[config.connections()];
+        for (int i = 0; i < threads.length; i++) {
+            int id = i;
+            threads[i] = new Thread(() -> connectionLoop(id, start, warmupEnd, end), "loadgen-" + i);
+            threads[i].start();
+        }
+        for (Thread t : threads) t.join();
+        report.elapsedNanos = System.nanoTime() - warmupEnd;
+        return report;
+    }
+
+    /** Calendario de una conexión: en lazo abierto, la petición k sale en start + (id + k·conexiones) / rate. */
+    private void connectionLoop(int id, long start, long warmupEnd, long end) {
+        long interval = config.rate() > 0 ? (long) (config.connections() * 1e9 / config.rate()) : 0;
+        long next = start + (interval > 0 ? (long) (id * 1e9 / config.rate()) : 0);
+        SplittableRandom random = new SplittableRandom(id * 0x9E3779B97F4A7C15L);
+        Connection conn = null;
+        while (true) {
+            long now = System.nanoTime();
+            if (interval > 0) {
+                if (next - end >= 0) break;
+                while (next - now > 0) {
+                    LockSupport.parkNanos(next - now);
+                    now = System.nanoTime();
+                }
+            } else {
+                if (now - end >= 0) break;
+                next = Math.max(now, start);
+            }
+            byte[] request = requests[pick(random)];
+            boolean measured = next - warmupEnd >= 0;
+            try {
+                long sent = System.nanoTime();
+                if (conn == null) conn = new Connection(config.host(), config.port());
+                int status = conn.exchange(request);
+                long done = System.nanoTime();
+                if (measured) report.record(status, done - next, done - sent, conn.received);
+                if (!conn.reusable) {
+                    conn.close();
+                    conn = null;
+                }
+            } catch (IOException | RuntimeException e) {
+                if (measured) report.errors.increment();
+                if (conn != null) conn.close();
+                conn = null;
+            }
+            next += interval;
+        }
+        if (conn != null) conn.close();
+    }
+
+    private int pick(SplittableRandom random) {
+        if (cumulative.length == 1) return 0;
+        int r = random.nextInt(cumulative[cumulative.length - 1]);
+        int i = 0;
+        while (cumulative[i] <= r) i++;
+        return i;
+    }
+
+    /** Conexión cliente bloqueante: envía una petición y consume la respuesta completa. */
+    private static final class Connection {
+        private final Socket socket;
+        private final OutputStream out;
+        private final InputStream in;
+        private final byte[] scratch = new byte[16 * 1024];
+        private final StringBuilder line = new StringBuilder(128);
+        long received;
+        boolean reusable;
+
+        Connection(String host, int port) throws IOException {
+            socket = new Socket();
+            try {
+                socket.setTcpNoDelay(true);
+                socket.connect(new InetSocketAddress(host, port), TIMEOUT_MS);
+                socket.setSoTimeout(TIMEOUT_MS);
+                out = socket.getOutputStream();
+                in = new BufferedInputStream(socket.getInputStream(), 16 * 1024);
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        /** Retorna el status; deja en received los bytes leídos y en reusable si sigue abierta. */
+        int exchange(byte[] request) throws IOException {
+            received = 0;
+            out.write(request);
+            out.flush();
+
+            String statusLine = readLine();
+            if (!statusLine.startsWith("HTTP/1.") || statusLine.length() < 12) {
+                throw new IOException("Respuesta inválida: " + statusLine);
+            }
+            int status = Integer.parseInt(statusLine.substring(9, 12));
+            boolean keepAlive = statusLine.startsWith("HTTP/1.1");
+            long length = -1;
+            boolean chunked = false;
+            for (String h = readLine(); !h.isEmpty(); h = readLine()) {
+                int colon = h.indexOf(':');
+                if (colon <= 0) continue;
+                String name = h.substring(0, colon).trim();
+                String value = h.substring(colon + 1).trim();
+                if (name.equalsIgnoreCase("Content-Length")) length = Long.parseLong(value);
+                else if (name.equalsIgnoreCase("Transfer-Encoding")) chunked = value.toLowerCase(Locale.ROOT).contains("chunked");
+                else if (name.equalsIgnoreCase("Connection")) {
+                    String v = value.toLowerCase(Locale.ROOT);
+                    if (v.contains("close")) keepAlive = false;
+                    else if (v.contains("keep-alive")) keepAlive = true;
+                }
+            }
+
+            if (status < 200 || status == 204 || status == 304) {
+                length = 0;
+            } else if (chunked) {
+                while (true) {
+                    String size = readLine();
+                    int semi = size.indexOf(';');
+                    long n = Long.parseLong((semi >= 0 ? size.substring(0, semi) : size).trim(), 16);
+                    if (n == 0) break;
+                    skip(n);
+                    readLine();
+                }
+                while (!readLine().isEmpty()) { } // trailers
+                length = 0;
+            }
+            if (length >= 0) {
+                skip(length);
+            } else { // sin largo: el cuerpo termina con la conexión
+                for (int n; (n = in.read(scratch)) >= 0; ) received += n;
+                keepAlive = false;
+            }
+            reusable = keepAlive;
+            return status;
+        }
+
+        private void skip(long n) throws IOException {
+            while (n > 0) {
+                int r = in.read(scratch, 0, (int) Math.min(n, scratch.length));
+                if (r < 0) throw new EOFException("Cuerpo incompleto");
+                n -= r;
+                received += r;
+            }
+        }
+
+        private String readLine() throws IOException {
+            line.setLength(0);
+            while (true) {
+                int b = in.read();
+                if (b < 0) throw new EOFException("Conexión cerrada por el servidor");
+                received++;
+                if (b == '\n') break;
+                if (b != '\r') line.append((char) b);
+                if (line.length() > 64 * 1024) throw new IOException("Línea demasiado larga");
+            }
+            return line.toString();
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Config config;
+        try {
+            config = Config.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Uso: LoadGenerator [-h host] [-p puerto] [-c conexiones] [-r req/s, 0 = lazo cerrado]"
+                    + " [-d segundos] [-w segundos warmup] [--close] [peso:]ruta...");
+            System.exit(2);
+            return;
+        }
+        System.out.print(run(config));
+    }
+}
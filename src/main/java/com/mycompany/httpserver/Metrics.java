@@ -0,0 +1,228 @@
+package com.mycompany.httpserver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Métricas del servidor en memoria, sin locks en el camino de cada petición:
+ * - Por ruta (patrón registrado, o "static" para archivos): peticiones por código, peticiones
+ *   en curso y latencia de cada fase (parse, handler, write) en un {@link LatencyHistogram}.
+ * - Conexiones abiertas, rechazadas por el tope de admisión y peticiones cortadas por timeout.
+ * - Valores de otros componentes registrados con {@link #gauge} / {@link #counter}.
+ * {@link #scrape} las escribe en el formato de texto de Prometheus; el servidor las publica
+ * en /metrics salvo con -Dhttp.metrics=false (la medición sigue activa: cuesta unos nanoTime
+ * y contadores LongAdder por petición).
+ */
+public final class Metrics {
+
+    /** Etiqueta de las peticiones que no tienen handler y se sirven como estáticos. */
+    public static final String STATIC = "static";
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    /** Fases de una petición: parseo de la cabecera, handler y escritura de la respuesta. */
+    public enum Phase {
+        PARSE, HANDLER, WRITE;
+
+        final String label = name().toLowerCase(Locale.ROOT);
+    }
+
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+    private static final String[] QUANTILE_LABELS = {"0.5", "0.99", "0.999"};
+
+    /** Contadores de una ruta; se crean al primer uso y no se borran. */
+    public static final class RouteStats {
+        private final String route;
+        private final AtomicReferenceArray<LongAdder> byStatus = new AtomicReferenceArray<>(600);
+        private final LongAdder inFlight = new LongAdder();
+        private final LatencyHistogram[] phases = new LatencyHistogram[Phase.values().length];
+
+        RouteStats(String route) {
+            this.route = route;
+            for (int i = 0; i < phases.length; i++) phases[i] = new LatencyHistogram();
+        }
+
+        /** Inicio de la atención: cuenta la petición en curso y registra su parseo. Retorna el reloj. */
+        long begin(HttpRequest req) {
+            inFlight.increment();
+            if (req.parseNanos > 0) phases[Phase.PARSE.ordinal()].record(req.parseNanos);
+            return System.nanoTime();
+        }
+
+        /** Terminó el handler que empezó en start; retorna el reloj (inicio de la escritura). */
+        long handled(long start) {
+            long now = System.nanoTime();
+            phases[Phase.HANDLER.ordinal()].record(now - start);
+            return now;
+        }
+
+        /** Respuesta escrita (status 0 si falló antes de enviarse); la escritura empezó en start. */
+        void end(int status, long start) {
+            phases[Phase.WRITE.ordinal()].record(System.nanoTime() - start);
+            inFlight.decrement();
+            int i = status > 0 && status < 600 ? status : 0;
+            LongAdder c = byStatus.get(i);
+            if (c == null) {
+                byStatus.compareAndSet(i, null, new LongAdder());
+                c = byStatus.get(i);
+            }
+            c.increment();
+        }
+
+        public String route() {
+            return route;
+        }
+
+        public long requests(int status) {
+            LongAdder c = status >= 0 && status < 600 ? byStatus.get(status) : null;
+            return c == null ? 0 : c.sum();
+        }
+
+        public long inFlight() {
+            return inFlight.sum();
+        }
+
+        public LatencyHistogram phase(Phase p) {
+            return phases[p.ordinal()];
+        }
+    }
+
+    private record External(String name, String type, String help, LongSupplier value) {}
+
+    private static final Map<String, RouteStats> routes = new ConcurrentHashMap<>();
+    private static final LongAdder openConnections = new LongAdder();
+    private static final LongAdder rejectedConnections = new LongAdder();
+    private static final LongAdder requestTimeouts = new LongAdder();
+    private static final List<External> external = new CopyOnWriteArrayList<>();
+
+    private Metrics() {}
+
+    /** Estadísticas de la ruta (patrón tal como se registró). */
+    public static RouteStats route(String pattern) {
+        RouteStats s = routes.get(pattern);
+        return s != null ? s : routes.computeIfAbsent(pattern, RouteStats::new);
+    }
+
+    static void connectionOpened() {
+        openConnections.increment();
+    }
+
+    static void connectionClosed() {
+        openConnections.decrement();
+    }
+
+    public static long openConnections() {
+        return openConnections.sum();
+    }
+
+    static void connectionRejected() {
+        rejectedConnections.increment();
+    }
+
+    static void requestTimedOut() {
+        requestTimeouts.increment();
+    }
+
+    /** Conexiones rechazadas con 503 al aceptarse (tope maxConnections). */
+    public static long rejectedConnections() {
+        return rejectedConnections.sum();
+    }
+
+    /** Peticiones cortadas con 408 por no completar la cabecera a tiempo. */
+    public static long requestTimeouts() {
+        return requestTimeouts.sum();
+    }
+
+    /** Publica un valor instantáneo (tamaño de una caché, suscriptores...). Reemplaza uno del mismo nombre. */
+    public static void gauge(String name, String help, LongSupplier value) {
+        register(new External(name, "gauge", help, value));
+    }
+
+    /** Publica un contador monótono que lleva otro componente (aciertos, descartes...). */
+    public static void counter(String name, String help, LongSupplier value) {
+        register(new External(name, "counter", help, value));
+    }
+
+    private static synchronized void register(External e) {
+        external.removeIf(x -> x.name().equals(e.name()));
+        external.add(e);
+    }
+
+    /** Todas las métricas en formato de texto de Prometheus (0.0.4). */
+    public static String scrape() {
+        StringBuilder sb = new StringBuilder(4096);
+        Map<String, RouteStats> sorted = new TreeMap<>(routes);
+
+        header(sb, "http_requests_total", "counter", "Peticiones respondidas por ruta y código (0 = no se pudo responder).");
+        for (RouteStats s : sorted.values()) {
+            for (int code = 0; code < 600; code++) {
+                LongAdder c = s.byStatus.get(code);
+                if (c == null) continue;
+                sb.append("http_requests_total{route=\"").append(escape(s.route)).append("\",code=\"")
+                        .append(code).append("\"} ").append(c.sum()).append('\n');
+            }
+        }
+
+        header(sb, "http_requests_in_flight", "gauge", "Peticiones atendiéndose ahora por ruta.");
+        for (RouteStats s : sorted.values()) {
+            sb.append("http_requests_in_flight{route=\"").append(escape(s.route)).append("\"} ")
+                    .append(s.inFlight()).append('\n');
+        }
+
+        header(sb, "http_request_phase_seconds", "summary", "Latencia por ruta y fase (parse, handler, write).");
+        for (RouteStats s : sorted.values()) {
+            for (Phase p : Phase.values()) {
+                LatencyHistogram h = s.phase(p);
+                long count = h.count();
+                if (count == 0) continue;
+                String labels = "route=\"" + escape(s.route) + "\",phase=\"" + p.label + "\"";
+                long[] q = h.percentiles(QUANTILES);
+                for (int i = 0; i < q.length; i++) {
+                    sb.append("http_request_phase_seconds{").append(labels).append(",quantile=\"")
+                            .append(QUANTILE_LABELS[i]).append("\"} ").append(seconds(q[i])).append('\n');
+                }
+                sb.append("http_request_phase_seconds_sum{").append(labels).append("} ")
+                        .append(seconds(h.sumNanos())).append('\n');
+                sb.append("http_request_phase_seconds_count{").append(labels).append("} ")
+                        .append(count).append('\n');
+            }
+        }
+
+        header(sb, "http_connections_open", "gauge", "Conexiones abiertas (incluye WebSocket).");
+        sb.append("http_connections_open ").append(openConnections()).append('\n');
+        header(sb, "http_connections_rejected_total", "counter", "Conexiones rechazadas con 503 por superar maxConnections.");
+        sb.append("http_connections_rejected_total ").append(rejectedConnections()).append('\n');
+        header(sb, "http_request_timeouts_total", "counter", "Peticiones cortadas con 408 por no enviar la cabecera a tiempo.");
+        sb.append("http_request_timeouts_total ").append(requestTimeouts()).append('\n');
+
+        List<External> ext = new ArrayList<>(external);
+        for (External e : ext) {
+            header(sb, e.name(), e.type(), e.help());
+            sb.append(e.name()).append(' ').append(e.value().getAsLong()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static void header(StringBuilder sb, String name, String type, String help) {
+        sb.append("# HELP ").append(name).append(' ').append(help.replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+
+    /** Escape de valores de etiqueta: barra invertida, comillas y salto de línea. */
+    static String escape(String v) {
+        if (v.indexOf('\\') < 0 && v.indexOf('"') < 0 && v.indexOf('\n') < 0) return v;
+        return v.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,628 @@
+package com.mycompany.httpserver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Motor alternativo basado en {@link Selector}: un solo hilo de eventos acepta,
+ * lee y escribe de forma no bloqueante; los handlers se ejecutan en un pool de workers.
+ * Cada conexión es una máquina de estados READING -> PROCESSING -> WRITING -> READING.
+ * Las rutas y estáticos son los mismos de {@link HttpServer} (get/staticfiles).
+ * Una conexión que pasa a WebSocket sale del selector: vuelve a modo bloqueante y la
+ * atiende un worker hasta que se cierra.
+ * Plazos (barrido periódico): keepAliveTimeoutMs sin petición en curso; readTimeoutMs sin
+ * actividad con una petición o respuesta a medias; headerTimeoutMs desde el primer byte de
+ * la cabecera hasta completarla (408). Sobre maxConnections las conexiones nuevas reciben 503.
+ */
+final class NioHttpServer {
+
+    private static final int READ_CHUNK = 8 * 1024;
+
+    private enum State { READING, PROCESSING, WRITING }
+
+    // Un handler en streaming se detiene si el cliente no recibe y hay más que esto pendiente
+    private static final long MAX_UNSENT = 256 * 1024;
+
+    /** Estado por conexión. Solo el hilo del selector lo toca, salvo durante PROCESSING. */
+    private static final class Connection {
+        final SocketChannel channel;
+        SelectionKey key;
+        State state = State.READING;
+        ByteBuffer in = ByteBuffer.allocate(READ_CHUNK); // modo escritura (se llena desde el canal)
+        final HttpRequestParser parser = new HttpRequestParser();
+        final ArrayDeque<Object> out = new ArrayDeque<>(); // ByteBuffer o ZeroCopyOutput.FileRegion
+        final ResponseWriter.Head head = new ResponseWriter.Head(); // se reutiliza: una respuesta a la vez
+        // Worker -> selector: partes de la respuesta (cada flush del handler) y aviso de fin
+        final Queue<Object> handoff = new ConcurrentLinkedQueue<>();
+        final AtomicLong unsent = new AtomicLong(); // bytes entregados por el worker aún sin escribir
+        // El worker espera aquí a que el selector vacíe la salida (sin monitores: no fija hilos virtuales)
+        final ReentrantLock drainLock = new ReentrantLock();
+        final Condition drained = drainLock.newCondition();
+        volatile boolean responseDone;
+        long bodyToSkip;
+        long parseNanos; // parseo acumulado de la petición en curso (puede llegar en varias lecturas)
+        int served;
+        boolean keepAlive;
+        long lastActivity = System.nanoTime();
+        long requestStart; // primer byte de la cabecera en curso (0 = ninguna)
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        /** Despierta a un handler en streaming que esperaba en awaitDrain. Lo llama el selector. */
+        void signalDrained() {
+            drainLock.lock();
+            try {
+                drained.signalAll();
+            } finally {
+                drainLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Salida que arma el worker: bytes en memoria, buffers de headers/cuerpo sin copiar
+     * y tramos de archivo que el selector envía luego con transferTo (sin leerlos al heap).
+     * Cada flush() entrega lo acumulado al selector, así un handler en streaming no
+     * junta toda la respuesta en memoria; si el cliente no da abasto, flush() espera.
+     */
+    private final class ResponseBuffer extends ByteArrayOutputStream implements ZeroCopyOutput, GatheringOutput {
+        private final List<Object> segments = new ArrayList<>(4);
+        private final Connection conn;
+        private long written;
+
+        ResponseBuffer(Connection conn) {
+            super(256);
+            this.conn = conn;
+        }
+
+        @Override
+        public ResponseWriter.Head headerBuffer() {
+            return conn.head;
+        }
+
+        @Override
+        public void write(int b) {
+            super.write(b);
+            written++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            super.write(b, off, len);
+            written += len;
+        }
+
+        @Override
+        public long bytesWritten() {
+            return written;
+        }
+
+        @Override
+        public void writeGathered(ByteBuffer... buffers) {
+            cut();
+            for (ByteBuffer b : buffers) written += b.remaining();
+            Collections.addAll(segments, buffers);
+        }
+
+        @Override
+        public void transferFrom(FileChannel file, long position, long count) {
+            cut();
+            written += count;
+            segments.add(new FileRegion(file, position, count));
+        }
+
+        @Override
+        public void flush() throws IOException {
+            handOff(false);
+        }
+
+        /** Pasa los bytes acumulados a un segmento sin copiarlos. */
+        private void cut() {
+            if (count == 0) return;
+            segments.add(ByteBuffer.wrap(buf, 0, count));
+            buf = new byte[256];
+            count = 0;
+        }
+
+        /** Entrega los segmentos al selector; last marca el fin de la respuesta. */
+        void handOff(boolean last) throws IOException {
+            cut();
+            if (segments.isEmpty() && !last) return;
+            for (Object o : segments) {
+                if (o instanceof ByteBuffer b) conn.unsent.addAndGet(b.remaining());
+                conn.handoff.add(o);
+            }
+            segments.clear();
+            if (last) conn.responseDone = true;
+            ready.add(conn);
+            selector.wakeup();
+            if (!last) awaitDrain();
+        }
+
+        private void awaitDrain() throws IOException {
+            conn.drainLock.lock();
+            try {
+                // El selector cambia unsent o cierra antes de tomar el lock para avisar: no se pierde la señal
+                while (conn.unsent.get() > MAX_UNSENT && conn.channel.isOpen()) {
+                    conn.drained.await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrumpido esperando al cliente");
+            } finally {
+                conn.drainLock.unlock();
+            }
+            if (!conn.channel.isOpen()) throw new IOException("El cliente cerró la conexión");
+        }
+    }
+
+    private final int port;
+    private final ExecutorService workers;
+    private final Queue<Connection> ready = new ConcurrentLinkedQueue<>();
+    private final ArrayDeque<Upgrade> upgrades = new ArrayDeque<>(); // solo el hilo del selector
+
+    /** Conexión que pidió WebSocket, a la espera de que el selector suelte su canal. */
+    private record Upgrade(Connection conn, HttpRequest req, WebSocketHandler handler, byte[] leftover) {}
+
+    /** Conexión rechazada con 503: se descarta lo que mande hasta el plazo y se cierra. */
+    private record Rejected(long deadline) {}
+    private final ByteBuffer discard = ByteBuffer.allocate(1024);
+    private Selector selector;
+    private ServerSocketChannel server;
+    private int open;
+
+    NioHttpServer(int port) {
+        this.port = port;
+        this.workers = newWorkerPool();
+    }
+
+    private static ExecutorService newWorkerPool() {
+        AtomicInteger seq = new AtomicInteger();
+        ThreadFactory tf = r -> {
+            Thread t = new Thread(r, "nio-worker-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        return switch (ServerConfig.executionMode()) {
+            case VIRTUAL -> Executors.newVirtualThreadPerTaskExecutor();
+            case SERIAL -> Executors.newSingleThreadExecutor(tf);
+            case PLATFORM -> Executors.newFixedThreadPool(ServerConfig.workerThreads(), tf);
+        };
+    }
+
+    /** Bucle de eventos; no retorna salvo error o interrupción. */
+    void run() throws IOException {
+        try (Selector sel = Selector.open(); ServerSocketChannel ssc = ServerSocketChannel.open()) {
+            this.selector = sel;
+            this.server = ssc;
+            ssc.bind(new InetSocketAddress(port), ServerConfig.acceptBacklog());
+            ssc.configureBlocking(false);
+            ssc.register(sel, SelectionKey.OP_ACCEPT);
+            System.out.println("Servidor NIO corriendo en http://localhost:" + port
+                    + " (workers " + ServerConfig.executionMode() + ")");
+
+            long sweepEvery = Math.max(100, Math.min(1_000, HttpServer.minTimeout(ServerConfig.keepAliveTimeoutMs(),
+                    HttpServer.minTimeout(ServerConfig.readTimeoutMs(), ServerConfig.headerTimeoutMs()))));
+            long nextSweep = System.nanoTime();
+
+            while (!Thread.currentThread().isInterrupted()) {
+                sel.select(sweepEvery);
+
+                // El select ya soltó los canales de las conexiones que pasan a WebSocket
+                for (int i = upgrades.size(); i > 0; i--) startWebSocket(upgrades.poll());
+
+                // Respuestas listas que entregan los workers
+                Connection c;
+                while ((c = ready.poll()) != null) startWriting(c);
+
+                Iterator<SelectionKey> it = sel.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    try {
+                        if (!key.isValid()) continue;
+                        if (key.isAcceptable()) accept();
+                        else if (key.attachment() instanceof Rejected) drainRejected(key);
+                        else if (key.isReadable()) onReadable((Connection) key.attachment());
+                        else if (key.isWritable()) onWritable((Connection) key.attachment());
+                    } catch (IOException | CancelledKeyException e) {
+                        if (key.attachment() instanceof Connection conn) close(conn);
+                        else if (key.attachment() instanceof Rejected) key.channel().close();
+                    }
+                }
+
+                // Barrido de inactivas a intervalos, no en cada evento
+                if (System.nanoTime() - nextSweep >= 0) {
+                    closeIdle();
+                    nextSweep = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sweepEvery);
+                }
+            }
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    // ================== Eventos ==================
+    private void accept() throws IOException {
+        SocketChannel ch;
+        while ((ch = server.accept()) != null) {
+            ch.configureBlocking(false);
+            if (open >= ServerConfig.maxConnections()) {
+                rejectOverloaded(ch);
+                continue;
+            }
+            ch.setOption(java.net.StandardSocketOptions.TCP_NODELAY, true);
+            Connection conn = new Connection(ch);
+            conn.key = ch.register(selector, SelectionKey.OP_READ, conn);
+            Metrics.connectionOpened();
+            // Tope de conexiones en curso: se deja de aceptar hasta que alguna cierre
+            // (si maxConnections es menor o igual, se rechaza con 503 en su lugar)
+            if (++open >= ServerConfig.maxInFlight() && ServerConfig.maxInFlight() < ServerConfig.maxConnections()) {
+                server.keyFor(selector).interestOps(0);
+                break;
+            }
+        }
+    }
+
+    private void onReadable(Connection c) throws IOException {
+        if (c.state != State.READING) return;
+        if (!c.in.hasRemaining()) {
+            // Lleno y ya del tamaño máximo (maxHeaderBytes puede ser menor que el buffer inicial)
+            if (c.in.capacity() > ServerConfig.maxHeaderBytes()) {
+                c.in.clear();
+                reject(c, 431, "Request Header Fields Too Large");
+                return;
+            }
+            // El parser corta con 431 antes de que la cabecera supere maxHeaderBytes
+            ByteBuffer bigger = ByteBuffer.allocate(Math.min(ServerConfig.maxHeaderBytes() + 1, c.in.capacity() * 2));
+            c.in.flip();
+            bigger.put(c.in);
+            c.in = bigger;
+        }
+        int n = c.channel.read(c.in);
+        if (n < 0) { close(c); return; }
+        c.lastActivity = System.nanoTime();
+        if (c.requestStart == 0 && c.bodyToSkip == 0) c.requestStart = c.lastActivity;
+        processBuffered(c);
+    }
+
+    /** Intenta despachar la siguiente petición completa que haya en el buffer. */
+    private void processBuffered(Connection c) {
+        c.in.flip();
+        try {
+            // Descartar restos de un cuerpo anterior
+            if (c.bodyToSkip > 0) {
+                int skip = (int) Math.min(c.bodyToSkip, c.in.remaining());
+                c.in.position(c.in.position() + skip);
+                c.bodyToSkip -= skip;
+                if (c.bodyToSkip > 0) return;
+                if (c.in.hasRemaining() && c.requestStart == 0) c.requestStart = System.nanoTime();
+            }
+            int start = c.in.position();
+            int end;
+            long p0 = System.nanoTime();
+            try {
+                end = c.parser.parse(c.in.array(), start, c.in.limit());
+            } catch (HttpParseException bad) {
+                reject(c, bad.status(), bad.getMessage());
+                return;
+            }
+            if (end == HttpRequestParser.NEED_MORE) {
+                c.parseNanos += System.nanoTime() - p0;
+                c.in.position(start); // se conserva la petición parcial (compact la mueve al inicio)
+                return;
+            }
+
+            HttpRequest req = c.parser.toRequest(c.in.array(), start);
+            c.requestStart = 0;
+            req.parseNanos = c.parseNanos + System.nanoTime() - p0;
+            c.parseNanos = 0;
+            c.in.position(end);
+            long body = c.parser.contentLength();
+            if (body > ServerConfig.maxDrainBytes()) {
+                reject(c, 413, "Content Too Large");
+                return;
+            }
+            long inline = Math.min(body, c.in.remaining());
+            c.in.position(c.in.position() + (int) inline);
+            c.bodyToSkip = body - inline;
+            if (c.in.hasRemaining()) c.requestStart = System.nanoTime(); // la siguiente ya empezó (pipeline)
+
+            if (c.parser.hasTransferEncoding()) {
+                reject(c, 501, "Not Implemented");
+                return;
+            }
+
+            WebSocketHandler ws = HttpServer.webSocketHandler(req);
+            if (ws != null) {
+                byte[] leftover = new byte[c.in.remaining()];
+                c.in.get(leftover);
+                c.state = State.PROCESSING;
+                c.key.cancel(); // el canal queda libre en el próximo select
+                upgrades.add(new Upgrade(c, req, ws, leftover));
+                selector.wakeup();
+                return;
+            }
+
+            c.served++;
+            c.keepAlive = c.parser.keepAlive() && c.served < ServerConfig.maxRequestsPerConnection();
+            c.parser.reset();
+            dispatch(c, req);
+        } finally {
+            c.in.compact();
+        }
+    }
+
+    private void dispatch(Connection c, HttpRequest req) {
+        c.state = State.PROCESSING;
+        c.key.interestOps(0); // no leer más hasta responder (respeta el orden del pipeline)
+        workers.execute(() -> {
+            ResponseBuffer buf = new ResponseBuffer(c);
+            try {
+                // Un handler asíncrono libera al worker: la respuesta se entrega al terminar su etapa
+                HttpServer.respondAsync(buf, req, c.keepAlive).whenComplete((keep, err) -> {
+                    if (!Boolean.TRUE.equals(keep)) c.keepAlive = false;
+                    finish(buf);
+                });
+            } catch (Exception e) {
+                if (c.channel.isOpen()) System.err.println("[nio] " + e.getMessage());
+                c.keepAlive = false;
+                finish(buf);
+            }
+        });
+    }
+
+    private static void finish(ResponseBuffer buf) {
+        try {
+            buf.handOff(true);
+        } catch (IOException ignored) {
+            // handOff(true) no espera: no lanza
+        }
+    }
+
+    /** Pasa el canal a modo bloqueante y deja la conexión WebSocket a un worker. */
+    private void startWebSocket(Upgrade u) {
+        Connection c = u.conn();
+        if (c.channel.isRegistered()) { // aún no se soltó: reintentar tras el siguiente select
+            upgrades.add(u);
+            selector.wakeup();
+            return;
+        }
+        released();
+        try {
+            c.channel.configureBlocking(true);
+        } catch (IOException e) {
+            try { c.channel.close(); } catch (IOException ignored) {}
+            Metrics.connectionClosed();
+            return;
+        }
+        workers.execute(() -> {
+            try {
+                WebSocket.serve(c.channel, c.channel.socket().getInputStream(), u.leftover(), u.req(), u.handler());
+            } catch (IOException e) {
+                if (c.channel.isOpen()) System.err.println("[nio] websocket: " + e.getMessage());
+            } finally {
+                try { c.channel.close(); } catch (IOException ignored) {}
+                Metrics.connectionClosed();
+            }
+        });
+    }
+
+    /** Toma lo que entregó el worker (puede ser una parte o el final de la respuesta) y lo escribe. */
+    private void startWriting(Connection c) {
+        if (!c.channel.isOpen()) { releaseOutput(c); return; }
+        if (c.state == State.READING) return; // aviso repetido de una respuesta ya terminada
+        moveHandoff(c);
+        c.state = State.WRITING;
+        try {
+            onWritable(c);
+        } catch (IOException | CancelledKeyException e) {
+            close(c);
+        }
+    }
+
+    private void onWritable(Connection c) throws IOException {
+        if (c.state != State.WRITING) return;
+        while (true) {
+            writePending(c);
+            if (!c.out.isEmpty()) {
+                // Cliente lento: esperar a que el socket acepte más datos, sin ocupar un worker
+                c.key.interestOps(SelectionKey.OP_WRITE);
+                return;
+            }
+            boolean done = c.responseDone; // leer antes de mirar la cola: el worker encola y luego marca
+            if (!c.handoff.isEmpty()) {
+                moveHandoff(c);
+                continue;
+            }
+            if (!done) {
+                // Handler en streaming: esperar la siguiente parte
+                c.state = State.PROCESSING;
+                c.key.interestOps(0);
+                return;
+            }
+            break;
+        }
+        c.responseDone = false;
+        if (!c.keepAlive) { close(c); return; }
+        c.state = State.READING;
+        c.key.interestOps(SelectionKey.OP_READ);
+        if (c.in.position() > 0) processBuffered(c); // siguiente petición del pipeline
+    }
+
+    /** Escribe lo que acepte el socket; deja en c.out lo que falte. */
+    private void writePending(Connection c) throws IOException {
+        Object head;
+        while ((head = c.out.peek()) != null) {
+            boolean done;
+            if (head instanceof ByteBuffer) {
+                done = writeBuffers(c); // quita de la cola los que salieron completos
+            } else {
+                // Tramo de archivo: transferTo no bloqueante, avanza lo que el socket acepte
+                ZeroCopyOutput.FileRegion r = (ZeroCopyOutput.FileRegion) head;
+                long n = r.file().transferTo(r.position(), r.count(), c.channel);
+                if (n <= 0 && r.position() >= r.file().size()) throw new IOException("El archivo se truncó durante el envío");
+                done = n >= r.count();
+                if (done) {
+                    r.file().close();
+                    c.out.poll();
+                } else if (n > 0) {
+                    c.out.poll();
+                    c.out.addFirst(new ZeroCopyOutput.FileRegion(r.file(), r.position() + n, r.count() - n));
+                }
+            }
+            c.lastActivity = System.nanoTime();
+            if (!done) return;
+        }
+    }
+
+    private static void moveHandoff(Connection c) {
+        Object o;
+        while ((o = c.handoff.poll()) != null) c.out.add(o);
+    }
+
+    private static final int MAX_GATHER = 16;
+
+    /**
+     * Escribe de una vez (write(ByteBuffer[])) los buffers consecutivos del inicio de la cola
+     * y quita los que salieron completos. Retorna false si el socket no aceptó todo.
+     */
+    private static boolean writeBuffers(Connection c) throws IOException {
+        ByteBuffer[] batch = new ByteBuffer[Math.min(MAX_GATHER, c.out.size())];
+        int n = 0;
+        for (Object o : c.out) {
+            if (!(o instanceof ByteBuffer b) || n == batch.length) break;
+            batch[n++] = b;
+        }
+        long written = c.channel.write(batch, 0, n);
+        if (written > 0 && c.unsent.addAndGet(-written) <= MAX_UNSENT) {
+            c.signalDrained();
+        }
+        for (int i = 0; i < n; i++) {
+            if (batch[i].hasRemaining()) return false;
+            c.out.poll();
+        }
+        return true;
+    }
+
+    // ================== Utilidades ==================
+    private void reject(Connection c, int code, String reason) {
+        byte[] body = reason.getBytes(StandardCharsets.UTF_8);
+        ResponseWriter.Head head = c.head
+                .status(HttpRequestParser.HTTP_1_1, code)
+                .header(ResponseWriter.CONTENT_TYPE, ResponseWriter.TEXT_PLAIN)
+                .header(ResponseWriter.CONTENT_LENGTH, body.length)
+                .end(false);
+        c.out.add(head.asBuffer());
+        c.out.add(ByteBuffer.wrap(body));
+        c.keepAlive = false;
+        c.responseDone = true;
+        c.state = State.PROCESSING;
+        startWriting(c);
+    }
+
+    private void closeIdle() {
+        long now = System.nanoTime();
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(ServerConfig.keepAliveTimeoutMs());
+        long readNanos = TimeUnit.MILLISECONDS.toNanos(ServerConfig.readTimeoutMs());
+        long headerNanos = TimeUnit.MILLISECONDS.toNanos(ServerConfig.headerTimeoutMs());
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Rejected r) {
+                if (now - r.deadline() > 0) closeQuietly(key.channel());
+                continue;
+            }
+            if (!(key.attachment() instanceof Connection c) || c.state == State.PROCESSING) continue;
+            boolean pendingHeader = c.state == State.READING && c.requestStart != 0;
+            if (pendingHeader && headerNanos > 0 && now - c.requestStart > headerNanos) {
+                requestTimeout(c);
+                continue;
+            }
+            boolean idle = c.state == State.READING && c.requestStart == 0 && c.bodyToSkip == 0;
+            long limit = idle ? idleNanos : readNanos;
+            if (limit > 0 && now - c.lastActivity > limit) {
+                if (pendingHeader) requestTimeout(c);
+                else close(c);
+            }
+        }
+    }
+
+    /** La cabecera no llegó a tiempo: 408 y cierre. */
+    private void requestTimeout(Connection c) {
+        Metrics.requestTimedOut();
+        c.requestStart = 0;
+        c.parser.reset();
+        c.in.clear();
+        reject(c, 408, "Request Timeout");
+    }
+
+    /**
+     * Sobre maxConnections: 503 fijo (cabe en el buffer de envío de un socket nuevo), fin de
+     * escritura y se sigue leyendo para descartar hasta el plazo; cerrar con datos sin leer
+     * mandaría RST y el cliente podría perder la respuesta.
+     */
+    private void rejectOverloaded(SocketChannel ch) {
+        Metrics.connectionRejected();
+        try {
+            ch.write(ByteBuffer.wrap(HttpServer.OVERLOADED));
+            ch.shutdownOutput();
+            ch.register(selector, SelectionKey.OP_READ,
+                    new Rejected(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(HttpServer.REJECT_LINGER_MS)));
+        } catch (IOException e) {
+            closeQuietly(ch);
+        }
+    }
+
+    private void drainRejected(SelectionKey key) throws IOException {
+        SocketChannel ch = (SocketChannel) key.channel();
+        int n;
+        do {
+            discard.clear();
+            n = ch.read(discard);
+        } while (n > 0);
+        if (n < 0) ch.close();
+    }
+
+    private static void closeQuietly(Channel ch) {
+        try { ch.close(); } catch (IOException ignored) {}
+    }
+
+    private void close(Connection c) {
+        if (!c.channel.isOpen()) return;
+        try { c.channel.close(); } catch (IOException ignored) {}
+        Metrics.connectionClosed();
+        c.signalDrained();
+        releaseOutput(c);
+        released();
+    }
+
+    /** Una conexión dejó el selector: si se había llegado al tope, se vuelve a aceptar. */
+    private void released() {
+        if (open-- >= ServerConfig.maxInFlight()) {
+            SelectionKey acceptKey = server.keyFor(selector);
+            if (acceptKey != null && acceptKey.isValid()) acceptKey.interestOps(SelectionKey.OP_ACCEPT);
+        }
+    }
+
+    /** Cierra los archivos que no se alcanzaron a enviar. */
+    private static void releaseOutput(Connection c) {
+        moveHandoff(c);
+        for (Object o : c.out) {
+            if (o instanceof ZeroCopyOutput.FileRegion r) {
+                try { r.file().close(); } catch (IOException ignored) {}
+            }
+        }
+        c.out.clear();
+    }
+}
@@ -0,0 +1,156 @@
+package com.mycompany.httpserver;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Parámetros de query parseados una sola vez (en orden de llegada, con repetidos).
+ * Decodifica '+' y %XX (UTF-8); un escape inválido se deja tal cual en vez de fallar.
+ * La query cruda se interpreta como bytes (ISO-8859-1), igual que la entrega el parser.
+ * Es inmutable: se puede compartir entre todos los accesos del mismo request.
+ */
+public final class QueryParams {
+
+    public static final QueryParams EMPTY = new QueryParams(new String[0], new String[0], 0);
+
+    // Con pocas claves un recorrido lineal es más barato que un HashMap
+    private static final int INDEX_THRESHOLD = 8;
+
+    private final String[] keys;
+    private final String[] values;
+    private final int size;
+    private Map<String, Integer> firstIndex; // solo para queries grandes
+    private Map<String, String> singleView;
+
+    private QueryParams(String[] keys, String[] values, int size) {
+        this.keys = keys;
+        this.values = values;
+        this.size = size;
+        if (size > INDEX_THRESHOLD) {
+            Map<String, Integer> idx = new HashMap<>(size * 2);
+            for (int i = size - 1; i >= 0; i--) idx.put(keys[i], i);
+            this.firstIndex = idx;
+        }
+    }
+
+    /** Parsea la query cruda (sin '?'); null o vacía da {@link #EMPTY}. */
+    public static QueryParams parse(String raw) {
+        if (raw == null || raw.isEmpty()) return EMPTY;
+        int pairs = 1;
+        for (int i = 0; i < raw.length(); i++) if (raw.charAt(i) == '&') pairs++;
+
+        String[] k = new String[pairs];
+        String[] v = new String[pairs];
+        int n = 0;
+        int start = 0, len = raw.length();
+        while (start <= len) {
+            int amp = raw.indexOf('&', start);
+            int end = amp < 0 ? len : amp;
+            if (end > start) {
+                int eq = raw.indexOf('=', start);
+                if (eq < 0 || eq > end) eq = end;
+                k[n] = decode(raw, start, eq);
+                v[n] = eq < end ? decode(raw, eq + 1, end) : "";
+                n++;
+            }
+            start = end + 1;
+        }
+        return n == 0 ? EMPTY : new QueryParams(k, v, n);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(String name) {
+        return indexOf(name) >= 0;
+    }
+
+    /** Primer valor del parámetro o null. */
+    public String first(String name) {
+        int i = indexOf(name);
+        return i < 0 ? null : values[i];
+    }
+
+    /** Todos los valores del parámetro (?s=A&s=B), vacía si no vino. */
+    public List<String> all(String name) {
+        List<String> out = null;
+        for (int i = 0; i < size; i++) {
+            if (keys[i].equals(name)) {
+                if (out == null) out = new ArrayList<>(2);
+                out.add(values[i]);
+            }
+        }
+        return out == null ? List.of() : out;
+    }
+
+    /** Nombres en orden de llegada, sin repetidos. */
+    public Set<String> names() {
+        Set<String> out = new LinkedHashSet<>();
+        for (int i = 0; i < size; i++) out.add(keys[i]);
+        return out;
+    }
+
+    /** Vista nombre -> primer valor (inmutable, se construye una sola vez). */
+    public Map<String, String> asMap() {
+        Map<String, String> m = singleView;
+        if (m == null) {
+            Map<String, String> built = new LinkedHashMap<>();
+            for (int i = 0; i < size; i++) built.putIfAbsent(keys[i], values[i]);
+            singleView = m = Collections.unmodifiableMap(built);
+        }
+        return m;
+    }
+
+    /** Copia nombre -> todos los valores. */
+    public Map<String, List<String>> asMultiMap() {
+        Map<String, List<String>> out = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) out.computeIfAbsent(keys[i], x -> new ArrayList<>(1)).add(values[i]);
+        return out;
+    }
+
+    @Override
+    public String toString() {
+        return asMultiMap().toString();
+    }
+
+    // ================== helpers ==================
+    private int indexOf(String name) {
+        if (firstIndex != null) {
+            Integer i = firstIndex.get(name);
+            return i == null ? -1 : i;
+        }
+        for (int i = 0; i < size; i++) if (keys[i].equals(name)) return i;
+        return -1;
+    }
+
+    private static String decode(String s, int from, int to) {
+        boolean plain = true;
+        for (int i = from; i < to && plain; i++) {
+            char c = s.charAt(i);
+            plain = c != '%' && c != '+' && c < 0x80;
+        }
+        if (plain) return s.substring(from, to);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(to - from);
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            int h, l;
+            if (c == '+') {
+                out.write(' ');
+            } else if (c == '%' && i + 2 < to
+                    && (h = Character.digit(s.charAt(i + 1), 16)) >= 0
+                    && (l = Character.digit(s.charAt(i + 2), 16)) >= 0) {
+                out.write((h << 4) | l);
+                i += 2;
+            } else if (c < 0x100) {
+                out.write(c); // la query cruda llega como bytes ISO-8859-1
+            } else {
+                byte[] b = String.valueOf(c).getBytes(StandardCharsets.UTF_8);
+                out.write(b, 0, b.length);
+            }
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
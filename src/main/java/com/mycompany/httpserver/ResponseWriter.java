@@ -0,0 +1,225 @@
+package com.mycompany.httpserver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Escritura de respuestas sin copias intermedias.
+ * - Tabla completa de líneas de status ya codificadas (HTTP/1.0 y HTTP/1.1).
+ * - Nombres de headers comunes ya codificados.
+ * - {@link Head}: buffer de headers reutilizable por conexión; los números y valores
+ *   ASCII se escriben byte a byte, sin concatenar Strings ni llamar a getBytes.
+ * - Con una salida {@link GatheringOutput} headers y cuerpo salen en una sola escritura
+ *   de varios buffers (GatheringByteChannel.write(ByteBuffer[])).
+ */
+final class ResponseWriter {
+
+    // ================== Status ==================
+    private static final String[] REASONS = new String[600];
+    static {
+        String[][] table = {
+                {"100", "Continue"}, {"101", "Switching Protocols"},
+                {"200", "OK"}, {"201", "Created"}, {"202", "Accepted"}, {"203", "Non-Authoritative Information"},
+                {"204", "No Content"}, {"205", "Reset Content"}, {"206", "Partial Content"},
+                {"300", "Multiple Choices"}, {"301", "Moved Permanently"}, {"302", "Found"}, {"303", "See Other"},
+                {"304", "Not Modified"}, {"307", "Temporary Redirect"}, {"308", "Permanent Redirect"},
+                {"400", "Bad Request"}, {"401", "Unauthorized"}, {"402", "Payment Required"}, {"403", "Forbidden"},
+                {"404", "Not Found"}, {"405", "Method Not Allowed"}, {"406", "Not Acceptable"},
+                {"407", "Proxy Authentication Required"}, {"408", "Request Timeout"}, {"409", "Conflict"},
+                {"410", "Gone"}, {"411", "Length Required"}, {"412", "Precondition Failed"},
+                {"413", "Content Too Large"}, {"414", "URI Too Long"}, {"415", "Unsupported Media Type"},
+                {"416", "Range Not Satisfiable"}, {"417", "Expectation Failed"}, {"421", "Misdirected Request"},
+                {"422", "Unprocessable Content"}, {"426", "Upgrade Required"}, {"428", "Precondition Required"},
+                {"429", "Too Many Requests"}, {"431", "Request Header Fields Too Large"},
+                {"500", "Internal Server Error"}, {"501", "Not Implemented"}, {"502", "Bad Gateway"},
+                {"503", "Service Unavailable"}, {"504", "Gateway Timeout"}, {"505", "HTTP Version Not Supported"},
+        };
+        for (String[] row : table) REASONS[Integer.parseInt(row[0])] = row[1];
+    }
+
+    private static final byte[][] STATUS_11 = new byte[600][];
+    private static final byte[][] STATUS_10 = new byte[600][];
+    static {
+        for (int code = 100; code < 600; code++) {
+            STATUS_11[code] = ascii(HttpRequestParser.HTTP_1_1 + " " + code + " " + reason(code) + "\r\n");
+            STATUS_10[code] = ascii(HttpRequestParser.HTTP_1_0 + " " + code + " " + reason(code) + "\r\n");
+        }
+    }
+
+    /** Frase del status; para códigos fuera de la tabla, la genérica de su clase (2xx, 4xx...). */
+    static String reason(int code) {
+        if (code >= 100 && code < 600 && REASONS[code] != null) return REASONS[code];
+        return switch (code / 100) {
+            case 1 -> "Informational"; case 2 -> "Success"; case 3 -> "Redirection";
+            case 4 -> "Client Error"; default -> "Server Error";
+        };
+    }
+
+    /** Línea de status ya codificada (incluye CRLF). No se debe modificar. */
+    static byte[] statusLine(String version, int code) {
+        if (code < 100 || code >= 600) code = 500;
+        return HttpRequestParser.HTTP_1_0.equals(version) ? STATUS_10[code] : STATUS_11[code];
+    }
+
+    // ================== Headers comunes ==================
+    static final byte[] CONTENT_TYPE = ascii("Content-Type: ");
+    static final byte[] CONTENT_LENGTH = ascii("Content-Length: ");
+    static final byte[] CONTENT_RANGE = ascii("Content-Range: ");
+    static final byte[] ACCEPT_RANGES_BYTES = ascii("Accept-Ranges: bytes\r\n");
+    static final byte[] CONN_KEEP_ALIVE = ascii("Connection: keep-alive\r\n\r\n");
+    static final byte[] CONN_CLOSE = ascii("Connection: close\r\n\r\n");
+    static final byte[] TEXT_PLAIN = ascii("text/plain; charset=utf-8");
+    static final byte[] APPLICATION_JSON = ascii("application/json; charset=utf-8");
+
+    private static final byte[] EMPTY = new byte[0];
+
+    // Buffer de headers para salidas que no traen el suyo
+    private static final ThreadLocal<Head> FALLBACK_HEAD = ThreadLocal.withInitial(Head::new);
+
+    private ResponseWriter() {}
+
+    /** Buffer de headers de la salida (por conexión) o uno del hilo si la salida no tiene. */
+    static Head head(OutputStream out) {
+        return out instanceof GatheringOutput g ? g.headerBuffer() : FALLBACK_HEAD.get();
+    }
+
+    /** Escribe headers (ya cerrados con {@link Head#end}) y cuerpo. No hace flush. */
+    static void send(OutputStream out, Head head, byte[] body) throws IOException {
+        send(out, head, body, 0, body.length);
+    }
+
+    static void send(OutputStream out, Head head, byte[] body, int off, int len) throws IOException {
+        if (out instanceof GatheringOutput g) {
+            if (len == 0) g.writeGathered(head.asBuffer());
+            else g.writeGathered(head.asBuffer(), ByteBuffer.wrap(body, off, len));
+        } else {
+            out.write(head.array(), 0, head.length());
+            out.write(body, off, len);
+        }
+    }
+
+    /** Solo status y headers (el cuerpo lo escribe quien llama). */
+    static void sendHead(OutputStream out, Head head) throws IOException {
+        send(out, head, EMPTY, 0, 0);
+    }
+
+    /** Un tramo de un arreglo, sin copiarlo si la salida lo permite. */
+    static void sendSlice(OutputStream out, byte[] bytes, int off, int len) throws IOException {
+        if (out instanceof GatheringOutput g) g.writeGathered(ByteBuffer.wrap(bytes, off, len));
+        else out.write(bytes, off, len);
+    }
+
+    /** Escribe bloques ya codificados en orden (status, headers, cuerpo...) sin juntarlos antes. */
+    static void sendAll(OutputStream out, byte[]... parts) throws IOException {
+        if (out instanceof GatheringOutput g) {
+            ByteBuffer[] bufs = new ByteBuffer[parts.length];
+            for (int i = 0; i < parts.length; i++) bufs[i] = ByteBuffer.wrap(parts[i]);
+            g.writeGathered(bufs);
+        } else {
+            for (byte[] p : parts) out.write(p);
+        }
+    }
+
+    /** Bloque de status + headers que se llena sin crear Strings intermedios. Se reutiliza. */
+    static final class Head {
+        private byte[] buf = new byte[512];
+        private int len;
+
+        /** Reinicia el buffer con la línea de status. */
+        Head status(String version, int code) {
+            len = 0;
+            return raw(statusLine(version, code));
+        }
+
+        Head header(byte[] name, byte[] value) {
+            return raw(name).raw(value).crlf();
+        }
+
+        Head header(byte[] name, String value) {
+            return raw(name).ascii(value).crlf();
+        }
+
+        Head header(byte[] name, long value) {
+            return raw(name).number(value).crlf();
+        }
+
+        /** Header con nombre arbitrario ("X-Cache: hit"). */
+        Head header(String name, String value) {
+            return ascii(name).raw(HEADER_SEP).ascii(value).crlf();
+        }
+
+        /** Líneas completas ya terminadas en CRLF. */
+        Head raw(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, len, bytes.length);
+            len += bytes.length;
+            return this;
+        }
+
+        /** Líneas completas ya terminadas en CRLF (ASCII/ISO-8859-1). */
+        Head lines(String lines) {
+            return ascii(lines);
+        }
+
+        /** Connection y la línea vacía que cierra los headers. */
+        Head end(boolean keepAlive) {
+            return raw(keepAlive ? CONN_KEEP_ALIVE : CONN_CLOSE);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+
+        int length() {
+            return len;
+        }
+
+        ByteBuffer asBuffer() {
+            return ByteBuffer.wrap(buf, 0, len);
+        }
+
+        private Head ascii(String s) {
+            int n = s.length();
+            ensure(n);
+            for (int i = 0; i < n; i++) {
+                char c = s.charAt(i);
+                buf[len++] = (byte) (c < 0x100 ? c : '?');
+            }
+            return this;
+        }
+
+        private Head number(long v) {
+            if (v < 0) return ascii(Long.toString(v));
+            ensure(20);
+            int start = len;
+            do {
+                buf[len++] = (byte) ('0' + (v % 10));
+                v /= 10;
+            } while (v > 0);
+            for (int i = start, j = len - 1; i < j; i++, j--) {
+                byte t = buf[i]; buf[i] = buf[j]; buf[j] = t;
+            }
+            return this;
+        }
+
+        private Head crlf() {
+            ensure(2);
+            buf[len++] = '\r';
+            buf[len++] = '\n';
+            return this;
+        }
+
+        private void ensure(int extra) {
+            if (len + extra > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + extra));
+        }
+    }
+
+    private static final byte[] HEADER_SEP = ascii(": ");
+
+    static byte[] ascii(String s) {
+        return s == null ? EMPTY : s.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,258 @@
+package com.mycompany.httpserver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Árbol radix (prefijos comprimidos) de rutas GET, precompilado e inmutable.
+ * Patrones soportados (segmentos completos):
+ *  - Literales, sin distinguir mayúsculas: /api/stocks
+ *  - Variables: /stocks/{symbol}  (valor en HttpRequest#getPathVariable("symbol"))
+ *  - Comodín de un segmento: /files/*\/meta
+ *  - Resto de la ruta (solo al final): /assets/**  (valor en getPathVariable("**"))
+ * Prioridad al emparejar: literal > variable/comodín > resto. El emparejado recorre
+ * la ruta una sola vez y no crea objetos: las variables se anotan como posiciones
+ * en un int[] que entrega quien llama.
+ */
+public final class Router {
+
+    /** Nombre con el que se expone el resto de la ruta capturado por "**". */
+    public static final String CATCH_ALL = "**";
+
+    /** Una ruta registrada: patrón original, handler y nombres de sus variables en orden. */
+    public static final class Route {
+        private final String pattern;
+        private final Service handler;
+        private final String[] variables;
+
+        Route(String pattern, Service handler, String[] variables) {
+            this.pattern = pattern;
+            this.handler = handler;
+            this.variables = variables;
+        }
+
+        public String pattern() { return pattern; }
+        public Service handler() { return handler; }
+        String[] variables() { return variables; }
+    }
+
+    private static final class Node {
+        String prefix;                 // literal en minúsculas
+        char[] firstChars = new char[0];
+        Node[] children = new Node[0];
+        Node segment;                  // {var} o *
+        String segmentName;            // null para *
+        Route catchAll;                // **
+        Route route;
+
+        Node(String prefix) { this.prefix = prefix; }
+
+        Node child(char c) {
+            for (int i = 0; i < firstChars.length; i++) if (firstChars[i] == c) return children[i];
+            return null;
+        }
+
+        void addChild(Node n) {
+            firstChars = Arrays.copyOf(firstChars, firstChars.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            firstChars[firstChars.length - 1] = n.prefix.charAt(0);
+            children[children.length - 1] = n;
+        }
+
+        void replaceChild(Node old, Node n) {
+            for (int i = 0; i < children.length; i++) if (children[i] == old) children[i] = n;
+        }
+    }
+
+    static final Router EMPTY = build(Map.of());
+
+    private final Node root;
+    private final int maxVariables;
+    private final int size;
+
+    private Router(Node root, int maxVariables, int size) {
+        this.root = root;
+        this.maxVariables = maxVariables;
+        this.size = size;
+    }
+
+    /** Compila el árbol a partir de patrón -> handler. */
+    public static Router build(Map<String, Service> routes) {
+        Node root = new Node("");
+        int maxVars = 0;
+        for (Map.Entry<String, Service> e : routes.entrySet()) {
+            List<Object> tokens = tokenize(e.getKey());
+            List<String> vars = new ArrayList<>();
+            for (Object t : tokens) {
+                if (t instanceof Var v && v.name != null) vars.add(v.name);
+            }
+            Route route = new Route(e.getKey(), e.getValue(), vars.toArray(new String[0]));
+            insert(root, tokens, 0, route);
+            maxVars = Math.max(maxVars, vars.size());
+        }
+        return new Router(root, maxVars, routes.size());
+    }
+
+    /** Cantidad máxima de variables de una ruta (el int[] de capturas necesita el doble). */
+    public int maxVariables() {
+        return maxVariables;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Busca la ruta que corresponde al path.
+     * @param captures recibe pares (inicio, fin) de cada variable; longitud mínima 2 * maxVariables()
+     * @return la ruta o null si no hay coincidencia
+     */
+    public Route match(String path, int[] captures) {
+        if (path == null || path.isEmpty()) path = "/";
+        return match(root, path, 0, captures, 0);
+    }
+
+    private static Route match(Node n, String path, int pos, int[] caps, int k) {
+        int len = path.length();
+        if (pos == len) {
+            if (n.route != null) return n.route;
+            if (n.catchAll != null) return captureRest(n.catchAll, pos, len, caps, k);
+            return null;
+        }
+
+        Node child = n.child(lower(path.charAt(pos)));
+        if (child != null && regionMatches(path, pos, child.prefix)) {
+            Route r = match(child, path, pos + child.prefix.length(), caps, k);
+            if (r != null) return r;
+        }
+
+        if (n.segment != null) {
+            int end = pos;
+            while (end < len && path.charAt(end) != '/') end++;
+            if (end > pos) {
+                int next = k;
+                if (n.segmentName != null) {
+                    caps[2 * k] = pos;
+                    caps[2 * k + 1] = end;
+                    next++;
+                }
+                Route r = match(n.segment, path, end, caps, next);
+                if (r != null) return r;
+            }
+        }
+
+        if (n.catchAll != null) return captureRest(n.catchAll, pos, len, caps, k);
+        return null;
+    }
+
+    private static Route captureRest(Route r, int pos, int len, int[] caps, int k) {
+        caps[2 * k] = pos;
+        caps[2 * k + 1] = len;
+        return r;
+    }
+
+    // ================== Construcción ==================
+    /** Variable de segmento: name == null para "*", CATCH_ALL para "**". */
+    private record Var(String name) {}
+
+    private static List<Object> tokenize(String pattern) {
+        String p = pattern == null ? "" : pattern.trim();
+        if (!p.startsWith("/")) p = "/" + p;
+
+        List<Object> tokens = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        String[] segments = p.substring(1).split("/", -1);
+        for (int i = 0; i < segments.length; i++) {
+            String seg = segments[i];
+            literal.append('/');
+            boolean last = i == segments.length - 1;
+            if (seg.equals("**")) {
+                if (!last) throw new IllegalArgumentException("'**' solo se admite al final de la ruta: " + pattern);
+                flush(literal, tokens);
+                tokens.add(new Var(CATCH_ALL));
+            } else if (seg.equals("*")) {
+                flush(literal, tokens);
+                tokens.add(new Var(null));
+            } else if (seg.length() > 2 && seg.startsWith("{") && seg.endsWith("}")) {
+                flush(literal, tokens);
+                tokens.add(new Var(seg.substring(1, seg.length() - 1).trim()));
+            } else {
+                literal.append(seg.toLowerCase(Locale.ROOT));
+            }
+        }
+        flush(literal, tokens);
+        return tokens;
+    }
+
+    private static void flush(StringBuilder literal, List<Object> tokens) {
+        if (literal.length() > 0) tokens.add(literal.toString());
+        literal.setLength(0);
+    }
+
+    private static void insert(Node n, List<Object> tokens, int i, Route route) {
+        if (i == tokens.size()) {
+            if (n.route != null) throw new IllegalArgumentException("Ruta duplicada: " + route.pattern() + " / " + n.route.pattern());
+            n.route = route;
+            return;
+        }
+        Object t = tokens.get(i);
+        if (t instanceof String lit) {
+            insert(insertLiteral(n, lit), tokens, i + 1, route);
+        } else {
+            Var v = (Var) t;
+            if (CATCH_ALL.equals(v.name())) {
+                if (n.catchAll != null) throw new IllegalArgumentException("Ruta duplicada: " + route.pattern() + " / " + n.catchAll.pattern());
+                n.catchAll = route;
+                return;
+            }
+            if (n.segment == null) {
+                n.segment = new Node("");
+                n.segmentName = v.name();
+            } else if (!java.util.Objects.equals(n.segmentName, v.name())) {
+                throw new IllegalArgumentException("Variables en conflicto en la misma posición: {"
+                        + n.segmentName + "} y {" + v.name() + "} (" + route.pattern() + ")");
+            }
+            insert(n.segment, tokens, i + 1, route);
+        }
+    }
+
+    private static Node insertLiteral(Node n, String lit) {
+        if (lit.isEmpty()) return n;
+        Node child = n.child(lit.charAt(0));
+        if (child == null) {
+            child = new Node(lit);
+            n.addChild(child);
+            return child;
+        }
+        int common = 0;
+        int max = Math.min(child.prefix.length(), lit.length());
+        while (common < max && child.prefix.charAt(common) == lit.charAt(common)) common++;
+
+        if (common < child.prefix.length()) {
+            // Partir la arista: n -> mid(común) -> child(resto)
+            Node mid = new Node(child.prefix.substring(0, common));
+            n.replaceChild(child, mid);
+            child.prefix = child.prefix.substring(common);
+            mid.addChild(child);
+            child = mid;
+        }
+        return insertLiteral(child, lit.substring(common));
+    }
+
+    // ================== helpers ==================
+    private static boolean regionMatches(String path, int pos, String lowerPrefix) {
+        int n = lowerPrefix.length();
+        if (pos + n > path.length()) return false;
+        for (int i = 0; i < n; i++) {
+            if (lower(path.charAt(pos + i)) != lowerPrefix.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static char lower(char c) {
+        return (c >= 'A' && c <= 'Z') ? (char) (c + 32) : (c < 128 ? c : Character.toLowerCase(c));
+    }
+}
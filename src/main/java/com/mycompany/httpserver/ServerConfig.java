@@ -0,0 +1,161 @@
+package com.mycompany.httpserver;
+
+/**
+ * Parámetros de ejecución del servidor.
+ * Cada valor se lee de una propiedad del sistema (-Dhttp.xxx=...) y puede
+ * sobrescribirse por código ANTES de startServer().
+ */
+public final class ServerConfig {
+
+    /** Cómo se atienden las conexiones aceptadas. */
+    public enum ExecutionMode { VIRTUAL, PLATFORM, SERIAL }
+
+    /** Motor de red: sockets bloqueantes (un hilo por conexión) o selector NIO. */
+    public enum Engine { BLOCKING, NIO }
+
+    private static final int CPUS = Runtime.getRuntime().availableProcessors();
+
+    // Modo de ejecución: virtual (por defecto), platform (pool acotado) o serial (hilo del accept)
+    private static volatile ExecutionMode executionMode =
+            parseMode(System.getProperty("http.mode", "virtual"));
+
+    // Motor de red: blocking (por defecto) o nio
+    private static volatile Engine engine =
+            "nio".equalsIgnoreCase(System.getProperty("http.engine", "blocking").trim()) ? Engine.NIO : Engine.BLOCKING;
+
+    // Máximo de conexiones atendiéndose a la vez (el accept espera al llegar al tope)
+    private static volatile int maxInFlight = Integer.getInteger("http.maxInFlight", 10_000);
+
+    // Admisión: conexiones abiertas por encima de esto reciben 503 al aceptarse, sin ocupar un hilo.
+    // Si maxInFlight es menor, el accept espera antes de llegar aquí
+    private static volatile int maxConnections = Integer.getInteger("http.maxConnections", 10_000);
+
+    // Cola de conexiones pendientes de accept en el sistema operativo (limitada por somaxconn)
+    private static volatile int acceptBacklog = Integer.getInteger("http.acceptBacklog", 1_024);
+
+    // Tamaño del pool de hilos de plataforma (modo PLATFORM o fallback)
+    private static volatile int workerThreads = Integer.getInteger("http.workerThreads", Math.max(8, CPUS * 4));
+
+    // Keep-alive: tiempo máximo de espera por la siguiente petición y peticiones por conexión
+    private static volatile int keepAliveTimeoutMs = Integer.getInteger("http.keepAliveTimeoutMs", 5_000);
+    private static volatile int maxRequestsPerConnection = Integer.getInteger("http.maxRequestsPerConnection", 1_000);
+
+    // Petición en curso: plazo total para recibir la cabecera (contra clientes que la mandan
+    // byte a byte) y espera máxima entre lecturas de cabecera o cuerpo. 0 = sin límite
+    private static volatile int headerTimeoutMs = Integer.getInteger("http.headerTimeoutMs", 10_000);
+    private static volatile int readTimeoutMs = Integer.getInteger("http.readTimeoutMs", 30_000);
+
+    // Cuerpo que se descarta para seguir con keep-alive (no hay handlers con cuerpo); más grande = 413
+    private static volatile long maxDrainBytes = Long.getLong("http.maxDrainBytes", 64L * 1024);
+
+    // Límites de la cabecera de la petición
+    private static volatile int maxRequestLineBytes = Integer.getInteger("http.maxRequestLineBytes", 8 * 1024);
+    private static volatile int maxHeaderBytes = Integer.getInteger("http.maxHeaderBytes", 16 * 1024);
+    private static volatile int maxHeaderCount = Integer.getInteger("http.maxHeaderCount", 100);
+
+    // Presupuesto en bytes de la caché de estáticos
+    private static volatile long staticCacheBytes = Long.getLong("http.staticCacheBytes", 32L * 1024 * 1024);
+
+    // Archivos a partir de este tamaño se envían con transferTo en vez de cargarse en memoria
+    private static volatile long streamThresholdBytes = Long.getLong("http.streamThresholdBytes", 256L * 1024);
+
+    // WebSocket: tamaño máximo de un mensaje (armado) y espera sin actividad antes de mandar ping
+    private static volatile int wsMaxMessageBytes = Integer.getInteger("http.wsMaxMessageBytes", 64 * 1024);
+    private static volatile int wsIdleTimeoutMs = Integer.getInteger("http.wsIdleTimeoutMs", 30_000);
+
+    // Handlers asíncronos: espera máxima por el resultado (0 = sin límite)
+    private static volatile int asyncTimeoutMs = Integer.getInteger("http.asyncTimeoutMs", 30_000);
+
+    // Publicar /metrics (formato Prometheus) al arrancar
+    private static volatile boolean metricsEndpoint =
+            Boolean.parseBoolean(System.getProperty("http.metrics", "true").trim());
+
+    // Access log binario: directorio (sin valor = desactivado), registros en vuelo, tamaño y cantidad de segmentos
+    private static volatile String accessLogDir = System.getProperty("http.accessLog.dir");
+    private static volatile int accessLogRingSize = Integer.getInteger("http.accessLog.ringSize", 64 * 1024);
+    private static volatile long accessLogSegmentBytes = Long.getLong("http.accessLog.segmentBytes", 16L * 1024 * 1024);
+    private static volatile int accessLogMaxSegments = Integer.getInteger("http.accessLog.maxSegments", 16);
+
+    private ServerConfig() {}
+
+    public static ExecutionMode executionMode() { return executionMode; }
+    public static void executionMode(ExecutionMode mode) { executionMode = mode; }
+
+    public static Engine engine() { return engine; }
+    public static void engine(Engine e) { engine = e; }
+
+    public static int maxInFlight() { return maxInFlight; }
+    public static void maxInFlight(int max) { maxInFlight = Math.max(1, max); }
+
+    public static int maxConnections() { return maxConnections; }
+    public static void maxConnections(int max) { maxConnections = Math.max(1, max); }
+
+    public static int acceptBacklog() { return acceptBacklog; }
+    public static void acceptBacklog(int backlog) { acceptBacklog = Math.max(0, backlog); }
+
+    public static int workerThreads() { return workerThreads; }
+    public static void workerThreads(int threads) { workerThreads = Math.max(1, threads); }
+
+    public static int keepAliveTimeoutMs() { return keepAliveTimeoutMs; }
+    public static void keepAliveTimeoutMs(int ms) { keepAliveTimeoutMs = Math.max(0, ms); }
+
+    public static int maxRequestsPerConnection() { return maxRequestsPerConnection; }
+    public static void maxRequestsPerConnection(int max) { maxRequestsPerConnection = Math.max(1, max); }
+
+    public static int headerTimeoutMs() { return headerTimeoutMs; }
+    public static void headerTimeoutMs(int ms) { headerTimeoutMs = Math.max(0, ms); }
+
+    public static int readTimeoutMs() { return readTimeoutMs; }
+    public static void readTimeoutMs(int ms) { readTimeoutMs = Math.max(0, ms); }
+
+    public static long maxDrainBytes() { return maxDrainBytes; }
+    public static void maxDrainBytes(long bytes) { maxDrainBytes = Math.max(0, bytes); }
+
+    public static int maxRequestLineBytes() { return maxRequestLineBytes; }
+    public static void maxRequestLineBytes(int max) { maxRequestLineBytes = Math.max(64, max); }
+
+    public static int maxHeaderBytes() { return maxHeaderBytes; }
+    public static void maxHeaderBytes(int max) { maxHeaderBytes = Math.max(256, max); }
+
+    public static int maxHeaderCount() { return maxHeaderCount; }
+    public static void maxHeaderCount(int max) { maxHeaderCount = Math.max(1, max); }
+
+    public static long staticCacheBytes() { return staticCacheBytes; }
+    public static void staticCacheBytes(long bytes) { staticCacheBytes = Math.max(0, bytes); }
+
+    public static long streamThresholdBytes() { return streamThresholdBytes; }
+    public static void streamThresholdBytes(long bytes) { streamThresholdBytes = Math.max(0, bytes); }
+
+    public static int wsMaxMessageBytes() { return wsMaxMessageBytes; }
+    public static void wsMaxMessageBytes(int bytes) { wsMaxMessageBytes = Math.max(125, bytes); }
+
+    public static int wsIdleTimeoutMs() { return wsIdleTimeoutMs; }
+    public static void wsIdleTimeoutMs(int ms) { wsIdleTimeoutMs = Math.max(0, ms); }
+
+    public static int asyncTimeoutMs() { return asyncTimeoutMs; }
+    public static void asyncTimeoutMs(int ms) { asyncTimeoutMs = Math.max(0, ms); }
+
+    public static boolean metricsEndpoint() { return metricsEndpoint; }
+    public static void metricsEndpoint(boolean enabled) { metricsEndpoint = enabled; }
+
+    public static String accessLogDir() { return accessLogDir; }
+    public static void accessLogDir(String dir) { accessLogDir = (dir == null || dir.isBlank()) ? null : dir; }
+
+    public static int accessLogRingSize() { return accessLogRingSize; }
+    public static void accessLogRingSize(int size) { accessLogRingSize = Math.max(2, size); }
+
+    public static long accessLogSegmentBytes() { return accessLogSegmentBytes; }
+    public static void accessLogSegmentBytes(long bytes) { accessLogSegmentBytes = Math.max(4096, bytes); }
+
+    public static int accessLogMaxSegments() { return accessLogMaxSegments; }
+    public static void accessLogMaxSegments(int max) { accessLogMaxSegments = Math.max(0, max); }
+
+    static ExecutionMode parseMode(String s) {
+        if (s == null) return ExecutionMode.VIRTUAL;
+        return switch (s.trim().toLowerCase(java.util.Locale.ROOT)) {
+            case "platform", "pool" -> ExecutionMode.PLATFORM;
+            case "serial" -> ExecutionMode.SERIAL;
+            default -> ExecutionMode.VIRTUAL;
+        };
+    }
+}
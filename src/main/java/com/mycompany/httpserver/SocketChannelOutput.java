@@ -0,0 +1,126 @@
+package com.mycompany.httpserver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Objects;
+
+/**
+ * Salida bufferizada del motor bloqueante. Los archivos grandes se envían con
+ * transferTo directo al socket: memoria constante por conexión, sin copiar al heap.
+ * Headers y cuerpo grandes salen juntos en una escritura gathering; las respuestas
+ * pequeñas se acumulan en el buffer para agrupar las de un pipeline.
+ * La usa solo el hilo de la conexión: no hay monitores (BufferedOutputStream los usa y
+ * fijan el hilo virtual a su portador mientras se bloquea en el socket).
+ */
+final class SocketChannelOutput extends OutputStream implements ZeroCopyOutput, GatheringOutput {
+
+    private final SocketChannel channel;
+    private final ResponseWriter.Head head = new ResponseWriter.Head();
+    private final byte[] buf;
+    private int count;
+    private long written;
+
+    SocketChannelOutput(SocketChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buf = new byte[bufferSize];
+    }
+
+    @Override
+    public ResponseWriter.Head headerBuffer() {
+        return head;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == buf.length) flushBuffer();
+        buf[count++] = (byte) b;
+        written++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        written += len;
+        if (len >= buf.length) {
+            // Más grande que el buffer: lo pendiente y esto salen directo
+            flushBuffer();
+            writeFully(ByteBuffer.wrap(b, off, len));
+            return;
+        }
+        if (len > buf.length - count) flushBuffer();
+        System.arraycopy(b, off, buf, count, len);
+        count += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (count == 0) return;
+        writeFully(ByteBuffer.wrap(buf, 0, count));
+        count = 0;
+    }
+
+    private void writeFully(ByteBuffer b) throws IOException {
+        while (b.hasRemaining()) channel.write(b);
+    }
+
+    @Override
+    public long bytesWritten() {
+        return written;
+    }
+
+    @Override
+    public void writeGathered(ByteBuffer... buffers) throws IOException {
+        long total = 0;
+        for (ByteBuffer b : buffers) total += b.remaining();
+        written += total;
+        if (total <= buf.length - count) {
+            // Cabe en el buffer: se agrupa con lo pendiente (se envía en el próximo flush)
+            for (ByteBuffer b : buffers) {
+                int n = b.remaining();
+                b.get(buf, count, n);
+                count += n;
+            }
+            return;
+        }
+        // Lo pendiente + headers + cuerpo en una sola llamada write(ByteBuffer[])
+        ByteBuffer[] all = buffers;
+        if (count > 0) {
+            all = new ByteBuffer[buffers.length + 1];
+            all[0] = ByteBuffer.wrap(buf, 0, count);
+            System.arraycopy(buffers, 0, all, 1, buffers.length);
+        }
+        long left = total + count;
+        while (left > 0) left -= channel.write(all);
+        count = 0;
+    }
+
+    @Override
+    public void transferFrom(FileChannel file, long position, long count) throws IOException {
+        try (file) {
+            flush(); // headers primero
+            written += count;
+            long end = position + count;
+            while (position < end) {
+                long n = file.transferTo(position, end - position, channel);
+                if (n <= 0 && position >= file.size()) throw new IOException("El archivo se truncó durante el envío");
+                position += n;
+            }
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.mycompany.httpserver;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Caché en memoria de archivos estáticos: ruta normalizada -> headers ya codificados + bytes.
+ * - Acotada por bytes (http.staticCacheBytes); al excederse expulsa las menos usadas (LRU aproximado).
+ * - Un {@link WatchService} sobre las carpetas de estáticos invalida las entradas que cambian.
+ * Un acierto no toca el sistema de archivos.
+ * Cada versión de un archivo lleva su ETag fuerte (hash del contenido, calculado una sola vez)
+ * y su Last-Modified, para responder 304 a las peticiones condicionales.
+ */
+final class StaticAssetCache {
+
+    /**
+     * Validadores de una versión de archivo: ETag, Last-Modified y política de caché.
+     * lines trae "ETag: ...\r\nLast-Modified: ...\r\nCache-Control: ...\r\n" ya codificado
+     * (es todo lo que lleva un 304).
+     */
+    record Validators(long size, long lastModified, String etag, String cacheControl, byte[] lines) {
+
+        static Validators of(long size, long lastModified, String etag, String cacheControl) {
+            byte[] lines = ("ETag: " + etag + "\r\n"
+                    + "Last-Modified: " + httpDate(lastModified) + "\r\n"
+                    + "Cache-Control: " + cacheControl + "\r\n").getBytes(StandardCharsets.ISO_8859_1);
+            return new Validators(size, lastModified, etag, cacheControl, lines);
+        }
+    }
+
+    /** Archivo listo para enviarse. */
+    static final class Entry {
+        final String key;
+        final Path file;
+        final String contentType;
+        final Validators validators;
+        final byte[] headers;      // Content-Type, Content-Length, Accept-Ranges + validadores
+        final byte[] body;
+        volatile long lastAccess;
+
+        Entry(String key, Path file, String contentType, String cacheControl, long lastModified, byte[] body) {
+            this.key = key;
+            this.file = file;
+            this.contentType = contentType;
+            this.body = body;
+            this.validators = Validators.of(body.length, lastModified, etagOf(body), cacheControl);
+            byte[] fixed = ("Content-Type: " + contentType + "\r\n"
+                    + "Content-Length: " + body.length + "\r\n"
+                    + "Accept-Ranges: bytes\r\n").getBytes(StandardCharsets.ISO_8859_1);
+            this.headers = Arrays.copyOf(fixed, fixed.length + validators.lines().length);
+            System.arraycopy(validators.lines(), 0, headers, fixed.length, validators.lines().length);
+        }
+
+        /** Bytes retenidos: cuerpo y headers (que ya incluyen las líneas de validadores). */
+        long weight() {
+            return body.length + headers.length;
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLong generation = new AtomicLong(); // cambia con cada invalidación
+    private final Object evictLock = new Object();
+    private volatile long maxBytes;
+
+    // ETag de archivos que no entran en caché (se transmiten): ruta -> validadores de la última versión vista
+    private final Map<Path, Validators> streamed = new ConcurrentHashMap<>();
+
+    private WatchService watcher;
+    private final Map<WatchKey, Path[]> watched = new ConcurrentHashMap<>(); // key -> {raíz, carpeta}
+
+    StaticAssetCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    void maxBytes(long max) {
+        this.maxBytes = Math.max(0, max);
+        evictIfNeeded();
+    }
+
+    long usedBytes() {
+        return usedBytes.get();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /** Entrada en caché o null; no hace ninguna llamada al sistema de archivos. */
+    Entry get(String key) {
+        Entry e = entries.get(key);
+        if (e != null) e.lastAccess = clock.incrementAndGet();
+        return e;
+    }
+
+    /** Tomar antes de leer el archivo y pasarla a {@link #load}. */
+    long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Crea la entrada para un archivo ya resuelto y la guarda si cabe en el presupuesto.
+     * Si hubo una invalidación desde {@code gen} no se guarda (podría ser contenido viejo).
+     */
+    Entry load(String key, Path file, String contentType, String cacheControl, long lastModified, byte[] body, long gen) {
+        Entry e = new Entry(key, file, contentType, cacheControl, lastModified, body);
+        e.lastAccess = clock.incrementAndGet();
+        // Un archivo que ocupa más de un cuarto del presupuesto no se cachea
+        if (e.weight() > maxBytes / 4 || gen != generation.get()) return e;
+        Entry old = entries.put(key, e);
+        usedBytes.addAndGet(e.weight() - (old == null ? 0 : old.weight()));
+        // Una invalidación entre la comprobación y el put: se retira lo recién guardado
+        if (gen != generation.get()) {
+            if (entries.remove(key, e)) usedBytes.addAndGet(-e.weight());
+            return e;
+        }
+        evictIfNeeded();
+        return e;
+    }
+
+    /**
+     * Validadores de un archivo que se envía sin pasar por la caché. El hash se calcula
+     * leyendo el archivo una sola vez por versión (tamaño + fecha de modificación).
+     */
+    Validators validatorsFor(Path file, long size, long lastModified, String cacheControl) throws IOException {
+        Validators v = streamed.get(file);
+        if (v != null && v.size() == size && v.lastModified() == lastModified) {
+            return v.cacheControl().equals(cacheControl) ? v : Validators.of(size, lastModified, v.etag(), cacheControl);
+        }
+        v = Validators.of(size, lastModified, etagOf(file), cacheControl);
+        streamed.put(file, v);
+        return v;
+    }
+
+    void invalidate(String key) {
+        generation.incrementAndGet();
+        Entry old = entries.remove(key);
+        if (old != null) usedBytes.addAndGet(-old.weight());
+    }
+
+    void clear() {
+        generation.incrementAndGet(); // aunque esté vacía: una carga en curso no debe guardarse
+        streamed.clear();
+        for (String k : new ArrayList<>(entries.keySet())) invalidate(k);
+    }
+
+    private void evictIfNeeded() {
+        if (usedBytes.get() <= maxBytes) return;
+        synchronized (evictLock) {
+            if (usedBytes.get() <= maxBytes) return;
+            List<Entry> byAge = new ArrayList<>(entries.values());
+            byAge.sort(Comparator.comparingLong(x -> x.lastAccess));
+            for (Entry e : byAge) {
+                if (usedBytes.get() <= maxBytes) break;
+                if (entries.remove(e.key, e)) usedBytes.addAndGet(-e.weight());
+            }
+        }
+    }
+
+    // ================== ETag y fechas HTTP ==================
+    private static final DateTimeFormatter HTTP_DATE =
+            DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
+
+    /** Fecha en formato IMF-fixdate (RFC 9110), con precisión de segundos. */
+    static String httpDate(long millis) {
+        return HTTP_DATE.format(Instant.ofEpochMilli(millis));
+    }
+
+    /** Milisegundos de una fecha HTTP, o -1 si no se puede interpretar. */
+    static long parseHttpDate(String value) {
+        if (value == null) return -1;
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    /** ETag fuerte: primeros 128 bits del SHA-256 del contenido, en hex y entre comillas. */
+    static String etagOf(byte[] body) {
+        MessageDigest md = sha256();
+        md.update(body);
+        return quote(md.digest());
+    }
+
+    private static String etagOf(Path file) throws IOException {
+        MessageDigest md = sha256();
+        try (FileChannel fc = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer chunk = ByteBuffer.allocate(64 * 1024);
+            while (fc.read(chunk) >= 0) {
+                chunk.flip();
+                md.update(chunk);
+                chunk.clear();
+            }
+        }
+        return quote(md.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // todo JRE trae SHA-256
+        }
+    }
+
+    private static String quote(byte[] digest) {
+        return '"' + HexFormat.of().formatHex(digest, 0, 16) + '"';
+    }
+
+    // ================== Invalidación por cambios en disco ==================
+    /**
+     * Vigila (recursivamente) las carpetas raíz. Un cambio en raiz/css/app.css invalida "/css/app.css";
+     * si se pierden eventos (OVERFLOW) se vacía toda la caché.
+     */
+    synchronized void watch(Path... roots) {
+        try {
+            if (watcher == null) {
+                watcher = FileSystems.getDefault().newWatchService();
+                Thread t = new Thread(this::watchLoop, "static-cache-watcher");
+                t.setDaemon(true);
+                t.start();
+            }
+            for (Path root : roots) {
+                if (root != null && Files.isDirectory(root)) registerTree(root.toAbsolutePath().normalize(), root.toAbsolutePath().normalize());
+            }
+        } catch (IOException e) {
+            System.err.println("[staticfiles] No se pudo vigilar la carpeta de estáticos: " + e.getMessage());
+        }
+    }
+
+    private void registerTree(Path root, Path dir) throws IOException {
+        try (var dirs = Files.walk(dir)) {
+            for (Path d : (Iterable<Path>) dirs.filter(Files::isDirectory)::iterator) {
+                WatchKey k = d.register(watcher, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+                watched.put(k, new Path[]{root, d});
+            }
+        }
+    }
+
+    private void watchLoop() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watcher.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path[] rootAndDir = watched.get(key);
+            for (WatchEvent<?> ev : key.pollEvents()) {
+                if (ev.kind() == OVERFLOW || rootAndDir == null) {
+                    clear();
+                    continue;
+                }
+                Path changed = rootAndDir[1].resolve((Path) ev.context());
+                String rel = rootAndDir[0].relativize(changed).toString().replace('\\', '/');
+                invalidatePrefix("/" + rel);
+                if (ev.kind() == ENTRY_CREATE && Files.isDirectory(changed)) {
+                    try { registerTree(rootAndDir[0], changed); } catch (IOException ignored) {}
+                }
+            }
+            if (!key.reset()) watched.remove(key);
+        }
+    }
+
+    /** Invalida la entrada exacta y, si era una carpeta, todo lo que cuelga de ella. */
+    private void invalidatePrefix(String key) {
+        invalidate(key);
+        String dir = key.endsWith("/") ? key : key + "/";
+        for (String k : entries.keySet()) {
+            if (k.startsWith(dir)) invalidate(k);
+        }
+    }
+}
@@ -0,0 +1,471 @@
+package com.mycompany.httpserver;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Conexión WebSocket (RFC 6455) del lado servidor, sobre el socket de la petición que
+ * pidió el upgrade.
+ * - Un hilo (el de la conexión) lee frames: desenmascara, arma mensajes fragmentados,
+ *   responde ping con pong y completa el cierre.
+ * - Cualquier hilo puede enviar; los envíos se serializan con un lock. Los frames del
+ *   servidor no llevan máscara, así que un mismo frame ya codificado
+ *   ({@link #textFrame}) sirve para todos los clientes.
+ * - Sin actividad durante http.wsIdleTimeoutMs se manda un ping; si tampoco hay
+ *   respuesta en otro intervalo se cierra la conexión.
+ * No hay extensiones (permessage-deflate) ni subprotocolos.
+ */
+public final class WebSocket {
+
+    // Códigos de cierre (RFC 6455 §7.4.1)
+    public static final int NORMAL_CLOSURE = 1000;
+    public static final int GOING_AWAY = 1001;
+    public static final int PROTOCOL_ERROR = 1002;
+    public static final int UNSUPPORTED_DATA = 1003;
+    public static final int NO_STATUS = 1005;
+    public static final int ABNORMAL_CLOSURE = 1006;
+    public static final int INVALID_PAYLOAD = 1007;
+    public static final int MESSAGE_TOO_BIG = 1009;
+    public static final int INTERNAL_ERROR = 1011;
+
+    private static final String GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private static final int OP_CONTINUATION = 0x0, OP_TEXT = 0x1, OP_BINARY = 0x2;
+    private static final int OP_CLOSE = 0x8, OP_PING = 0x9, OP_PONG = 0xA;
+    private static final byte[] EMPTY = new byte[0];
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final SocketChannel channel;
+    private final InputStream in;
+    private final HttpRequest request;
+    private final WebSocketHandler handler;
+    private final int maxMessage;
+
+    // Escritura: un frame a la vez
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final byte[] header = new byte[10];
+    private volatile boolean closeSent;
+    private volatile boolean open = true;
+    private volatile Object attachment;
+
+    // Lectura (solo el hilo de la conexión)
+    private byte[] rbuf;
+    private int rpos, rlim;
+    private byte[] message = new byte[1024];
+    private int messageLen;
+    private int messageOp = -1;
+    private final byte[] mask = new byte[4];
+
+    private WebSocket(SocketChannel channel, InputStream in, byte[] leftover, HttpRequest request, WebSocketHandler handler) {
+        this.channel = channel;
+        this.in = in;
+        this.request = request;
+        this.handler = handler;
+        this.maxMessage = ServerConfig.wsMaxMessageBytes();
+        this.rbuf = new byte[Math.max(8 * 1024, leftover.length)];
+        System.arraycopy(leftover, 0, rbuf, 0, leftover.length);
+        this.rlim = leftover.length;
+    }
+
+    // ================== Handshake ==================
+    /**
+     * Valida la petición de upgrade, responde 101 y atiende la conexión hasta que se cierra.
+     * Si la petición no es un upgrade válido (o el handler la rechaza) responde 400/426 y retorna.
+     * El canal debe estar en modo bloqueante; {@code leftover} son bytes ya leídos tras la cabecera.
+     */
+    static void serve(SocketChannel channel, InputStream in, byte[] leftover,
+                      HttpRequest req, WebSocketHandler handler) throws IOException {
+        String key = req.getHeader("Sec-WebSocket-Key");
+        if (!hasToken(req.getHeader("Upgrade"), "websocket") || !hasToken(req.getHeader("Connection"), "upgrade")) {
+            reject(channel, 426, "Se requiere Upgrade: websocket");
+            return;
+        }
+        if (!"13".equals(trim(req.getHeader("Sec-WebSocket-Version")))) {
+            reject(channel, 426, "Versión de WebSocket no soportada (se admite 13)");
+            return;
+        }
+        if (!HttpRequestParser.HTTP_1_1.equals(req.getVersion()) || !validKey(key)) {
+            reject(channel, 400, "Handshake WebSocket inválido");
+            return;
+        }
+        String refused = handler.checkHandshake(req);
+        if (refused != null) {
+            reject(channel, 400, refused);
+            return;
+        }
+
+        ResponseWriter.Head head = new ResponseWriter.Head()
+                .status(HttpRequestParser.HTTP_1_1, 101)
+                .header("Upgrade", "websocket")
+                .header("Connection", "Upgrade")
+                .header("Sec-WebSocket-Accept", acceptKey(key.trim()))
+                .raw(CRLF);
+        writeFully(channel, head.asBuffer());
+
+        channel.socket().setSoTimeout(ServerConfig.wsIdleTimeoutMs());
+        new WebSocket(channel, in, leftover, req, handler).run();
+    }
+
+    /** Valor de Sec-WebSocket-Accept: base64(SHA-1(key + GUID)). */
+    public static String acceptKey(String key) {
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            byte[] digest = sha1.digest((key + GUID).getBytes(StandardCharsets.ISO_8859_1));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // todo JRE trae SHA-1
+        }
+    }
+
+    private static boolean validKey(String key) {
+        if (key == null) return false;
+        try {
+            return Base64.getDecoder().decode(key.trim()).length == 16;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static void reject(SocketChannel channel, int code, String reason) throws IOException {
+        byte[] body = reason.getBytes(StandardCharsets.UTF_8);
+        ResponseWriter.Head head = new ResponseWriter.Head()
+                .status(HttpRequestParser.HTTP_1_1, code)
+                .header(ResponseWriter.CONTENT_TYPE, ResponseWriter.TEXT_PLAIN)
+                .header(ResponseWriter.CONTENT_LENGTH, body.length);
+        if (code == 426) head.header("Upgrade", "websocket").header("Sec-WebSocket-Version", "13");
+        writeFully(channel, head.end(false).asBuffer(), ByteBuffer.wrap(body));
+    }
+
+    /** ¿La lista separada por comas contiene el token (sin distinguir mayúsculas)? */
+    static boolean hasToken(String header, String token) {
+        if (header == null) return false;
+        for (String t : header.split(",")) if (t.trim().equalsIgnoreCase(token)) return true;
+        return false;
+    }
+
+    private static String trim(String s) {
+        return s == null ? null : s.trim();
+    }
+
+    // ================== API ==================
+    /** Petición del handshake (path, query, headers). */
+    public HttpRequest request() {
+        return request;
+    }
+
+    public boolean isOpen() {
+        return open && !closeSent;
+    }
+
+    /** Estado del handler asociado a esta conexión. */
+    public void attach(Object attachment) {
+        this.attachment = attachment;
+    }
+
+    public Object attachment() {
+        return attachment;
+    }
+
+    public void sendText(String text) throws IOException {
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        send(OP_TEXT, utf8, 0, utf8.length);
+    }
+
+    public void sendBinary(byte[] data) throws IOException {
+        send(OP_BINARY, data, 0, data.length);
+    }
+
+    /** Envía un frame ya codificado con {@link #textFrame} o {@link #binaryFrame}. */
+    public void sendFrame(byte[] frame) throws IOException {
+        writeLock.lock();
+        try {
+            if (closeSent) throw new IOException("WebSocket cerrado");
+            writeFully(channel, ByteBuffer.wrap(frame));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void ping(byte[] payload) throws IOException {
+        if (payload.length > 125) throw new IllegalArgumentException("Un ping lleva a lo más 125 bytes");
+        send(OP_PING, payload, 0, payload.length);
+    }
+
+    /**
+     * Inicia el cierre: envía el frame de cierre (una sola vez) y espera el del cliente.
+     * No lanza: si el socket ya no sirve la conexión termina igual.
+     */
+    public void close(int code, String reason) {
+        writeLock.lock();
+        try {
+            if (closeSent) return;
+            byte[] r = reason == null ? EMPTY : reason.getBytes(StandardCharsets.UTF_8);
+            int len = Math.min(r.length, 123);
+            byte[] payload = new byte[2 + len];
+            payload[0] = (byte) (code >>> 8);
+            payload[1] = (byte) code;
+            System.arraycopy(r, 0, payload, 2, len);
+            writeFrame(OP_CLOSE, payload, 0, payload.length);
+        } catch (IOException ignored) {
+            // el cliente ya no está; el hilo lector lo notará
+        } finally {
+            closeSent = true;
+            writeLock.unlock();
+        }
+    }
+
+    // ================== Frames del servidor ==================
+    /** Frame de texto completo (sin máscara) listo para {@link #sendFrame}; se puede compartir. */
+    public static byte[] textFrame(byte[] utf8) {
+        return frame(OP_TEXT, utf8);
+    }
+
+    public static byte[] binaryFrame(byte[] data) {
+        return frame(OP_BINARY, data);
+    }
+
+    private static byte[] frame(int op, byte[] payload) {
+        byte[] h = new byte[10];
+        int n = encodeHeader(h, op, payload.length);
+        byte[] f = Arrays.copyOf(h, n + payload.length);
+        System.arraycopy(payload, 0, f, n, payload.length);
+        return f;
+    }
+
+    /** FIN + opcode y el largo en 1, 3 o 9 bytes. Retorna cuántos bytes ocupa el encabezado. */
+    private static int encodeHeader(byte[] h, int op, long len) {
+        h[0] = (byte) (0x80 | op);
+        if (len < 126) {
+            h[1] = (byte) len;
+            return 2;
+        }
+        if (len <= 0xFFFF) {
+            h[1] = 126;
+            h[2] = (byte) (len >>> 8);
+            h[3] = (byte) len;
+            return 4;
+        }
+        h[1] = 127;
+        for (int i = 0; i < 8; i++) h[2 + i] = (byte) (len >>> (56 - 8 * i));
+        return 10;
+    }
+
+    private void send(int op, byte[] payload, int off, int len) throws IOException {
+        writeLock.lock();
+        try {
+            if (closeSent) throw new IOException("WebSocket cerrado");
+            writeFrame(op, payload, off, len);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void writeFrame(int op, byte[] payload, int off, int len) throws IOException {
+        int n = encodeHeader(header, op, len);
+        writeFully(channel, ByteBuffer.wrap(header, 0, n), ByteBuffer.wrap(payload, off, len));
+    }
+
+    private static void writeFully(SocketChannel channel, ByteBuffer... bufs) throws IOException {
+        ByteBuffer last = bufs[bufs.length - 1];
+        while (last.hasRemaining() || bufs[0].hasRemaining()) channel.write(bufs);
+    }
+
+    // ================== Lectura ==================
+    /** Error que cierra la conexión con un código concreto. */
+    private static final class Failure extends IOException {
+        private static final long serialVersionUID = 1L;
+        final int code;
+
+        Failure(int code, String message) {
+            super(message);
+            this.code = code;
+        }
+    }
+
+    private void run() {
+        int code = ABNORMAL_CLOSURE;
+        String reason = "";
+        try {
+            handler.onOpen(this);
+            byte[] closePayload = readUntilClose();
+            if (closePayload != null) {
+                code = closePayload.length >= 2 ? ((closePayload[0] & 0xFF) << 8) | (closePayload[1] & 0xFF) : NO_STATUS;
+                reason = new String(closePayload, Math.min(2, closePayload.length),
+                        Math.max(0, closePayload.length - 2), StandardCharsets.UTF_8);
+                close(code == NO_STATUS ? NORMAL_CLOSURE : code, ""); // eco del cierre, si no lo iniciamos nosotros
+            } else {
+                close(GOING_AWAY, "Sin actividad");
+            }
+        } catch (Failure f) {
+            close(f.code, f.getMessage());
+            code = f.code;
+            reason = f.getMessage();
+        } catch (IOException e) {
+            // socket cerrado o sin respuesta: cierre anormal
+        } catch (RuntimeException e) {
+            System.err.println("[websocket] " + e);
+            close(INTERNAL_ERROR, "Error interno");
+            code = INTERNAL_ERROR;
+        } finally {
+            open = false;
+            try { channel.close(); } catch (IOException ignored) {}
+            try {
+                handler.onClose(this, code, reason);
+            } catch (RuntimeException e) {
+                System.err.println("[websocket] " + e);
+            }
+        }
+    }
+
+    /** Lee frames hasta el de cierre; retorna su payload (o null si se agotó la espera). */
+    private byte[] readUntilClose() throws IOException {
+        boolean pinged = false;
+        while (true) {
+            int b0;
+            try {
+                b0 = readByte();
+            } catch (SocketTimeoutException idle) {
+                if (pinged || closeSent) return null;
+                ping(EMPTY);
+                pinged = true;
+                continue;
+            }
+            pinged = false;
+
+            boolean fin = (b0 & 0x80) != 0;
+            int op = b0 & 0x0F;
+            if ((b0 & 0x70) != 0) throw new Failure(PROTOCOL_ERROR, "Bits RSV sin extensión negociada");
+            int b1 = readByte();
+            if ((b1 & 0x80) == 0) throw new Failure(PROTOCOL_ERROR, "Frame del cliente sin máscara");
+            long len = b1 & 0x7F;
+            if (len == 126) {
+                len = (readByte() << 8) | readByte();
+            } else if (len == 127) {
+                len = 0;
+                for (int i = 0; i < 8; i++) len = (len << 8) | readByte();
+                if (len < 0) throw new Failure(PROTOCOL_ERROR, "Largo inválido");
+            }
+            boolean control = op >= 0x8;
+            if (control && (!fin || len > 125)) throw new Failure(PROTOCOL_ERROR, "Frame de control inválido");
+            if (!control && messageLen + len > maxMessage) throw new Failure(MESSAGE_TOO_BIG, "Mensaje demasiado grande");
+            readFully(mask, 0, 4);
+
+            switch (op) {
+                case OP_TEXT, OP_BINARY, OP_CONTINUATION -> {
+                    if (op == OP_CONTINUATION) {
+                        if (messageOp < 0) throw new Failure(PROTOCOL_ERROR, "Continuación sin mensaje");
+                    } else {
+                        if (messageOp >= 0) throw new Failure(PROTOCOL_ERROR, "Se esperaba una continuación");
+                        messageOp = op;
+                    }
+                    int n = (int) len;
+                    if (messageLen + n > message.length) {
+                        message = Arrays.copyOf(message, Math.max(message.length * 2, messageLen + n));
+                    }
+                    readFully(message, messageLen, n);
+                    unmask(message, messageLen, n);
+                    messageLen += n;
+                    if (fin) deliver();
+                }
+                case OP_CLOSE -> {
+                    byte[] payload = readPayload((int) len);
+                    if (payload.length == 1) throw new Failure(PROTOCOL_ERROR, "Frame de cierre inválido");
+                    if (payload.length >= 2) {
+                        int code = ((payload[0] & 0xFF) << 8) | (payload[1] & 0xFF);
+                        if (!validCloseCode(code)) throw new Failure(PROTOCOL_ERROR, "Código de cierre inválido");
+                        decodeUtf8(payload, 2, payload.length - 2);
+                    }
+                    return payload;
+                }
+                case OP_PING -> {
+                    byte[] payload = readPayload((int) len);
+                    writeLock.lock();
+                    try {
+                        if (!closeSent) writeFrame(OP_PONG, payload, 0, payload.length);
+                    } finally {
+                        writeLock.unlock();
+                    }
+                }
+                case OP_PONG -> readPayload((int) len);
+                default -> throw new Failure(PROTOCOL_ERROR, "Opcode desconocido: " + op);
+            }
+        }
+    }
+
+    private void deliver() throws IOException {
+        int op = messageOp;
+        int len = messageLen;
+        messageOp = -1;
+        messageLen = 0;
+        if (op == OP_TEXT) {
+            String text = decodeUtf8(message, 0, len);
+            if (!closeSent) handler.onText(this, text);
+        } else if (!closeSent) {
+            handler.onBinary(this, Arrays.copyOf(message, len));
+        }
+        if (message.length > 64 * 1024) message = new byte[1024]; // no retener un buffer grande
+    }
+
+    private static boolean validCloseCode(int code) {
+        return (code >= 1000 && code <= 1003) || (code >= 1007 && code <= 1011) || (code >= 3000 && code <= 4999);
+    }
+
+    /** UTF-8 estricto: una secuencia inválida cierra con 1007. */
+    private static String decodeUtf8(byte[] b, int off, int len) throws Failure {
+        try {
+            CharBuffer chars = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(b, off, len));
+            return chars.toString();
+        } catch (CharacterCodingException e) {
+            throw new Failure(INVALID_PAYLOAD, "Texto con UTF-8 inválido");
+        }
+    }
+
+    private byte[] readPayload(int len) throws IOException {
+        byte[] p = len == 0 ? EMPTY : new byte[len];
+        readFully(p, 0, len);
+        unmask(p, 0, len);
+        return p;
+    }
+
+    private void unmask(byte[] b, int off, int len) {
+        for (int i = 0; i < len; i++) b[off + i] ^= mask[i & 3];
+    }
+
+    private int readByte() throws IOException {
+        if (rpos == rlim) fill();
+        return rbuf[rpos++] & 0xFF;
+    }
+
+    private void readFully(byte[] dst, int off, int len) throws IOException {
+        while (len > 0) {
+            if (rpos == rlim) fill();
+            int n = Math.min(len, rlim - rpos);
+            System.arraycopy(rbuf, rpos, dst, off, n);
+            rpos += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    private void fill() throws IOException {
+        int n = in.read(rbuf, 0, rbuf.length);
+        if (n < 0) throw new EOFException("El cliente cerró la conexión");
+        rpos = 0;
+        rlim = n;
+    }
+}
@@ -0,0 +1,31 @@
+package com.mycompany.httpserver;
+
+/**
+ * Handler de una ruta WebSocket ({@link HttpServer#websocket}). Una misma instancia atiende
+ * todas las conexiones: el estado de cada una se guarda en {@link WebSocket#attach}.
+ * Los métodos se llaman desde el hilo lector de la conexión, en orden.
+ */
+public interface WebSocketHandler {
+
+    /**
+     * Antes del 101: un mensaje rechaza el handshake con 400 (p.ej. parámetros inválidos);
+     * null lo acepta.
+     */
+    default String checkHandshake(HttpRequest request) {
+        return null;
+    }
+
+    /** Conexión establecida (ya salió el 101). */
+    default void onOpen(WebSocket ws) {}
+
+    /** Mensaje de texto completo (UTF-8 ya validado). */
+    void onText(WebSocket ws, String message);
+
+    /** Mensaje binario completo. Por defecto se cierra con 1003 (tipo no admitido). */
+    default void onBinary(WebSocket ws, byte[] message) {
+        ws.close(WebSocket.UNSUPPORTED_DATA, "Solo mensajes de texto");
+    }
+
+    /** Fin de la conexión; se llama una sola vez. code es 1006 si no hubo frame de cierre. */
+    default void onClose(WebSocket ws, int code, String reason) {}
+}
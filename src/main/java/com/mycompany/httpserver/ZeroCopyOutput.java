@@ -0,0 +1,18 @@
+package com.mycompany.httpserver;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * Salida de respuesta capaz de enviar un tramo de archivo sin pasarlo por el heap
+ * (sendfile vía {@link FileChannel#transferTo}). La salida se queda con el canal
+ * y lo cierra cuando termina de enviarlo.
+ */
+interface ZeroCopyOutput {
+
+    /** Encola/envía count bytes del archivo desde position, después de lo ya escrito. */
+    void transferFrom(FileChannel file, long position, long count) throws IOException;
+
+    /** Tramo de archivo pendiente de envío. */
+    record FileRegion(FileChannel file, long position, long count) {}
+}
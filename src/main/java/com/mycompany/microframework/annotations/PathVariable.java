@@ -0,0 +1,14 @@
+package microframework.annotations;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/** Extrae una variable de la ruta (/stocks/{symbol}) con defaultValue opcional */
+@Retention(RUNTIME)
+@Target(PARAMETER)
+public @interface PathVariable {
+    String value();
+    String defaultValue() default "";
+}
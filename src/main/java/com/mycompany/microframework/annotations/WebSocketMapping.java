@@ -0,0 +1,13 @@
+package microframework.annotations;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/** Mapea una ruta WebSocket al handler que retorna el método (sin parámetros; se llama una vez) */
+@Retention(RUNTIME)
+@Target(METHOD)
+public @interface WebSocketMapping {
+    String value();
+}
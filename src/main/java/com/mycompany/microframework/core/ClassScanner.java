@@ -8,7 +8,10 @@ import java.util.List;
 
 public class ClassScanner {
 
-    /** Escanea el classpath por clases bajo basePackage con @RestController */
+    /**
+     * Escanea el classpath por clases bajo basePackage con @RestController.
+     * Solo recorre directorios (no jars); el arranque normal usa {@link ControllerIndex}.
+     */
     public static List<Class<?>> findControllers(String basePackage) {
         List<Class<?>> out = new ArrayList<>();
         String path = basePackage.replace('.', '/');
@@ -35,7 +38,8 @@ public class ClassScanner {
             } else if (f.getName().endsWith(".class")) {
                 String clsName = basePackage + "." + f.getName().substring(0, f.getName().length() - 6);
                 try {
-                    Class<?> c = Class.forName(clsName);
+                    // Sin inicializar: solo se mira la anotación
+                    Class<?> c = Class.forName(clsName, false, Thread.currentThread().getContextClassLoader());
                     if (c.isAnnotationPresent(microframework.annotations.RestController.class)) {
                         out.add(c);
                     }
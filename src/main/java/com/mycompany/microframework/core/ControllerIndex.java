@@ -0,0 +1,56 @@
+package com.mycompany.microframework.core;
+
+import com.mycompany.microframework.processor.RouteIndexProcessor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lee el índice de controladores que genera {@link RouteIndexProcessor} al compilar.
+ * Se une el de cada entrada del classpath (directorios o jars) sin cargar ninguna clase:
+ * el arranque cuesta lo mismo sin importar cuántas clases tenga la aplicación.
+ */
+public final class ControllerIndex {
+
+    /** Un controlador y las rutas que declaró ("GET /ruta", "WS /ruta"). */
+    public record Entry(String className, List<String> routes) {}
+
+    private ControllerIndex() {}
+
+    /** Controladores bajo basePackage (null o "" = todos), en el orden del índice; vacío si no hay índice. */
+    public static List<Entry> load(ClassLoader loader, String basePackage) throws IOException {
+        Map<String, Entry> out = new LinkedHashMap<>();
+        String prefix = basePackage == null || basePackage.isEmpty() ? "" : basePackage + ".";
+        Enumeration<URL> resources = loader.getResources(RouteIndexProcessor.INDEX);
+        while (resources.hasMoreElements()) {
+            URL url = resources.nextElement();
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+                List<String> current = null;
+                for (String line; (line = in.readLine()) != null; ) {
+                    if (line.isBlank() || line.startsWith("#")) continue;
+                    if (Character.isWhitespace(line.charAt(0))) {
+                        if (current != null) current.add(line.trim());
+                        continue;
+                    }
+                    String name = line.trim();
+                    current = null;
+                    if (name.startsWith(prefix) && !out.containsKey(name)) { // el primero del classpath gana
+                        current = new ArrayList<>();
+                        out.put(name, new Entry(name, current));
+                    }
+                }
+            }
+        }
+        List<Entry> list = new ArrayList<>(out.size());
+        for (Entry e : out.values()) list.add(new Entry(e.className(), List.copyOf(e.routes())));
+        return list;
+    }
+}
@@ -0,0 +1,257 @@
+package com.mycompany.microframework.core;
+
+import com.mycompany.httpserver.AsyncService;
+import com.mycompany.httpserver.HttpRequest;
+import com.mycompany.httpserver.HttpResponse;
+import com.mycompany.httpserver.Service;
+import microframework.annotations.PathVariable;
+import microframework.annotations.RequestParam;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+/**
+ * Invocador precompilado de un método @GetMapping.
+ * Al registrar se resuelve una vez por parámetro qué valor recibe y cómo convertirlo
+ * (el "plan"), y el método se enlaza como {@link MethodHandle} con aridad fija.
+ * Por petición solo se ejecutan los binders y una llamada invokeExact: sin reflexión
+ * ni arreglo de argumentos (salvo métodos con más de 6 parámetros).
+ * Los métodos que retornan un {@link CompletionStage} se registran envueltos en
+ * {@link #async()}, que el servidor completa sin esperar en un hilo.
+ */
+abstract class HandlerInvoker implements Service {
+
+    /** Obtiene el valor de un parámetro a partir de la petición. */
+    @FunctionalInterface
+    interface ParamBinder {
+        Object bind(HttpRequest req, HttpResponse resp);
+    }
+
+    private static final int MAX_FIXED_ARITY = 6;
+
+    final String description;
+    final ParamBinder[] binders;
+
+    HandlerInvoker(Method method, ParamBinder[] binders) {
+        this.description = method.toString();
+        this.binders = binders;
+    }
+
+    /** Crea el invocador: valida el método, arma el plan y enlaza el MethodHandle. */
+    static HandlerInvoker create(Object controller, Method m) {
+        Parameter[] params = m.getParameters();
+        ParamBinder[] binders = new ParamBinder[params.length];
+        for (int i = 0; i < params.length; i++) binders[i] = binderFor(params[i]);
+
+        MethodHandle mh;
+        try {
+            m.setAccessible(true);
+            mh = MethodHandles.lookup().unreflect(m).bindTo(controller);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("No se puede acceder al método: " + m, e);
+        }
+
+        int n = params.length;
+        if (n > MAX_FIXED_ARITY) {
+            MethodHandle spread = mh.asType(MethodType.genericMethodType(n)).asSpreader(Object[].class, n);
+            return new Spread(m, binders, spread);
+        }
+        // Firma genérica (Object...)Object: permite invokeExact sin conocer los tipos concretos
+        MethodHandle generic = mh.asType(MethodType.genericMethodType(n));
+        return switch (n) {
+            case 0 -> new Arity0(m, binders, generic);
+            case 1 -> new Arity1(m, binders, generic);
+            case 2 -> new Arity2(m, binders, generic);
+            case 3 -> new Arity3(m, binders, generic);
+            case 4 -> new Arity4(m, binders, generic);
+            case 5 -> new Arity5(m, binders, generic);
+            default -> new Arity6(m, binders, generic);
+        };
+    }
+
+    @Override
+    public final String handle(HttpRequest req, HttpResponse resp) {
+        try {
+            Object out = call(req, resp);
+            return out == null ? "" : out.toString();
+        } catch (Throwable t) {
+            return failure(resp, t);
+        }
+    }
+
+    /** Mismo cuerpo de error para handlers síncronos y asíncronos. */
+    static String failure(HttpResponse resp, Throwable t) {
+        if (!resp.isCommitted()) resp.setStatus(500).setContentType("text/plain; charset=utf-8");
+        return "500 Internal Server Error\n" + t.getClass().getSimpleName() + ": " + t.getMessage();
+    }
+
+    /** Vista asíncrona: el método retorna una etapa cuyo valor es el cuerpo. */
+    AsyncService async() {
+        return new Async(this);
+    }
+
+    private record Async(HandlerInvoker invoker) implements AsyncService {
+        @Override
+        public CompletionStage<?> handleAsync(HttpRequest req, HttpResponse resp) {
+            Object out;
+            try {
+                out = invoker.call(req, resp);
+            } catch (Throwable t) {
+                return CompletableFuture.completedFuture(failure(resp, t));
+            }
+            if (out == null) return null;
+            return ((CompletionStage<?>) out).handle((v, t) -> {
+                if (t == null) return v;
+                return failure(resp, t instanceof CompletionException && t.getCause() != null ? t.getCause() : t);
+            });
+        }
+
+        @Override
+        public String toString() {
+            return invoker.description;
+        }
+    }
+
+    abstract Object call(HttpRequest req, HttpResponse resp) throws Throwable;
+
+    @Override
+    public String toString() {
+        return description;
+    }
+
+    // ================== Plan de parámetros ==================
+    private static ParamBinder binderFor(Parameter p) {
+        Class<?> type = p.getType();
+        if (type.equals(HttpRequest.class)) return (req, resp) -> req;
+        if (type.equals(HttpResponse.class)) return (req, resp) -> resp;
+
+        PathVariable pv = p.getAnnotation(PathVariable.class);
+        if (pv != null) {
+            String name = pv.value();
+            Object def = converterFor(type).apply(pv.defaultValue());
+            Function<String, Object> conv = converterFor(type);
+            return (req, resp) -> {
+                String v = req.getPathVariable(name);
+                return (v == null || v.isEmpty()) ? def : conv.apply(v);
+            };
+        }
+
+        RequestParam rp = p.getAnnotation(RequestParam.class);
+        if (rp != null) {
+            String name = rp.value();
+            Object def = converterFor(type).apply(rp.defaultValue());
+            Function<String, Object> conv = converterFor(type);
+            return (req, resp) -> {
+                String v = req.getParam(name); // query parseada una sola vez por request
+                return v == null ? def : conv.apply(v);
+            };
+        }
+
+        // Solo soportamos parámetros anotados (además de HttpRequest/HttpResponse)
+        return (req, resp) -> null;
+    }
+
+    /** Conversión String -> tipo del parámetro, resuelta una sola vez al registrar. */
+    static Function<String, Object> converterFor(Class<?> target) {
+        if (target.equals(int.class) || target.equals(Integer.class))
+            return v -> (v == null || v.isEmpty()) ? 0 : Integer.parseInt(v);
+        if (target.equals(long.class) || target.equals(Long.class))
+            return v -> (v == null || v.isEmpty()) ? 0L : Long.parseLong(v);
+        if (target.equals(double.class) || target.equals(Double.class))
+            return v -> (v == null || v.isEmpty()) ? 0.0 : Double.parseDouble(v);
+        if (target.equals(boolean.class) || target.equals(Boolean.class))
+            return Boolean::parseBoolean;
+        return v -> v;
+    }
+
+    // ================== Invocadores por aridad ==================
+    private static final class Arity0 extends HandlerInvoker {
+        private final MethodHandle mh;
+        Arity0(Method m, ParamBinder[] b, MethodHandle mh) { super(m, b); this.mh = mh; }
+        @Override Object call(HttpRequest r, HttpResponse s) throws Throwable {
+            return (Object) mh.invokeExact();
+        }
+    }
+
+    private static final class Arity1 extends HandlerInvoker {
+        private final MethodHandle mh;
+        private final ParamBinder b0;
+        Arity1(Method m, ParamBinder[] b, MethodHandle mh) { super(m, b); this.mh = mh; b0 = b[0]; }
+        @Override Object call(HttpRequest r, HttpResponse s) throws Throwable {
+            return (Object) mh.invokeExact(b0.bind(r, s));
+        }
+    }
+
+    private static final class Arity2 extends HandlerInvoker {
+        private final MethodHandle mh;
+        private final ParamBinder b0, b1;
+        Arity2(Method m, ParamBinder[] b, MethodHandle mh) { super(m, b); this.mh = mh; b0 = b[0]; b1 = b[1]; }
+        @Override Object call(HttpRequest r, HttpResponse s) throws Throwable {
+            return (Object) mh.invokeExact(b0.bind(r, s), b1.bind(r, s));
+        }
+    }
+
+    private static final class Arity3 extends HandlerInvoker {
+        private final MethodHandle mh;
+        private final ParamBinder b0, b1, b2;
+        Arity3(Method m, ParamBinder[] b, MethodHandle mh) {
+            super(m, b); this.mh = mh; b0 = b[0]; b1 = b[1]; b2 = b[2];
+        }
+        @Override Object call(HttpRequest r, HttpResponse s) throws Throwable {
+            return (Object) mh.invokeExact(b0.bind(r, s), b1.bind(r, s), b2.bind(r, s));
+        }
+    }
+
+    private static final class Arity4 extends HandlerInvoker {
+        private final MethodHandle mh;
+        private final ParamBinder b0, b1, b2, b3;
+        Arity4(Method m, ParamBinder[] b, MethodHandle mh) {
+            super(m, b); this.mh = mh; b0 = b[0]; b1 = b[1]; b2 = b[2]; b3 = b[3];
+        }
+        @Override Object call(HttpRequest r, HttpResponse s) throws Throwable {
+            return (Object) mh.invokeExact(b0.bind(r, s), b1.bind(r, s), b2.bind(r, s), b3.bind(r, s));
+        }
+    }
+
+    private static final class Arity5 extends HandlerInvoker {
+        private final MethodHandle mh;
+        private final ParamBinder b0, b1, b2, b3, b4;
+        Arity5(Method m, ParamBinder[] b, MethodHandle mh) {
+            super(m, b); this.mh = mh; b0 = b[0]; b1 = b[1]; b2 = b[2]; b3 = b[3]; b4 = b[4];
+        }
+        @Override Object call(HttpRequest r, HttpResponse s) throws Throwable {
+            return (Object) mh.invokeExact(b0.bind(r, s), b1.bind(r, s), b2.bind(r, s),
+                    b3.bind(r, s), b4.bind(r, s));
+        }
+    }
+
+    private static final class Arity6 extends HandlerInvoker {
+        private final MethodHandle mh;
+        private final ParamBinder b0, b1, b2, b3, b4, b5;
+        Arity6(Method m, ParamBinder[] b, MethodHandle mh) {
+            super(m, b); this.mh = mh; b0 = b[0]; b1 = b[1]; b2 = b[2]; b3 = b[3]; b4 = b[4]; b5 = b[5];
+        }
+        @Override Object call(HttpRequest r, HttpResponse s) throws Throwable {
+            return (Object) mh.invokeExact(b0.bind(r, s), b1.bind(r, s), b2.bind(r, s),
+                    b3.bind(r, s), b4.bind(r, s), b5.bind(r, s));
+        }
+    }
+
+    /** Más de 6 parámetros: un arreglo por llamada (caso raro). */
+    private static final class Spread extends HandlerInvoker {
+        private final MethodHandle mh;
+        Spread(Method m, ParamBinder[] b, MethodHandle mh) { super(m, b); this.mh = mh; }
+        @Override Object call(HttpRequest r, HttpResponse s) throws Throwable {
+            Object[] args = new Object[binders.length];
+            for (int i = 0; i < args.length; i++) args[i] = binders[i].bind(r, s);
+            return (Object) mh.invokeExact(args);
+        }
+    }
+}
@@ -8,7 +8,8 @@ import java.util.List;
 /**
  * Arranca el HttpServer y registra controladores:
  *  1) Con args: carga solo esos FQCN (versión inicial).
- *  2) Sin args: escanea el paquete base (versión final).
+ *  2) Sin args: los del paquete base según el índice generado al compilar
+ *     ({@link ControllerIndex}); sin índice, escanea el paquete base.
  * Importante: registrar rutas ANTES de startServer().
  */
 public class MicroSpringBoot
@@ -33,16 +34,26 @@ public class MicroSpringBoot
                 System.out.println("[ioc] GET routes loaded from " + fqcn);
             }
         } else {
-            // Versión final: escaneo del paquete base
-            List<Class<?>> controllers = ClassScanner.findControllers(DEFAULT_BASE_PACKAGE);
-            for (Class<?> c : controllers) {
-                Object instance = newControllerInstance(c.getName());
-                ensureRestController(c);
+            // Versión final: índice generado por RouteIndexProcessor (funciona igual desde un jar)
+            List<ControllerIndex.Entry> indexed = ControllerIndex.load(MicroSpringBoot.class.getClassLoader(), DEFAULT_BASE_PACKAGE);
+            for (ControllerIndex.Entry e : indexed) {
+                Object instance = newControllerInstance(e.className());
+                ensureRestController(instance.getClass());
                 registry.register(instance);
-                System.out.println("[ioc] GET routes loaded (scan) " + c.getName());
+                System.out.println("[ioc] GET routes loaded (index) " + e.className() + " " + e.routes());
             }
-            if (controllers.isEmpty()) {
-                System.out.println("[ioc] No @RestController found under " + DEFAULT_BASE_PACKAGE);
+            if (indexed.isEmpty()) {
+                // Sin índice (compilado sin el processor): escaneo del paquete base
+                List<Class<?>> controllers = ClassScanner.findControllers(DEFAULT_BASE_PACKAGE);
+                for (Class<?> c : controllers) {
+                    Object instance = newControllerInstance(c.getName());
+                    ensureRestController(c);
+                    registry.register(instance);
+                    System.out.println("[ioc] GET routes loaded (scan) " + c.getName());
+                }
+                if (controllers.isEmpty()) {
+                    System.out.println("[ioc] No @RestController found under " + DEFAULT_BASE_PACKAGE);
+                }
             }
         }
 
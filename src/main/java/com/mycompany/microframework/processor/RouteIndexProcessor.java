@@ -0,0 +1,186 @@
+package com.mycompany.microframework.processor;
+
+import microframework.annotations.GetMapping;
+import microframework.annotations.RestController;
+import microframework.annotations.WebSocketMapping;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Genera en tiempo de compilación el índice de controladores que lee MicroSpringBoot al
+ * arrancar, en lugar de recorrer el classpath: META-INF/microframework/controllers.idx.
+ * Una línea por clase @RestController (nombre binario, apto para Class.forName) seguida de
+ * sus rutas indentadas ("GET /ruta", "WS /ruta"):
+ * <pre>
+ * com.mycompany.webapp.controllers.GreetingController
+ * 	GET /greeting
+ * </pre>
+ * Valida lo que fallaría al arrancar: el controlador debe ser una clase concreta de nivel
+ * superior (o anidada static) con constructor sin argumentos. Una ruta GET repetida en otro
+ * método es una advertencia (al registrar, la última reemplaza a la anterior).
+ * En una compilación incremental conserva las entradas del índice anterior cuyas clases
+ * siguen existiendo y anotadas.
+ */
+@SupportedAnnotationTypes({
+        "microframework.annotations.RestController",
+        "microframework.annotations.GetMapping",
+        "microframework.annotations.WebSocketMapping"
+})
+public final class RouteIndexProcessor extends AbstractProcessor {
+
+    public static final String INDEX = "META-INF/microframework/controllers.idx";
+
+    // Nombre binario -> rutas, en el orden en que se declaran
+    private final Map<String, List<String>> controllers = new TreeMap<>();
+    private final Map<String, String> getRoutes = new HashMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        for (Element e : round.getElementsAnnotatedWith(RestController.class)) {
+            if (e.getKind() != ElementKind.CLASS) {
+                error(e, "@RestController solo aplica a clases");
+                continue;
+            }
+            TypeElement type = (TypeElement) e;
+            if (validate(type)) controllers.put(binaryName(type), routes(type));
+        }
+        if (round.processingOver() && !round.errorRaised()) write();
+        return false;
+    }
+
+    private boolean validate(TypeElement type) {
+        boolean ok = true;
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+            error(type, "Un @RestController no puede ser abstracto");
+            ok = false;
+        }
+        if (type.getNestingKind() != NestingKind.TOP_LEVEL
+                && (type.getNestingKind() != NestingKind.MEMBER || !type.getModifiers().contains(Modifier.STATIC))) {
+            error(type, "Un @RestController anidado debe ser static");
+            ok = false;
+        }
+        boolean noArgs = false;
+        for (ExecutableElement c : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (c.getParameters().isEmpty()) noArgs = true;
+        }
+        if (!noArgs) {
+            error(type, "Un @RestController necesita un constructor sin argumentos");
+            ok = false;
+        }
+        return ok;
+    }
+
+    private List<String> routes(TypeElement type) {
+        List<String> out = new ArrayList<>();
+        for (ExecutableElement m : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            GetMapping get = m.getAnnotation(GetMapping.class);
+            if (get != null) {
+                String path = normalize(get.value());
+                String owner = type.getQualifiedName() + "#" + m.getSimpleName();
+                String previous = getRoutes.put(path, owner);
+                if (previous != null && !previous.equals(owner)) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                            "GET " + path + " ya está mapeada en " + previous, m);
+                }
+                out.add("GET " + path);
+            }
+            WebSocketMapping ws = m.getAnnotation(WebSocketMapping.class);
+            if (ws != null) out.add("WS " + normalize(ws.value()));
+        }
+        return out;
+    }
+
+    private void write() {
+        Map<String, List<String>> all = new LinkedHashMap<>(previousIndex());
+        all.putAll(controllers);
+        if (all.isEmpty()) return;
+        try {
+            FileObject f = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX);
+            try (Writer w = f.openWriter()) {
+                w.write("# Generado por " + RouteIndexProcessor.class.getName() + "; no editar.\n");
+                for (Map.Entry<String, List<String>> c : new TreeMap<>(all).entrySet()) {
+                    w.write(c.getKey());
+                    w.write('\n');
+                    for (String r : c.getValue()) {
+                        w.write('\t');
+                        w.write(r);
+                        w.write('\n');
+                    }
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "No se pudo escribir " + INDEX + ": " + e);
+        }
+    }
+
+    /** Entradas del índice ya compilado cuyas clases siguen siendo @RestController (compilación incremental). */
+    private Map<String, List<String>> previousIndex() {
+        Map<String, List<String>> out = new LinkedHashMap<>();
+        try {
+            FileObject f = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", INDEX);
+            try (Reader r = f.openReader(true); BufferedReader in = new BufferedReader(r)) {
+                List<String> current = null;
+                for (String line; (line = in.readLine()) != null; ) {
+                    if (line.isBlank() || line.startsWith("#")) continue;
+                    if (Character.isWhitespace(line.charAt(0))) {
+                        if (current != null) current.add(line.trim());
+                        continue;
+                    }
+                    String name = line.trim();
+                    TypeElement t = processingEnv.getElementUtils().getTypeElement(name.replace('$', '.'));
+                    current = null;
+                    if (t != null && t.getAnnotation(RestController.class) != null && !controllers.containsKey(name)) {
+                        current = new ArrayList<>();
+                        out.put(name, current);
+                    }
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // No hay índice previo (compilación completa)
+        }
+        return out;
+    }
+
+    private String binaryName(TypeElement type) {
+        return processingEnv.getElementUtils().getBinaryName(type).toString();
+    }
+
+    private void error(Element e, String msg) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg, e);
+    }
+
+    private static String normalize(String p) {
+        if (p == null || p.isEmpty()) return "/";
+        return p.startsWith("/") ? p : "/" + p;
+    }
+}
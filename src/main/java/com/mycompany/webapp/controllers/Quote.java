@@ -0,0 +1,62 @@
+package com.mycompany.webapp.controllers;
+
+import java.util.Locale;
+
+/**
+ * Cotización ficticia y determinista de un símbolo: los mismos números para el mismo
+ * ticker (se derivan de su hashCode). history trae 10 precios, del más viejo (t=9) al más nuevo (t=0).
+ */
+public record Quote(String symbol, String name, String exchange, String currency,
+                    double price, double change, double changePct,
+                    double open, double high, double low, double prevClose,
+                    long volume, double marketCap, double[] history) {
+
+    /** Calcula la cotización de un símbolo (se normaliza a mayúsculas). */
+    public static Quote mock(String symbol) {
+        String symU = symbol.toUpperCase(Locale.ROOT);
+        int h = Math.abs(symU.hashCode());
+
+        double base    = 50 + (h % 451); // 50..500
+        double cents   = ((h / 7) % 100) / 100.0;
+        double price   = base + cents;
+
+        double change  = ((h % 1001) / 100.0) - 5.0;      // -5.00 .. +5.00
+        double prev    = price - change;
+        double pct     = (change / prev) * 100.0;
+
+        double wiggle  = (h % 20) / 10.0;                  // 0.0 .. 1.9
+        double open    = prev + (change * 0.35);
+        double high    = Math.max(price, open) + wiggle;
+        double low     = Math.min(price, open) - wiggle;
+
+        long   volume  = 1_000_000L + (h % 5_000_000L);
+        long   shares  = 1_000_000_00L + (h % 900_000_00L); // acciones ficticias
+        double mcap    = price * shares;
+
+        String exchange = (h % 2 == 0) ? "NYSE" : "NASDAQ";
+
+        // Historial sintético (10 puntos)
+        double[] history = new double[10];
+        double p = prev;
+        for (int i = 9; i >= 0; i--) {
+            double delta = ((h % (i + 5)) - (i / 2.0)) / 50.0;
+            p = Math.max(1.0, p + delta);
+            history[9 - i] = p;
+        }
+
+        return new Quote(symU, companyNameFor(symU), exchange, "USD",
+                price, change, pct, open, high, low, prev, volume, mcap, history);
+    }
+
+    private static String companyNameFor(String symU) {
+        // Nombres ficticios pero razonables
+        if (symU.equals("AAPL")) return "Apple Inc.";
+        if (symU.equals("MSFT")) return "Microsoft Corporation";
+        if (symU.equals("GOOG") || symU.equals("GOOGL")) return "Alphabet Inc.";
+        if (symU.equals("AMZN")) return "Amazon.com, Inc.";
+        if (symU.equals("META") || symU.equals("FB")) return "Meta Platforms, Inc.";
+        if (symU.equals("TSLA")) return "Tesla, Inc.";
+        if (symU.equals("IBM"))  return "International Business Machines Corporation";
+        return symU + " Corporation";
+    }
+}
@@ -0,0 +1,146 @@
+package com.mycompany.webapp.controllers;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Caché de cotizaciones por símbolo (en mayúsculas): la cotización calculada y su JSON ya
+ * serializado, partido en dos alrededor de lastUpdate (el único campo que cambia por petición).
+ * - Cada entrada vence a los ttlMs de creada.
+ * - Acotada por cantidad (maxEntries); al excederse expulsa vencidas y menos usadas (LRU aproximado).
+ * - Cuenta aciertos y fallos.
+ * Un acierto es una búsqueda en el mapa; el cálculo de un fallo se hace fuera de cualquier lock.
+ */
+public final class QuoteCache {
+
+    /** Cotización lista para enviarse: head + lastUpdate + tail forman el documento. */
+    public static final class Entry {
+        final Quote quote;
+        final byte[] head;   // desde '{' hasta "lastUpdate":
+        final byte[] tail;   // desde la coma siguiente hasta '}'
+        long expiresAt;      // System.nanoTime()
+        volatile long lastAccess;
+
+        public Entry(Quote quote, byte[] head, byte[] tail) {
+            this.quote = quote;
+            this.head = head;
+            this.tail = tail;
+        }
+
+        public Quote quote() {
+            return quote;
+        }
+
+        public byte[] head() {
+            return head;
+        }
+
+        public byte[] tail() {
+            return tail;
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final Object evictLock = new Object();
+    private volatile long ttlNanos;
+    private volatile int maxEntries;
+
+    public QuoteCache(long ttlMs, int maxEntries) {
+        ttlMs(ttlMs);
+        maxEntries(maxEntries);
+    }
+
+    /** TTL en milisegundos; 0 desactiva la caché. Aplica a las entradas nuevas. */
+    public void ttlMs(long ms) {
+        this.ttlNanos = Math.max(0, ms) * 1_000_000L;
+    }
+
+    public long ttlMs() {
+        return ttlNanos / 1_000_000L;
+    }
+
+    public void maxEntries(int max) {
+        this.maxEntries = Math.max(0, max);
+        evictIfNeeded();
+    }
+
+    /**
+     * Entrada vigente del símbolo o, si falta o venció, la que calcula {@code loader}.
+     * Dos fallos simultáneos del mismo símbolo pueden calcularlo dos veces; gana el último.
+     */
+    public Entry get(String symbolU, Function<String, Entry> loader) {
+        long now = System.nanoTime();
+        Entry e = entries.get(symbolU);
+        if (e != null && now - e.expiresAt < 0) {
+            hits.incrementAndGet();
+            e.lastAccess = clock.incrementAndGet();
+            return e;
+        }
+        misses.incrementAndGet();
+        e = loader.apply(symbolU);
+        e.expiresAt = now + ttlNanos;
+        e.lastAccess = clock.incrementAndGet();
+        if (ttlNanos > 0 && maxEntries > 0) {
+            entries.put(symbolU, e);
+            evictIfNeeded();
+        }
+        return e;
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    public long evictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Al pasar el tope expulsa primero las vencidas y después las menos usadas, hasta dejar
+     * un octavo libre: así una ráfaga de símbolos distintos no ordena el mapa en cada inserción.
+     */
+    private void evictIfNeeded() {
+        if (entries.size() <= maxEntries) return;
+        synchronized (evictLock) {
+            int max = maxEntries;
+            if (entries.size() <= max) return;
+            int target = max - max / 8;
+            long now = System.nanoTime();
+            List<Map.Entry<String, Entry>> byAge = new ArrayList<>(entries.entrySet());
+            byAge.sort(Comparator.comparingLong(x -> x.getValue().lastAccess));
+            for (Map.Entry<String, Entry> x : byAge) {
+                if (now - x.getValue().expiresAt >= 0 && entries.remove(x.getKey(), x.getValue())) evictions.incrementAndGet();
+            }
+            for (Map.Entry<String, Entry> x : byAge) {
+                if (entries.size() <= target) break;
+                if (entries.remove(x.getKey(), x.getValue())) evictions.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "QuoteCache{size=" + size() + ", hits=" + hits() + ", misses=" + misses() + ", evictions=" + evictions() + "}";
+    }
+}
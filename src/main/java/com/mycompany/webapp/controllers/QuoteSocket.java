@@ -0,0 +1,170 @@
+package com.mycompany.webapp.controllers;
+
+import com.mycompany.httpserver.HttpRequest;
+import com.mycompany.httpserver.JsonWriter;
+import com.mycompany.httpserver.WebSocket;
+import com.mycompany.httpserver.WebSocketHandler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Canal WebSocket de cotizaciones: el cliente cambia sus símbolos sin reconectar.
+ * - Al conectar: ?symbols=AAPL,MSFT (opcional), ?format=binary para frames binarios
+ *   compactos ({@link TickPublisher.Tick#binaryFrame}) y ?policy=drop|coalesce.
+ * - Mensajes del cliente: {"action":"subscribe","symbols":["AAPL"]} /
+ *   {"action":"unsubscribe","symbols":["AAPL"]}, o en texto plano "subscribe AAPL,MSFT".
+ *   Cada uno se confirma con {"type":"subscribed","symbols":[...]} (la lista completa).
+ * - Cada conexión tiene un hilo virtual que toma los ticks de su suscripción y los envía;
+ *   los frames vienen ya codificados del publicador (uno por tick para todos los clientes).
+ */
+final class QuoteSocket implements WebSocketHandler {
+
+    private static final Pattern ACTION = Pattern.compile("\"action\"\\s*:\\s*\"(\\w+)\"");
+    private static final Pattern SYMBOLS = Pattern.compile("\"symbols\"\\s*:\\s*\\[([^\\]]*)]");
+
+    private final TickPublisher ticks;
+    private final int maxSymbols;
+    private final int queueCapacity;
+
+    QuoteSocket(TickPublisher ticks, int maxSymbols, int queueCapacity) {
+        this.ticks = ticks;
+        this.maxSymbols = maxSymbols;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /** Estado por conexión. */
+    private record Session(TickPublisher.Subscriber sub, boolean binary) {}
+
+    /** Los símbolos del query se validan antes del 101: uno inválido es un 400. */
+    @Override
+    public String checkHandshake(HttpRequest request) {
+        for (String v : request.getParams("symbols")) {
+            if (firstInvalid(v.split(",")) != null) return TickPublisher.INVALID_SYMBOL;
+        }
+        return null;
+    }
+
+    @Override
+    public void onOpen(WebSocket ws) {
+        boolean binary = "binary".equalsIgnoreCase(ws.request().getParam("format", ""));
+        TickPublisher.Policy policy = "drop".equalsIgnoreCase(ws.request().getParam("policy", ""))
+                ? TickPublisher.Policy.DROP : TickPublisher.Policy.COALESCE;
+        List<String> initial = new ArrayList<>();
+        for (String v : ws.request().getParams("symbols")) initial.addAll(parseSymbols(v.split(",")));
+        if (initial.size() > maxSymbols) initial = initial.subList(0, maxSymbols);
+
+        Session s = new Session(ticks.subscribe(initial, policy, queueCapacity), binary);
+        ws.attach(s);
+        Thread.ofVirtual().name("ws-quotes").start(() -> pump(ws, s));
+    }
+
+    /** Envía los ticks de la suscripción hasta que se cancela o el cliente deja de recibir. */
+    private void pump(WebSocket ws, Session s) {
+        List<TickPublisher.Tick> batch = new ArrayList<>();
+        try {
+            while (!s.sub().isClosed()) {
+                batch.clear();
+                s.sub().poll(1_000, batch);
+                for (TickPublisher.Tick t : batch) ws.sendFrame(s.binary() ? t.binaryFrame() : t.textFrame());
+            }
+        } catch (IOException e) {
+            ws.close(WebSocket.GOING_AWAY, "No se pudo enviar");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            ticks.unsubscribe(s.sub());
+        }
+    }
+
+    @Override
+    public void onText(WebSocket ws, String message) {
+        Session s = (Session) ws.attachment();
+        String action;
+        String[] raw;
+        String msg = message.trim();
+        if (msg.startsWith("{")) {
+            Matcher a = ACTION.matcher(msg);
+            Matcher l = SYMBOLS.matcher(msg);
+            action = a.find() ? a.group(1) : "";
+            raw = l.find() ? l.group(1).replace("\"", "").split(",") : new String[0];
+        } else {
+            String[] parts = msg.split("\\s+", 2);
+            action = parts[0];
+            raw = parts.length > 1 ? parts[1].split("[,\\s]+") : new String[0];
+        }
+
+        try {
+            if (firstInvalid(raw) != null) {
+                error(ws, TickPublisher.INVALID_SYMBOL);
+                return;
+            }
+            List<String> symbols = parseSymbols(raw);
+            switch (action.toLowerCase(Locale.ROOT)) {
+                case "subscribe" -> {
+                    for (String sym : symbols) {
+                        if (s.sub().symbols().size() >= maxSymbols) {
+                            error(ws, "Máximo " + maxSymbols + " símbolos por conexión");
+                            break;
+                        }
+                        ticks.add(s.sub(), sym);
+                    }
+                }
+                case "unsubscribe" -> {
+                    for (String sym : symbols) ticks.remove(s.sub(), sym);
+                }
+                default -> {
+                    error(ws, "Acción desconocida; use subscribe o unsubscribe");
+                    return;
+                }
+            }
+            try (JsonWriter w = JsonWriter.acquire()) {
+                w.beginObject().name(K_TYPE).value("subscribed").name(K_SYMBOLS).beginArray();
+                for (String sym : s.sub().symbols()) w.value(sym);
+                w.endArray().endObject();
+                ws.sendFrame(WebSocket.textFrame(w.toByteArray()));
+            }
+        } catch (IOException e) {
+            ws.close(WebSocket.GOING_AWAY, "No se pudo enviar");
+        }
+    }
+
+    @Override
+    public void onClose(WebSocket ws, int code, String reason) {
+        if (ws.attachment() instanceof Session s) ticks.unsubscribe(s.sub());
+    }
+
+    private static void error(WebSocket ws, String message) throws IOException {
+        try (JsonWriter w = JsonWriter.acquire()) {
+            w.beginObject().name(K_TYPE).value("error").name(K_MESSAGE).value(message).endObject();
+            ws.sendFrame(WebSocket.textFrame(w.toByteArray()));
+        }
+    }
+
+    /** Símbolos en mayúsculas, sin vacíos ni repetidos (ya validados con {@link #firstInvalid}). */
+    private static List<String> parseSymbols(String[] raw) {
+        List<String> out = new ArrayList<>(raw.length);
+        for (String r : raw) {
+            String sym = r.trim().toUpperCase(Locale.ROOT);
+            if (!sym.isEmpty() && !out.contains(sym)) out.add(sym);
+        }
+        return out;
+    }
+
+    /** Primer símbolo no vacío que no es un ticker válido, o null. */
+    private static String firstInvalid(String[] raw) {
+        for (String r : raw) {
+            String sym = r.trim().toUpperCase(Locale.ROOT);
+            if (!sym.isEmpty() && !TickPublisher.isValidSymbol(sym)) return sym;
+        }
+        return null;
+    }
+
+    private static final byte[] K_TYPE = JsonWriter.key("type");
+    private static final byte[] K_SYMBOLS = JsonWriter.key("symbols");
+    private static final byte[] K_MESSAGE = JsonWriter.key("message");
+}
@@ -2,11 +2,21 @@ package com.mycompany.webapp.controllers;
 
 import com.mycompany.httpserver.HttpRequest;
 import com.mycompany.httpserver.HttpResponse;
+import com.mycompany.httpserver.JsonWriter;
+import com.mycompany.httpserver.Metrics;
+import com.mycompany.httpserver.WebSocketHandler;
 
-import java.time.Instant;
-import java.time.ZoneOffset;
-import java.time.format.DateTimeFormatter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Set;
+import java.util.stream.IntStream;
 
 @microframework.annotations.RestController
 public class StocksApiController {
@@ -39,14 +49,145 @@ public class StocksApiController {
         return handle(req, resp, symbol, stockSymbol, ticker, s);
     }
 
+    @microframework.annotations.GetMapping("/stocks/{symbol}")
+    public String stockBySymbol(HttpRequest req, HttpResponse resp,
+                                @microframework.annotations.PathVariable("symbol") String symbol) {
+        return handle(req, resp, symbol, "", "", "");
+    }
+
+    /**
+     * Varias cotizaciones en una sola respuesta: /api/stocks/batch?symbols=AAPL,MSFT,...
+     * (también admite symbols repetido). Devuelve un arreglo JSON en el orden pedido.
+     */
+    @microframework.annotations.GetMapping("/api/stocks/batch")
+    public String batch(HttpRequest req, HttpResponse resp) {
+        resp.setContentType("application/json; charset=utf-8")
+            .setHeader("Cache-Control", "no-store, no-cache, must-revalidate");
+
+        List<String> symbols = new ArrayList<>();
+        for (String v : req.getParams("symbols")) {
+            for (String sym : v.split(",")) {
+                sym = sym.trim();
+                if (!sym.isEmpty()) symbols.add(sym.toUpperCase(Locale.ROOT));
+            }
+        }
+        if (symbols.isEmpty() || symbols.size() > BATCH_MAX_SYMBOLS) {
+            resp.setStatus(400);
+            return "{\"ok\":false,\"error\":\"symbols debe traer entre 1 y " + BATCH_MAX_SYMBOLS + " símbolos\"}";
+        }
+
+        // Por debajo del umbral el reparto entre hilos cuesta más que calcular
+        QuoteCache.Entry[] quotes = new QuoteCache.Entry[symbols.size()];
+        IntStream range = IntStream.range(0, quotes.length);
+        if (quotes.length >= BATCH_PARALLEL_THRESHOLD) range = range.parallel();
+        range.forEach(i -> quotes[i] = CACHE.get(symbols.get(i), StocksApiController::serialize));
+
+        // Todas con el mismo lastUpdate; el largo se conoce antes de escribir
+        try (JsonWriter ts = JsonWriter.acquire()) {
+            ts.timestamp(System.currentTimeMillis());
+            long length = 2 + (quotes.length - 1) + (long) quotes.length * ts.size();
+            for (QuoteCache.Entry e : quotes) length += e.head().length + e.tail().length;
+
+            OutputStream out = resp.setContentLength(length).getOutputStream();
+            out.write('[');
+            for (int i = 0; i < quotes.length; i++) {
+                if (i > 0) out.write(',');
+                out.write(quotes[i].head());
+                ts.writeTo(out);
+                out.write(quotes[i].tail());
+            }
+            out.write(']');
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return null;
+    }
+
+    private static final int BATCH_MAX_SYMBOLS = Integer.getInteger("stocks.batchMaxSymbols", 1_000);
+    private static final int BATCH_PARALLEL_THRESHOLD = Integer.getInteger("stocks.batchParallelThreshold", 64);
+
+    /**
+     * Ticks en vivo por Server-Sent Events: /api/stocks/stream?symbols=AAPL,MSFT[&policy=drop].
+     * La conexión queda abierta; cada tick llega como "event: tick" con un JSON en data.
+     * policy=coalesce (por defecto) manda solo el último tick de cada símbolo a un cliente
+     * atrasado; policy=drop descarta los más viejos cuando su cola se llena.
+     */
+    @microframework.annotations.GetMapping("/api/stocks/stream")
+    public String stream(HttpRequest req, HttpResponse resp) {
+        Set<String> symbols = new LinkedHashSet<>();
+        for (String v : req.getParams("symbols")) {
+            for (String sym : v.split(",")) {
+                sym = sym.trim().toUpperCase(Locale.ROOT);
+                if (sym.isEmpty()) continue;
+                if (!TickPublisher.isValidSymbol(sym)) {
+                    resp.setStatus(400).setContentType("application/json; charset=utf-8");
+                    return "{\"ok\":false,\"error\":\"" + TickPublisher.INVALID_SYMBOL + "\"}";
+                }
+                symbols.add(sym);
+            }
+        }
+        if (symbols.isEmpty() || symbols.size() > STREAM_MAX_SYMBOLS) {
+            resp.setStatus(400).setContentType("application/json; charset=utf-8");
+            return "{\"ok\":false,\"error\":\"symbols debe traer entre 1 y " + STREAM_MAX_SYMBOLS + " símbolos\"}";
+        }
+        TickPublisher.Policy policy = "drop".equalsIgnoreCase(req.getParam("policy", ""))
+                ? TickPublisher.Policy.DROP : TickPublisher.Policy.COALESCE;
+
+        resp.setContentType("text/event-stream; charset=utf-8")
+            .setHeader("Cache-Control", "no-cache")
+            .setHeader("X-Accel-Buffering", "no");
+
+        TickPublisher.Subscriber sub = TICKS.subscribe(symbols, policy, STREAM_QUEUE_CAPACITY);
+        List<TickPublisher.Tick> ticks = new ArrayList<>();
+        try {
+            OutputStream out = resp.getOutputStream();
+            out.write(SSE_RETRY);
+            while (true) {
+                ticks.clear();
+                if (sub.poll(STREAM_HEARTBEAT_MS, ticks) == 0) {
+                    out.write(SSE_PING); // mantiene viva la conexión y detecta clientes que se fueron
+                } else {
+                    for (TickPublisher.Tick t : ticks) out.write(t.sse());
+                }
+                resp.flush();
+            }
+        } catch (IOException e) {
+            // El cliente se desconectó: fin del stream
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            TICKS.unsubscribe(sub);
+        }
+        return null;
+    }
+
+    private static final int STREAM_MAX_SYMBOLS = Integer.getInteger("stocks.streamMaxSymbols", 100);
+    private static final int STREAM_QUEUE_CAPACITY = Integer.getInteger("stocks.streamQueueCapacity", 64);
+    private static final long STREAM_HEARTBEAT_MS = Long.getLong("stocks.streamHeartbeatMs", 15_000);
+    private static final TickPublisher TICKS = new TickPublisher(Long.getLong("stocks.tickIntervalMs", 1_000));
+    private static final byte[] SSE_RETRY = "retry: 3000\n\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SSE_PING = ": ping\n\n".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Ticks en vivo por WebSocket, con cambios de suscripción sin reconectar: ver {@link QuoteSocket}.
+     * ws://host/ws/stocks?symbols=AAPL[&format=binary]
+     */
+    @microframework.annotations.WebSocketMapping("/ws/stocks")
+    public WebSocketHandler quotesSocket() {
+        return new QuoteSocket(TICKS, STREAM_MAX_SYMBOLS, STREAM_QUEUE_CAPACITY);
+    }
+
+    /** Publicador compartido de ticks (un evento serializado por tick, repartido a todos). */
+    public static TickPublisher tickPublisher() {
+        return TICKS;
+    }
+
     /* ========= LÓGICA ========= */
     private String handle(HttpRequest req, HttpResponse resp,
                           String symbol, String stockSymbol, String ticker, String s) {
-        // Content-Type JSON y no cache (si tu HttpResponse lo soporta)
-        try { resp.getClass().getMethod("setHeader", String.class, String.class)
-                .invoke(resp, "Content-Type", "application/json"); } catch (Exception ignored) {}
-        try { resp.getClass().getMethod("setHeader", String.class, String.class)
-                .invoke(resp, "Cache-Control", "no-store, no-cache, must-revalidate"); } catch (Exception ignored) {}
+        // Content-Type JSON y no cache
+        resp.setContentType("application/json; charset=utf-8")
+            .setHeader("Cache-Control", "no-store, no-cache, must-revalidate");
 
         String chosen = firstNonBlank(symbol, stockSymbol, ticker, s);
         if (isBlank(chosen)) {
@@ -55,103 +196,106 @@ public class StocksApiController {
         }
         if (isBlank(chosen)) chosen = "AAPL";
 
-        // ===== JSON "largo" determinista por símbolo (mock) =====
+        // ===== JSON "largo" determinista por símbolo (mock), cacheado ya serializado =====
         String symU = chosen.toUpperCase(Locale.ROOT);
-        int h = Math.abs(symU.hashCode());
-
-        double base    = 50 + (h % 451); // 50..500
-        double cents   = ((h / 7) % 100) / 100.0;
-        double price   = base + cents;
-
-        double change  = ((h % 1001) / 100.0) - 5.0;      // -5.00 .. +5.00
-        double prev    = price - change;
-        double pct     = (change / prev) * 100.0;
-
-        double wiggle  = (h % 20) / 10.0;                  // 0.0 .. 1.9
-        double open    = prev + (change * 0.35);
-        double high    = Math.max(price, open) + wiggle;
-        double low     = Math.min(price, open) - wiggle;
-
-        long   volume  = 1_000_000L + (h % 5_000_000L);
-        long   shares  = 1_000_000_00L + (h % 900_000_00L); // acciones ficticias
-        double mcap    = price * shares;
-
-        String exchange = (h % 2 == 0) ? "NYSE" : "NASDAQ";
-        String name     = companyNameFor(symU);
-
-        // Historial sintético (10 puntos)
-        StringBuilder history = new StringBuilder("[");
-        double p = prev;
-        for (int i = 9; i >= 0; i--) {
-            double delta = ((h % (i + 5)) - (i / 2.0)) / 50.0;
-            p = Math.max(1.0, p + delta);
-            history.append("{\"t\":").append(i)
-                    .append(",\"price\":").append(fmt(p)).append("}");
-            if (i > 0) history.append(',');
+        QuoteCache.Entry e = CACHE.get(symU, StocksApiController::serialize);
+
+        // Solo lastUpdate se escribe en cada petición
+        try (JsonWriter ts = JsonWriter.acquire()) {
+            ts.timestamp(System.currentTimeMillis());
+            OutputStream out = resp.setContentLength(e.head().length + ts.size() + e.tail().length).getOutputStream();
+            out.write(e.head());
+            ts.writeTo(out);
+            out.write(e.tail());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
         }
-        history.append("]");
-
-        String isoNow = DateTimeFormatter.ISO_INSTANT
-                .format(Instant.now().atZone(ZoneOffset.UTC));
-
-        // Construcción del JSON extendido
-        String json =
-                "{"
-                        + "\"ok\":true,"
-                        + "\"symbol\":\"" + esc(symU) + "\","
-                        + "\"name\":\"" + esc(name) + "\","
-                        + "\"exchange\":\"" + exchange + "\","
-                        + "\"currency\":\"USD\","
-                        + "\"price\":" + fmt(price) + ","
-                        + "\"change\":" + fmt(change) + ","
-                        + "\"changePct\":" + fmt(pct) + ","
-                        + "\"open\":" + fmt(open) + ","
-                        + "\"high\":" + fmt(high) + ","
-                        + "\"low\":" + fmt(low) + ","
-                        + "\"prevClose\":" + fmt(prev) + ","
-                        + "\"volume\":" + volume + ","
-                        + "\"marketCap\":" + fmt(mcap) + ","
-                        + "\"lastUpdate\":\"" + isoNow + "\","
-                        + "\"history\":" + history.toString()
-                        + "}";
-
-        return json;
+        return null;
+    }
+
+    /* ========= CACHÉ ========= */
+    private static final QuoteCache CACHE = new QuoteCache(
+            Long.getLong("stocks.cacheTtlMs", 30_000),
+            Integer.getInteger("stocks.cacheMaxEntries", 1_000));
+
+    /** Caché de cotizaciones (TTL y tope configurables; contadores de aciertos/fallos). */
+    public static QuoteCache quoteCache() {
+        return CACHE;
+    }
+
+    // Contadores de la caché y del publicador de ticks en /metrics
+    static {
+        Metrics.counter("stocks_quote_cache_hits_total", "Aciertos de la caché de cotizaciones.", CACHE::hits);
+        Metrics.counter("stocks_quote_cache_misses_total", "Fallos de la caché de cotizaciones.", CACHE::misses);
+        Metrics.counter("stocks_quote_cache_evictions_total", "Entradas expulsadas de la caché de cotizaciones.", CACHE::evictions);
+        Metrics.gauge("stocks_quote_cache_entries", "Entradas en la caché de cotizaciones.", CACHE::size);
+        Metrics.gauge("stocks_tick_subscribers", "Suscriptores de ticks (SSE y WebSocket).", TICKS::subscribers);
+        Metrics.gauge("stocks_tick_symbols", "Símbolos con al menos un suscriptor.", TICKS::symbols);
+        Metrics.counter("stocks_ticks_published_total", "Ticks generados.", TICKS::published);
+        Metrics.counter("stocks_ticks_delivered_total", "Ticks encolados a suscriptores.", TICKS::delivered);
     }
 
+    /** Serializa la cotización en dos partes, antes y después del valor de lastUpdate. */
+    static QuoteCache.Entry serialize(String symU) {
+        Quote q = Quote.mock(symU);
+        try (JsonWriter w = JsonWriter.acquire()) {
+            w.beginObject()
+                    .name(K_OK).value(true)
+                    .name(K_SYMBOL).value(q.symbol())
+                    .name(K_NAME).value(q.name())
+                    .name(K_EXCHANGE).value(q.exchange())
+                    .name(K_CURRENCY).value(q.currency())
+                    .name(K_PRICE).value(q.price(), 2)
+                    .name(K_CHANGE).value(q.change(), 2)
+                    .name(K_CHANGE_PCT).value(q.changePct(), 2)
+                    .name(K_OPEN).value(q.open(), 2)
+                    .name(K_HIGH).value(q.high(), 2)
+                    .name(K_LOW).value(q.low(), 2)
+                    .name(K_PREV_CLOSE).value(q.prevClose(), 2)
+                    .name(K_VOLUME).value(q.volume())
+                    .name(K_MARKET_CAP).value(q.marketCap(), 2)
+                    .name(K_LAST_UPDATE);
+            byte[] head = w.toByteArray();
+            w.rawValue(PLACEHOLDER);
+            int cut = w.size();
+
+            w.name(K_HISTORY).beginArray();
+            double[] history = q.history();
+            for (int i = 0; i < history.length; i++) {
+                w.beginObject().name(K_T).value(history.length - 1 - i).name(K_PRICE).value(history[i], 2).endObject();
+            }
+            w.endArray().endObject();
+            return new QuoteCache.Entry(q, head, Arrays.copyOfRange(w.buffer(), cut, w.size()));
+        }
+    }
+
+    private static final byte[] PLACEHOLDER = {'0'};
+
+    // Claves JSON codificadas una sola vez
+    private static final byte[] K_OK = JsonWriter.key("ok");
+    private static final byte[] K_SYMBOL = JsonWriter.key("symbol");
+    private static final byte[] K_NAME = JsonWriter.key("name");
+    private static final byte[] K_EXCHANGE = JsonWriter.key("exchange");
+    private static final byte[] K_CURRENCY = JsonWriter.key("currency");
+    private static final byte[] K_PRICE = JsonWriter.key("price");
+    private static final byte[] K_CHANGE = JsonWriter.key("change");
+    private static final byte[] K_CHANGE_PCT = JsonWriter.key("changePct");
+    private static final byte[] K_OPEN = JsonWriter.key("open");
+    private static final byte[] K_HIGH = JsonWriter.key("high");
+    private static final byte[] K_LOW = JsonWriter.key("low");
+    private static final byte[] K_PREV_CLOSE = JsonWriter.key("prevClose");
+    private static final byte[] K_VOLUME = JsonWriter.key("volume");
+    private static final byte[] K_MARKET_CAP = JsonWriter.key("marketCap");
+    private static final byte[] K_LAST_UPDATE = JsonWriter.key("lastUpdate");
+    private static final byte[] K_HISTORY = JsonWriter.key("history");
+    private static final byte[] K_T = JsonWriter.key("t");
+
     /* ========= helpers ========= */
-    private static String esc(String s){ return s==null? "" : s.replace("\"","\\\""); }
-    private static String fmt(double d){ return String.format(Locale.US, "%.2f", d); }
     private static boolean isBlank(String s){ return s==null || s.isEmpty(); }
     private static String firstNonBlank(String... xs){ for (String x: xs) if (!isBlank(x)) return x; return null; }
 
     private static String fromReq(HttpRequest req, String... names){
-        // Map<String,String> getQueryMap()
-        try {
-            var m = req.getClass().getMethod("getQueryMap");
-            Object o = m.invoke(req);
-            if (o instanceof java.util.Map<?,?> map) {
-                for (String n: names) { Object v = map.get(n); if (v != null) return String.valueOf(v); }
-            }
-        } catch (Exception ignored) {}
-        // (String)->String: getParameter / getQueryParam / getValue / getParam
-        for (String method : new String[]{"getParameter","getQueryParam","getValue","getParam"}) {
-            try {
-                var mm = req.getClass().getMethod(method, String.class);
-                for (String n: names) { Object v = mm.invoke(req, n); if (v != null) return String.valueOf(v); }
-            } catch (Exception ignored) {}
-        }
+        for (String n: names) { String v = req.getParam(n); if (!isBlank(v)) return v; }
         return null;
     }
-
-    private static String companyNameFor(String symU) {
-        // Nombres ficticios pero razonables
-        if (symU.equals("AAPL")) return "Apple Inc.";
-        if (symU.equals("MSFT")) return "Microsoft Corporation";
-        if (symU.equals("GOOG") || symU.equals("GOOGL")) return "Alphabet Inc.";
-        if (symU.equals("AMZN")) return "Amazon.com, Inc.";
-        if (symU.equals("META") || symU.equals("FB")) return "Meta Platforms, Inc.";
-        if (symU.equals("TSLA")) return "Tesla, Inc.";
-        if (symU.equals("IBM"))  return "International Business Machines Corporation";
-        return symU + " Corporation";
-    }
 }
@@ -0,0 +1,390 @@
+package com.mycompany.webapp.controllers;
+
+import com.mycompany.httpserver.JsonWriter;
+import com.mycompany.httpserver.WebSocket;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Publicador de ticks de precios para Server-Sent Events y WebSocket.
+ * - Un hilo genera un tick por símbolo con suscriptores cada intervalMs (paseo aleatorio
+ *   alrededor de la cotización de {@link Quote#mock}).
+ * - Cada tick se serializa UNA vez por formato (evento SSE, frame WebSocket de texto o
+ *   binario) y el mismo byte[] se reparte a todos los suscriptores del símbolo.
+ * - Cada suscriptor tiene su propia cola acotada; un cliente lento no frena al publicador:
+ *   con {@link Policy#COALESCE} solo se guarda el último tick de cada símbolo, con
+ *   {@link Policy#DROP} se descartan los más viejos al llenarse la cola.
+ * - Los símbolos de un suscriptor pueden cambiar sin reconectar ({@link #add}/{@link #remove}).
+ */
+public final class TickPublisher {
+
+    /** Qué hacer con un suscriptor que no da abasto. */
+    public enum Policy { DROP, COALESCE }
+
+    // Tickers en mayúsculas; el largo cabe en el byte de longitud del frame binario
+    private static final Pattern SYMBOL = Pattern.compile("[A-Z0-9.\\-^=]{1,16}");
+
+    /** Mensaje para el cliente cuando un símbolo no pasa {@link #isValidSymbol}. */
+    public static final String INVALID_SYMBOL = "Símbolo inválido: use letras, dígitos o . - ^ = (hasta 16)";
+
+    /** ¿Es un símbolo que se puede publicar? Lo validan SSE y WebSocket antes de suscribir. */
+    public static boolean isValidSymbol(String symbol) {
+        return symbol != null && SYMBOL.matcher(symbol).matches();
+    }
+
+    /**
+     * Un tick ya calculado. Cada codificación se arma la primera vez que alguien la pide y
+     * después se comparte (si dos hilos la piden a la vez puede armarse dos veces, es inocuo).
+     */
+    public static final class Tick {
+        final long id;
+        final String symbol;
+        final double price;
+        final double change;
+        final long time;
+        private final byte[] json;
+        private volatile byte[] sse, textFrame, binaryFrame;
+
+        Tick(long id, String symbol, double price, double prevClose, long time) {
+            this.id = id;
+            this.symbol = symbol;
+            this.price = price;
+            this.change = price - prevClose;
+            this.time = time;
+            try (JsonWriter w = JsonWriter.acquire()) {
+                w.beginObject()
+                        .name(K_SYMBOL).value(symbol)
+                        .name(K_PRICE).value(price, 2)
+                        .name(K_CHANGE).value(change, 2)
+                        .name(K_CHANGE_PCT).value(change / prevClose * 100.0, 2)
+                        .name(K_T).value(time)
+                        .endObject();
+                this.json = w.toByteArray();
+            }
+        }
+
+        public String symbol() {
+            return symbol;
+        }
+
+        /** {"symbol":..,"price":..,"change":..,"changePct":..,"t":epochMillis} en UTF-8. */
+        public byte[] json() {
+            return json;
+        }
+
+        /** "id: n\nevent: tick\ndata: {...}\n\n". */
+        public byte[] sse() {
+            byte[] f = sse;
+            if (f == null) {
+                byte[] id = ("id: " + this.id + "\n").getBytes(StandardCharsets.US_ASCII);
+                f = new byte[id.length + EVENT_TICK.length + json.length + 2];
+                System.arraycopy(id, 0, f, 0, id.length);
+                System.arraycopy(EVENT_TICK, 0, f, id.length, EVENT_TICK.length);
+                System.arraycopy(json, 0, f, id.length + EVENT_TICK.length, json.length);
+                f[f.length - 2] = '\n';
+                f[f.length - 1] = '\n';
+                sse = f;
+            }
+            return f;
+        }
+
+        /** Frame WebSocket de texto con el JSON. */
+        public byte[] textFrame() {
+            byte[] f = textFrame;
+            if (f == null) textFrame = f = WebSocket.textFrame(json);
+            return f;
+        }
+
+        /**
+         * Frame WebSocket binario compacto (big-endian): u8 largo del símbolo, símbolo ASCII,
+         * i32 precio en centavos, i32 cambio en centavos, i64 epochMillis.
+         */
+        public byte[] binaryFrame() {
+            byte[] f = binaryFrame;
+            if (f == null) {
+                byte[] sym = symbol.getBytes(StandardCharsets.US_ASCII);
+                ByteBuffer b = ByteBuffer.allocate(1 + sym.length + 4 + 4 + 8);
+                b.put((byte) sym.length).put(sym)
+                        .putInt((int) Math.round(price * 100))
+                        .putInt((int) Math.round(change * 100))
+                        .putLong(time);
+                binaryFrame = f = WebSocket.binaryFrame(b.array());
+            }
+            return f;
+        }
+    }
+
+    /** Estado de un símbolo: último precio, último tick y quiénes lo siguen. */
+    private static final class Channel {
+        final String symbol;
+        final double prevClose;
+        double price;                 // solo se toca dentro de publishAll (sincronizado)
+        volatile Tick last;
+        final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+        Channel(String symbol) {
+            Quote q = Quote.mock(symbol);
+            this.symbol = symbol;
+            this.prevClose = q.prevClose();
+            this.price = q.price();
+        }
+    }
+
+    /**
+     * Suscripción de un cliente. El hilo del publicador llama a offer; el hilo del cliente
+     * espera en {@link #poll} y escribe lo que recibe.
+     */
+    public static final class Subscriber {
+        private final Policy policy;
+        private final int capacity;
+        private final ArrayDeque<Tick> queue;                  // DROP
+        private final LinkedHashMap<String, Tick> latest;      // COALESCE: símbolo -> último tick
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition nonEmpty = lock.newCondition();
+        private final AtomicLong dropped = new AtomicLong();
+        private final Set<String> symbols = ConcurrentHashMap.newKeySet();
+        private volatile boolean closed;
+
+        Subscriber(Policy policy, int capacity) {
+            this.policy = policy;
+            this.capacity = Math.max(1, capacity);
+            this.queue = policy == Policy.DROP ? new ArrayDeque<>(this.capacity) : null;
+            this.latest = policy == Policy.COALESCE ? new LinkedHashMap<>() : null;
+        }
+
+        void offer(Tick tick) {
+            lock.lock();
+            try {
+                if (policy == Policy.COALESCE) {
+                    // Reemplaza al pendiente del mismo símbolo: nunca más de un tick por símbolo
+                    if (latest.remove(tick.symbol) != null) dropped.incrementAndGet();
+                    latest.put(tick.symbol, tick);
+                } else {
+                    if (queue.size() == capacity) {
+                        queue.pollFirst();
+                        dropped.incrementAndGet();
+                    }
+                    queue.addLast(tick);
+                }
+                nonEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Pasa a {@code into} todos los ticks pendientes, esperando hasta timeoutMs a que haya
+         * alguno. @return cuántos agregó (0 si venció la espera o se canceló la suscripción)
+         */
+        public int poll(long timeoutMs, List<Tick> into) throws InterruptedException {
+            long nanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            lock.lock();
+            try {
+                while (isEmpty() && !closed) {
+                    if (nanos <= 0) return 0;
+                    nanos = nonEmpty.awaitNanos(nanos);
+                }
+                int n;
+                if (policy == Policy.COALESCE) {
+                    n = latest.size();
+                    into.addAll(latest.values());
+                    latest.clear();
+                } else {
+                    n = queue.size();
+                    into.addAll(queue);
+                    queue.clear();
+                }
+                return n;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /** Ticks descartados (DROP) o reemplazados por uno más nuevo (COALESCE). */
+        public long dropped() {
+            return dropped.get();
+        }
+
+        public Policy policy() {
+            return policy;
+        }
+
+        public Set<String> symbols() {
+            return Collections.unmodifiableSet(symbols);
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+
+        private boolean isEmpty() {
+            return policy == Policy.COALESCE ? latest.isEmpty() : queue.isEmpty();
+        }
+
+        /** Quita lo pendiente de un símbolo que ya no se sigue. */
+        private void discard(String symbol) {
+            lock.lock();
+            try {
+                if (policy == Policy.COALESCE) latest.remove(symbol);
+                else queue.removeIf(t -> t.symbol.equals(symbol));
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void close() {
+            lock.lock();
+            try {
+                closed = true;
+                nonEmpty.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+    private final AtomicLong seq = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong subscriberCount = new AtomicLong();
+    private final long intervalMs;
+    private Thread thread;
+
+    public TickPublisher(long intervalMs) {
+        this.intervalMs = Math.max(1, intervalMs);
+    }
+
+    /**
+     * Nuevo suscriptor a los símbolos (en mayúsculas). Recibe enseguida el último tick de
+     * cada uno, así no espera al siguiente intervalo para mostrar algo.
+     * @throws IllegalArgumentException si algún símbolo no es válido ({@link #isValidSymbol})
+     */
+    public Subscriber subscribe(Collection<String> symbols, Policy policy, int capacity) {
+        for (String sym : symbols) checkSymbol(sym);
+        Subscriber sub = new Subscriber(policy, capacity);
+        subscriberCount.incrementAndGet();
+        for (String sym : symbols) add(sub, sym);
+        startIfNeeded();
+        return sub;
+    }
+
+    /** Agrega un símbolo a una suscripción activa. @return false si ya lo seguía o está cancelada */
+    public boolean add(Subscriber sub, String symbol) {
+        checkSymbol(symbol);
+        if (sub.closed || !sub.symbols.add(symbol)) return false;
+        Channel ch = channels.compute(symbol, (k, c) -> {
+            if (c == null) {
+                c = new Channel(k);
+                c.last = new Tick(seq.incrementAndGet(), k, c.price, c.prevClose, System.currentTimeMillis());
+            }
+            c.subscribers.add(sub);
+            return c;
+        });
+        if (sub.closed) { // se canceló mientras tanto
+            remove(sub, symbol);
+            return false;
+        }
+        sub.offer(ch.last);
+        return true;
+    }
+
+    private static void checkSymbol(String symbol) {
+        if (!isValidSymbol(symbol)) throw new IllegalArgumentException(INVALID_SYMBOL);
+    }
+
+    /** Deja de seguir un símbolo; si nadie más lo sigue deja de generarse. */
+    public boolean remove(Subscriber sub, String symbol) {
+        if (!sub.symbols.remove(symbol)) return false;
+        channels.computeIfPresent(symbol, (k, c) -> {
+            c.subscribers.remove(sub);
+            return c.subscribers.isEmpty() ? null : c;
+        });
+        sub.discard(symbol);
+        return true;
+    }
+
+    /** Cancela la suscripción completa (despierta a quien espera en poll). */
+    public void unsubscribe(Subscriber sub) {
+        if (sub.closed) return;
+        sub.close();
+        for (String sym : List.copyOf(sub.symbols)) remove(sub, sym);
+        subscriberCount.decrementAndGet();
+    }
+
+    /** Genera y reparte un tick por cada símbolo con suscriptores. */
+    public synchronized void publishAll() {
+        long now = System.currentTimeMillis();
+        for (Channel ch : channels.values()) {
+            double step = ch.price * 0.002 * (ThreadLocalRandom.current().nextDouble() * 2 - 1); // ±0,2 %
+            ch.price = Math.max(1.0, ch.price + step);
+            Tick tick = new Tick(seq.incrementAndGet(), ch.symbol, ch.price, ch.prevClose, now);
+            ch.last = tick;
+            published.incrementAndGet();
+            for (Subscriber s : ch.subscribers) {
+                s.offer(tick);
+                delivered.incrementAndGet();
+            }
+        }
+    }
+
+    public int symbols() {
+        return channels.size();
+    }
+
+    public long subscribers() {
+        return subscriberCount.get();
+    }
+
+    public long published() {
+        return published.get();
+    }
+
+    public long delivered() {
+        return delivered.get();
+    }
+
+    private synchronized void startIfNeeded() {
+        if (thread != null) return;
+        thread = new Thread(this::run, "stock-ticks");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        while (true) {
+            try {
+                Thread.sleep(intervalMs);
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                publishAll();
+            } catch (RuntimeException e) {
+                System.err.println("[ticks] Error publicando: " + e);
+            }
+        }
+    }
+
+    private static final byte[] K_SYMBOL = JsonWriter.key("symbol");
+    private static final byte[] K_PRICE = JsonWriter.key("price");
+    private static final byte[] K_CHANGE = JsonWriter.key("change");
+    private static final byte[] K_CHANGE_PCT = JsonWriter.key("changePct");
+    private static final byte[] K_T = JsonWriter.key("t");
+    private static final byte[] EVENT_TICK = "event: tick\ndata: ".getBytes(StandardCharsets.US_ASCII);
+}
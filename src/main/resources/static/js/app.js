@@ -24,3 +24,21 @@ function fetchStockData() {
             document.getElementById('stockData').innerHTML = 'Error: ' + err;
         });
 }
+
+// Ticks en vivo por SSE: una sola conexión abierta en vez de repetir /stocks
+let stockStream = null;
+
+function streamStockData() {
+    const symbol = document.getElementById('stockSymbol').value;
+    if (stockStream) stockStream.close();
+    document.getElementById('stockData').innerHTML = "Connecting...";
+
+    stockStream = new EventSource('/api/stocks/stream?symbols=' + encodeURIComponent(symbol));
+    stockStream.addEventListener('tick', e => {
+        document.getElementById('stockData').innerHTML =
+            JSON.stringify(JSON.parse(e.data), null, 2);
+    });
+    stockStream.onerror = () => {
+        document.getElementById('stockData').innerHTML = 'Stream disconnected, retrying...';
+    };
+}
@@ -0,0 +1,105 @@
+import com.mycompany.httpserver.AccessLog;
+import com.mycompany.httpserver.AccessLogDecoder;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AccessLogTest {
+
+    @Test
+    public void recordsRoundTripThroughDecoder() throws Exception {
+        Path dir = Files.createTempDirectory("alog");
+        try (AccessLog log = new AccessLog(dir, 1024, 1 << 20, 0)) {
+            assertTrue(log.append("/api/stocks", 200, 731, 184_000));
+            assertTrue(log.append("/stocks/{symbol}", 404, 12, 5_000));
+            assertTrue(log.append("/ñandú", 500, 0, 1));
+            assertTrue(log.await(5_000));
+        }
+        List<AccessLogDecoder.Entry> all = AccessLogDecoder.readAll(dir);
+        assertEquals(3, all.size());
+        assertEquals("/api/stocks", all.get(0).route());
+        assertEquals(200, all.get(0).status());
+        assertEquals(731, all.get(0).bytes());
+        assertEquals(184_000, all.get(0).latencyNanos());
+        assertEquals("/stocks/{symbol}", all.get(1).route());
+        assertEquals(404, all.get(1).status());
+        assertEquals("/ñandú", all.get(2).route());
+        assertTrue(Math.abs(System.currentTimeMillis() - all.get(0).epochMillis()) < 60_000);
+        assertTrue(all.get(0).toString().endsWith(" 200 /api/stocks 731 0.184ms"));
+    }
+
+    @Test
+    public void concurrentWritersRotateAndPruneSegments() throws Exception {
+        Path dir = Files.createTempDirectory("alog");
+        int threads = 8, perThread = 2_000;
+        try (AccessLog log = new AccessLog(dir, 64 * 1024, 8 * 1024, 0)) {
+            Thread[] ts = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                int id = t;
+                ts[t] = new Thread(() -> {
+                    for (int i = 0; i < perThread; i++) log.append("/r" + id, 200, i, id);
+                });
+                ts[t].start();
+            }
+            for (Thread t : ts) t.join();
+            assertTrue(log.await(10_000));
+            assertEquals(threads * perThread, log.written() + log.dropped());
+        }
+        List<AccessLogDecoder.Entry> all = AccessLogDecoder.readAll(dir);
+        // Sin descartes (el anillo alcanza) cada (hilo, i) aparece una sola vez
+        Set<Long> seen = new HashSet<>();
+        for (AccessLogDecoder.Entry e : all) assertTrue(seen.add(e.latencyNanos() * 1_000_000 + e.bytes()));
+        assertEquals(threads * perThread, all.size());
+        try (Stream<Path> files = Files.list(dir)) {
+            assertTrue(files.count() > 1);
+        }
+
+        // Un log nuevo sobre el mismo directorio sigue la numeración y conserva solo maxSegments
+        try (AccessLog log = new AccessLog(dir, 1024, 8 * 1024, 2)) {
+            for (int i = 0; i < 1_000; i++) log.append("/again", 200, i, 0);
+            assertTrue(log.await(5_000));
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    public void appendsRacingCloseAreWrittenOrCountedAsDropped() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            Path dir = Files.createTempDirectory("alog");
+            int threads = 4;
+            long[] attempts = new long[threads];
+            AccessLog log = new AccessLog(dir, 1024, 1 << 20, 0);
+            Thread[] ts = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                int id = t;
+                ts[t] = new Thread(() -> {
+                    // Sigue hasta ver un descarte después del cierre
+                    for (int i = 0; i < 100_000; i++) {
+                        attempts[id]++;
+                        if (!log.append("/close", 200, i, id) && i > 1_000) break;
+                    }
+                });
+                ts[t].start();
+            }
+            Thread.sleep(2);
+            log.close();
+            long total = 0;
+            for (int t = 0; t < threads; t++) {
+                ts[t].join();
+                total += attempts[t];
+            }
+            assertEquals(total, log.written() + log.dropped());
+            assertEquals(log.written(), AccessLogDecoder.readAll(dir).size());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+import com.mycompany.httpserver.HttpServer;
+import com.mycompany.httpserver.Metrics;
+import com.mycompany.httpserver.ServerConfig;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertTrue;
+
+public class AdmissionControlTest {
+
+    private static final int PORT = 36109;
+    private static boolean started;
+
+    private static synchronized void start() throws Exception {
+        if (started) return;
+        started = true;
+        HttpServer.get("/admission-test", (req, resp) -> "ok");
+        Thread t = new Thread(() -> {
+            try {
+                HttpServer.startServer(new String[]{String.valueOf(PORT)});
+            } catch (Exception ignored) {}
+        });
+        t.setDaemon(true);
+        t.start();
+        Thread.sleep(300);
+    }
+
+    /** Lee hasta que el servidor cierra (o timeoutMs) y retorna lo recibido. */
+    private static String readAll(Socket s, int timeoutMs) throws Exception {
+        s.setSoTimeout(timeoutMs);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        InputStream in = s.getInputStream();
+        byte[] b = new byte[1024];
+        try {
+            for (int n; (n = in.read(b)) >= 0; ) out.write(b, 0, n);
+        } catch (SocketTimeoutException ignored) {}
+        return out.toString(StandardCharsets.ISO_8859_1);
+    }
+
+    @Test
+    public void headerSentByteByByteIsCutWith408() throws Exception {
+        start();
+        int before = ServerConfig.headerTimeoutMs();
+        ServerConfig.headerTimeoutMs(500);
+        long timeouts = Metrics.requestTimeouts();
+        try (Socket s = new Socket("localhost", PORT)) {
+            OutputStream out = s.getOutputStream();
+            out.write("GET /admission-test HTTP/1.1\r\n".getBytes(StandardCharsets.US_ASCII));
+            long t0 = System.nanoTime();
+            try {
+                // Cada byte llega antes que cualquier timeout por lectura, pero la cabecera nunca termina
+                for (int i = 0; i < 40; i++) {
+                    out.write('X');
+                    out.flush();
+                    Thread.sleep(100);
+                }
+            } catch (java.io.IOException closed) {
+                // el servidor ya cerró
+            }
+            String resp = readAll(s, 2_000);
+            assertTrue(resp, resp.startsWith("HTTP/1.1 408 "));
+            assertTrue(System.nanoTime() - t0 < 3_000_000_000L);
+            assertTrue(Metrics.requestTimeouts() > timeouts);
+        } finally {
+            ServerConfig.headerTimeoutMs(before);
+        }
+    }
+
+    @Test
+    public void bodyOverTheDrainLimitGets413() throws Exception {
+        start();
+        try (Socket s = new Socket("localhost", PORT)) {
+            s.getOutputStream().write(("GET /admission-test HTTP/1.1\r\nHost: x\r\nContent-Length: "
+                    + (ServerConfig.maxDrainBytes() + 1) + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            String resp = readAll(s, 2_000);
+            assertTrue(resp, resp.startsWith("HTTP/1.1 413 "));
+            assertTrue(resp, resp.contains("Connection: close\r\n"));
+        }
+    }
+
+    @Test
+    public void connectionsOverTheCapGetImmediate503() throws Exception {
+        start();
+        int before = ServerConfig.maxConnections();
+        ServerConfig.maxConnections(2);
+        long rejected = Metrics.rejectedConnections();
+        Socket a = new Socket("localhost", PORT);
+        Socket b = new Socket("localhost", PORT);
+        try {
+            Thread.sleep(200); // ambas aceptadas y ocupando su hilo
+            try (Socket c = new Socket("localhost", PORT)) {
+                c.getOutputStream().write("GET /admission-test HTTP/1.1\r\nHost: x\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+                String resp = readAll(c, 2_000);
+                assertTrue(resp, resp.startsWith("HTTP/1.1 503 "));
+                assertTrue(resp, resp.contains("Retry-After: 1\r\n"));
+            }
+            assertTrue(Metrics.rejectedConnections() > rejected);
+        } finally {
+            a.close();
+            b.close();
+            ServerConfig.maxConnections(before);
+        }
+        Thread.sleep(200);
+        try (Socket d = new Socket("localhost", PORT)) {
+            d.getOutputStream().write("GET /admission-test HTTP/1.1\r\nHost: x\r\nConnection: close\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            String resp = readAll(d, 2_000);
+            assertTrue(resp, resp.startsWith("HTTP/1.1 200 "));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+import com.mycompany.httpserver.HttpServer;
+import com.mycompany.httpserver.ServerConfig;
+import com.mycompany.microframework.core.RouteRegistry;
+import microframework.annotations.GetMapping;
+import microframework.annotations.RequestParam;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncHandlerTest {
+
+    private static final int PORT = 36105;
+    private static boolean started;
+    // Resultado de la escritura tardía de /async/late (la excepción que recibió el handler, si hubo)
+    private static final CompletableFuture<Throwable> lateWrite = new CompletableFuture<>();
+
+    /** Controlador con un @GetMapping asíncrono: la respuesta sale cuando termina el future. */
+    static class SlowController {
+        @GetMapping("/async/hello")
+        public CompletableFuture<String> hello(@RequestParam(value = "name", defaultValue = "mundo") String name) {
+            return CompletableFuture.supplyAsync(() -> "hola " + name,
+                    CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS));
+        }
+
+        @GetMapping("/async/fails")
+        public CompletableFuture<String> fails() {
+            return CompletableFuture.failedFuture(new IllegalStateException("backend caído"));
+        }
+    }
+
+    private static synchronized void start() throws Exception {
+        if (started) return;
+        new RouteRegistry().register(new SlowController());
+        HttpServer.getAsync("/async/bytes", (req, resp) ->
+                CompletableFuture.supplyAsync(() -> new byte[]{'o', 'k'}, CompletableFuture.delayedExecutor(20, TimeUnit.MILLISECONDS)));
+        HttpServer.getAsync("/async/never", (req, resp) -> new CompletableFuture<String>());
+        HttpServer.getAsync("/async/late", (req, resp) -> {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    resp.getOutputStream().write("tarde".getBytes());
+                    resp.flush();
+                    lateWrite.complete(null);
+                } catch (IOException | RuntimeException e) {
+                    lateWrite.complete(e);
+                }
+            }, CompletableFuture.delayedExecutor(400, TimeUnit.MILLISECONDS));
+            return new CompletableFuture<String>();
+        });
+        Thread t = new Thread(() -> {
+            try {
+                HttpServer.startServer(new String[]{String.valueOf(PORT)});
+            } catch (Exception ignored) {}
+        });
+        t.setDaemon(true);
+        t.start();
+        Thread.sleep(300);
+        started = true;
+    }
+
+    private static HttpResponse<String> get(String path) throws Exception {
+        return HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + PORT + path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    public void annotatedFutureCompletesResponse() throws Exception {
+        start();
+        HttpResponse<String> r = get("/async/hello?name=ana");
+        assertEquals(200, r.statusCode());
+        assertEquals("hola ana", r.body());
+    }
+
+    @Test
+    public void byteArrayValueIsTheBody() throws Exception {
+        start();
+        HttpResponse<String> r = get("/async/bytes");
+        assertEquals(200, r.statusCode());
+        assertEquals("ok", r.body());
+        assertEquals("2", r.headers().firstValue("Content-Length").orElse(""));
+    }
+
+    @Test
+    public void failedFutureIs500() throws Exception {
+        start();
+        HttpResponse<String> r = get("/async/fails");
+        assertEquals(500, r.statusCode());
+        assertTrue(r.body().contains("backend caído"));
+    }
+
+    @Test
+    public void futureThatNeverCompletesTimesOutWith503() throws Exception {
+        start();
+        int before = ServerConfig.asyncTimeoutMs();
+        ServerConfig.asyncTimeoutMs(200);
+        try {
+            HttpResponse<String> r = get("/async/never");
+            assertEquals(503, r.statusCode());
+        } finally {
+            ServerConfig.asyncTimeoutMs(before);
+        }
+    }
+
+    @Test
+    public void handlerWritingAfterTheTimeoutFails() throws Exception {
+        start();
+        int before = ServerConfig.asyncTimeoutMs();
+        ServerConfig.asyncTimeoutMs(200);
+        try {
+            HttpResponse<String> r = get("/async/late");
+            assertEquals(503, r.statusCode());
+            Throwable t = lateWrite.get(2, TimeUnit.SECONDS);
+            assertTrue(String.valueOf(t), t instanceof IOException);
+        } finally {
+            ServerConfig.asyncTimeoutMs(before);
+        }
+    }
+}
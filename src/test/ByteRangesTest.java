@@ -0,0 +1,42 @@
+import com.mycompany.httpserver.ByteRanges;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ByteRangesTest {
+
+    @Test
+    public void resolvesClosedOpenAndSuffixRanges() {
+        List<ByteRanges.Range> r = ByteRanges.parse("bytes=0-9, 100-199, -5", 1000);
+        assertEquals(3, r.size());
+        assertEquals(new ByteRanges.Range(0, 9), r.get(0));
+        assertEquals(new ByteRanges.Range(100, 199), r.get(1));
+        assertEquals(new ByteRanges.Range(995, 999), r.get(2));
+        assertEquals(new ByteRanges.Range(100, 999), ByteRanges.parse("bytes=100-", 1000).get(0));
+        assertEquals("bytes 0-9/1000", r.get(0).contentRange(1000));
+
+        // El final se recorta al tamaño del recurso
+        assertEquals(new ByteRanges.Range(990, 999), ByteRanges.parse("bytes=990-5000", 1000).get(0));
+    }
+
+    @Test
+    public void unsatisfiableGivesEmptyList() {
+        assertTrue(ByteRanges.parse("bytes=1000-", 1000).isEmpty());
+        assertTrue(ByteRanges.parse("bytes=-0", 1000).isEmpty());
+    }
+
+    @Test
+    public void invalidOrAbusiveHeadersAreIgnored() {
+        assertNull(ByteRanges.parse("items=0-1", 1000));
+        assertNull(ByteRanges.parse("bytes=5-1", 1000));
+        assertNull(ByteRanges.parse("bytes=a-b", 1000));
+        assertNull(ByteRanges.parse("bytes=0-10,5-20", 1000)); // solapados
+        StringBuilder many = new StringBuilder("bytes=");
+        for (int i = 0; i <= ByteRanges.MAX_RANGES; i++) many.append(i * 10).append('-').append(i * 10 + 1).append(',');
+        assertNull(ByteRanges.parse(many.toString(), 1000));
+    }
+}
@@ -0,0 +1,93 @@
+import com.mycompany.microframework.core.ControllerIndex;
+import com.mycompany.microframework.processor.RouteIndexProcessor;
+import microframework.annotations.RestController;
+import org.junit.Test;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ControllerIndexTest {
+
+    @Test
+    public void buildIndexListsGreetingController() throws Exception {
+        List<ControllerIndex.Entry> index = ControllerIndex.load(getClass().getClassLoader(), "com.mycompany.webapp");
+        ControllerIndex.Entry greeting = index.stream()
+                .filter(e -> e.className().equals("com.mycompany.webapp.controllers.GreetingController"))
+                .findFirst().orElseThrow();
+        assertEquals(List.of("GET /greeting"), greeting.routes());
+    }
+
+    @Test
+    public void processorIndexesControllersAndIsLoadableFromOutput() throws Exception {
+        Path src = Files.createTempDirectory("idx-src");
+        Files.writeString(src.resolve("Plain.java"), "package demo; public class Plain {}");
+        Files.writeString(src.resolve("Orders.java"), """
+                package demo;
+                import microframework.annotations.*;
+                @RestController
+                public class Orders {
+                    @GetMapping("orders") public String list() { return ""; }
+                    @GetMapping("/orders/{id}") public String one(@PathVariable("id") String id) { return id; }
+                    @RestController public static class Nested {
+                        @GetMapping("/nested") public String n() { return ""; }
+                    }
+                }
+                """);
+        Compilation c = compile(src);
+        assertTrue(c.diagnostics.toString(), c.ok);
+
+        try (URLClassLoader loader = new URLClassLoader(new java.net.URL[]{c.out.toUri().toURL()}, null)) {
+            List<ControllerIndex.Entry> index = ControllerIndex.load(loader, "demo");
+            assertEquals(2, index.size());
+            assertEquals("demo.Orders", index.get(0).className());
+            assertEquals(List.of("GET /orders", "GET /orders/{id}"), index.get(0).routes());
+            assertEquals("demo.Orders$Nested", index.get(1).className());
+            assertTrue(ControllerIndex.load(loader, "other").isEmpty());
+        }
+    }
+
+    @Test
+    public void controllerWithoutNoArgConstructorFailsCompilation() throws Exception {
+        Path src = Files.createTempDirectory("idx-src");
+        Files.writeString(src.resolve("Bad.java"), """
+                package demo;
+                @microframework.annotations.RestController
+                public class Bad {
+                    public Bad(String dep) {}
+                }
+                """);
+        Compilation c = compile(src);
+        assertFalse(c.ok);
+        assertTrue(c.diagnostics.toString(), c.diagnostics.toString().contains("constructor sin argumentos"));
+        assertFalse(Files.exists(c.out.resolve(RouteIndexProcessor.INDEX)));
+    }
+
+    private record Compilation(boolean ok, Path out, List<Diagnostic<? extends JavaFileObject>> diagnostics) {}
+
+    private static Compilation compile(Path src) throws Exception {
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        Path out = Files.createTempDirectory("idx-out");
+        String annotations = Path.of(RestController.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fm = javac.getStandardFileManager(diagnostics, null, null);
+             var files = Files.list(src)) {
+            JavaCompiler.CompilationTask task = javac.getTask(null, fm, diagnostics,
+                    List.of("-classpath", annotations, "-d", out.toString(), "-implicit:none"),
+                    null, fm.getJavaFileObjectsFromPaths(files.toList()));
+            task.setProcessors(List.of(new RouteIndexProcessor()));
+            return new Compilation(task.call(), out, diagnostics.getDiagnostics());
+        }
+    }
+}
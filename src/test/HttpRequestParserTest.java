@@ -0,0 +1,53 @@
+import com.mycompany.httpserver.HttpParseException;
+import com.mycompany.httpserver.HttpRequest;
+import com.mycompany.httpserver.HttpRequestParser;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class HttpRequestParserTest {
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    @Test
+    public void parsesRequestLine_andHeadersLazily() throws Exception {
+        byte[] b = bytes("GET /stocks?symbol=IBM HTTP/1.1\r\nHost: localhost\r\nX-Trace:  abc \r\n\r\n");
+        HttpRequestParser p = new HttpRequestParser();
+        int end = p.parse(b, 0, b.length);
+        assertEquals(b.length, end);
+        assertEquals("GET", p.method());
+        assertEquals("HTTP/1.1", p.version());
+        assertTrue(p.keepAlive());
+
+        HttpRequest req = p.toRequest(b, 0);
+        assertEquals("/stocks", req.getPath());
+        assertEquals("symbol=IBM", req.getRawQuery());
+        assertEquals("abc", req.getHeader("x-trace"));
+        assertNull(req.getHeader("Accept"));
+    }
+
+    @Test
+    public void needsMore_untilBlankLine() throws Exception {
+        byte[] b = bytes("GET / HTTP/1.0\r\nConnection: keep-alive\r\n\r\n");
+        HttpRequestParser p = new HttpRequestParser();
+        assertEquals(HttpRequestParser.NEED_MORE, p.parse(b, 0, 20));
+        assertEquals(b.length, p.parse(b, 0, b.length));
+        assertTrue(p.keepAlive());
+    }
+
+    @Test
+    public void rejectsOversizedRequestLine() {
+        byte[] b = bytes("GET /" + "a".repeat(200) + " HTTP/1.1\r\n\r\n");
+        HttpRequestParser p = new HttpRequestParser(100, 1024, 10);
+        try {
+            p.parse(b, 0, b.length);
+            fail("Expected 414");
+        } catch (HttpParseException e) {
+            assertEquals(414, e.status());
+        }
+    }
+}
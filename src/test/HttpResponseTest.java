@@ -0,0 +1,100 @@
+import com.mycompany.httpserver.HttpResponse;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class HttpResponseTest {
+
+    @Test
+    public void headersAreReplacedOrAppended_caseInsensitive() {
+        HttpResponse resp = new HttpResponse();
+        resp.setStatus(201).setHeader("Cache-Control", "no-cache").setHeader("cache-control", "no-store");
+        assertEquals(201, resp.getStatus());
+        assertEquals("no-store", resp.getHeader("CACHE-CONTROL"));
+
+        resp.setHeader("Content-Type", "text/plain");
+        assertEquals("text/plain", resp.getContentType());
+        assertNull(resp.getHeader("Content-Length"));
+    }
+
+    @Test
+    public void flushCommitsHeaders() throws Exception {
+        HttpResponse resp = new HttpResponse();
+        resp.getWriter().print("parcial");
+        assertFalse(resp.isCommitted());
+        resp.flush();
+        assertTrue(resp.isCommitted());
+        try {
+            resp.setStatus(500);
+        } catch (IllegalStateException expected) {
+            return;
+        }
+        throw new AssertionError("setStatus después del commit debe fallar");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidStatus() {
+        new HttpResponse().setStatus(42);
+    }
+
+    @Test
+    public void rejectsHeaderInjection() {
+        HttpResponse resp = new HttpResponse();
+        String[][] bad = {{"X-Ok", "a\r\nSet-Cookie: x=1"}, {"X-Ok", "a\nb"}, {"X Bad", "v"}, {"X-Bad:", "v"}, {"", "v"}};
+        for (String[] h : bad) {
+            try {
+                resp.setHeader(h[0], h[1]);
+                throw new AssertionError("setHeader debe rechazar " + h[0]);
+            } catch (IllegalArgumentException expected) {}
+            try {
+                resp.addHeader(h[0], h[1]);
+                throw new AssertionError("addHeader debe rechazar " + h[0]);
+            } catch (IllegalArgumentException expected) {}
+        }
+        try {
+            resp.setContentType("text/plain\r\nX-Evil: 1");
+            throw new AssertionError("setContentType debe rechazar CRLF");
+        } catch (IllegalArgumentException expected) {}
+        assertNull(resp.getHeader("X-Ok"));
+        assertEquals("application/json; charset=utf-8", resp.getContentType());
+    }
+
+    @Test
+    public void contentLengthMustBeANonNegativeNumber() {
+        HttpResponse resp = new HttpResponse();
+        for (String bad : new String[]{"abc", "-1", "", "12x"}) {
+            try {
+                resp.setHeader("Content-Length", bad);
+                throw new AssertionError("Content-Length debe rechazar " + bad);
+            } catch (IllegalArgumentException expected) {}
+        }
+        try {
+            resp.setContentLength(-5);
+            throw new AssertionError("setContentLength debe rechazar negativos");
+        } catch (IllegalArgumentException expected) {}
+        resp.setHeader("Content-Length", " 42 ");
+        assertEquals("42", resp.getHeader("Content-Length"));
+    }
+
+    @Test
+    public void writingAfterTheBodyEndedFails() throws Exception {
+        HttpResponse resp = new HttpResponse();
+        OutputStream out = resp.getOutputStream();
+        out.write('a');
+        out.close();
+        try {
+            out.write('b');
+            throw new AssertionError("write(int) después de close debe fallar");
+        } catch (IOException expected) {}
+        try {
+            out.write(new byte[]{'c'});
+            throw new AssertionError("write(byte[]) después de close debe fallar");
+        } catch (IOException expected) {}
+    }
+}
@@ -0,0 +1,90 @@
+import com.mycompany.httpserver.HttpServer;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HttpServerKeepAliveTest {
+
+    private static final int PORT = 36110;
+    private static boolean started;
+
+    private static synchronized void start() throws Exception {
+        if (started) return;
+        started = true;
+        HttpServer.get("/keepalive-test", (req, resp) -> "hello");
+        Thread t = new Thread(() -> {
+            try {
+                HttpServer.startServer(new String[]{String.valueOf(PORT)});
+            } catch (Exception ignored) {}
+        });
+        t.setDaemon(true);
+        t.start();
+        Thread.sleep(300);
+    }
+
+    /** Envía las peticiones de una vez y lee hasta que el servidor cierra. */
+    private static String exchange(String requests) throws Exception {
+        try (Socket s = new Socket("localhost", PORT)) {
+            s.getOutputStream().write(requests.getBytes(StandardCharsets.US_ASCII));
+            s.setSoTimeout(2_000);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            InputStream in = s.getInputStream();
+            byte[] b = new byte[1024];
+            try {
+                for (int n; (n = in.read(b)) >= 0; ) out.write(b, 0, n);
+            } catch (SocketTimeoutException ignored) {}
+            return out.toString(StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    private static boolean keepAlive(String version, String connection) throws Exception {
+        Method m = HttpServer.class.getDeclaredMethod("isKeepAlive", String.class, String.class);
+        m.setAccessible(true);
+        return (Boolean) m.invoke(null, version, connection);
+    }
+
+    @Test
+    public void http11_isPersistentByDefault() throws Exception {
+        assertTrue(keepAlive("HTTP/1.1", null));
+        assertFalse(keepAlive("HTTP/1.1", "close"));
+        assertFalse(keepAlive("HTTP/1.1", "Upgrade, Close"));
+    }
+
+    @Test
+    public void http10_needsExplicitKeepAlive() throws Exception {
+        assertFalse(keepAlive("HTTP/1.0", null));
+        assertTrue(keepAlive("HTTP/1.0", "Keep-Alive"));
+    }
+
+    @Test
+    public void pipelinedHeadThenGet_headHasNoBody() throws Exception {
+        start();
+        String resp = exchange("HEAD /keepalive-test HTTP/1.1\r\nHost: x\r\n\r\n"
+                + "GET /keepalive-test HTTP/1.1\r\nHost: x\r\nConnection: close\r\n\r\n");
+        int second = resp.indexOf("HTTP/1.1 200", 1);
+        assertTrue(resp, resp.startsWith("HTTP/1.1 200") && second > 0);
+        String head = resp.substring(0, second);
+        // HEAD: mismo Content-Length que el GET y nada después de la línea vacía
+        assertTrue(head, head.contains("Content-Length: 5\r\n"));
+        assertTrue(head, head.endsWith("\r\n\r\n"));
+        assertTrue(resp, resp.endsWith("\r\n\r\nhello"));
+    }
+
+    @Test
+    public void otherMethodsGet405WithAllow() throws Exception {
+        start();
+        String resp = exchange("POST /keepalive-test HTTP/1.1\r\nHost: x\r\nContent-Length: 0\r\nConnection: close\r\n\r\n");
+        assertTrue(resp, resp.startsWith("HTTP/1.1 405 "));
+        assertTrue(resp, resp.contains("Allow: GET, HEAD\r\n"));
+        assertEquals(1, resp.split("HTTP/1.1 ", -1).length - 1);
+    }
+}
@@ -0,0 +1,79 @@
+import com.mycompany.httpserver.JsonWriter;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JsonWriterTest {
+
+    private static final byte[] PRICE = JsonWriter.key("price");
+
+    @Test
+    public void writesNestedStructuresWithCommas() {
+        try (JsonWriter w = JsonWriter.acquire()) {
+            w.beginObject()
+                    .name("ok").value(true)
+                    .name(PRICE).value(12.5, 2)
+                    .name("list").beginArray().value(1).value("a").nullValue().beginObject().endObject().endArray()
+                    .endObject();
+            assertEquals("{\"ok\":true,\"price\":12.50,\"list\":[1,\"a\",null,{}]}", w.toString());
+        }
+    }
+
+    @Test
+    public void fixedPointMatchesStringFormat() {
+        double[] samples = {0, -0.0, 1.005, 2.675, 0.125, -0.001, 53.255, 9.995, 123456789.125, 41610508865.6, -4.999};
+        try (JsonWriter w = JsonWriter.acquire()) {
+            for (double d : samples) {
+                w.reset().value(d, 2);
+                assertEquals(String.format(Locale.US, "%.2f", d), w.toString());
+            }
+            w.reset().value(Double.NaN, 2);
+            assertEquals("null", w.toString());
+        }
+    }
+
+    @Test
+    public void escapesAndEncodesUtf8() {
+        try (JsonWriter w = JsonWriter.acquire()) {
+            w.value("a\"b\\c\n\u0001ñ€😀");
+            byte[] expected = "\"a\\\"b\\\\c\\n\\u0001ñ€😀\"".getBytes(StandardCharsets.UTF_8);
+            assertEquals(new String(expected, StandardCharsets.UTF_8), new String(w.toByteArray(), StandardCharsets.UTF_8));
+            assertEquals(expected.length, w.size());
+        }
+    }
+
+    @Test
+    public void timestampIsIsoInstantWithMillis() {
+        try (JsonWriter w = JsonWriter.acquire()) {
+            w.timestamp(1_700_000_000_123L);
+            assertEquals("\"2023-11-14T22:13:20.123Z\"", w.toString());
+            w.reset().timestamp(951_782_400_000L); // 29-feb-2000
+            assertEquals("\"2000-02-29T00:00:00.000Z\"", w.toString());
+        }
+    }
+
+    @Test
+    public void closingTwiceReturnsTheWriterToThePoolOnce() {
+        JsonWriter w = JsonWriter.acquire();
+        w.close();
+        w.close();
+        // Todo lo que hay en el pool (256 como máximo) sale una vez: ninguna instancia repetida
+        Set<JsonWriter> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<JsonWriter> taken = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            JsonWriter a = JsonWriter.acquire();
+            assertTrue("el mismo escritor salió dos veces del pool", seen.add(a));
+            taken.add(a);
+        }
+        for (JsonWriter a : taken) a.close();
+    }
+}
@@ -0,0 +1,62 @@
+import com.mycompany.httpserver.HttpServer;
+import com.mycompany.httpserver.LoadGenerator;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LoadGeneratorTest {
+
+    private static final int PORT = 36108;
+
+    private static void startServer() throws InterruptedException {
+        Thread t = new Thread(() -> {
+            try {
+                HttpServer.startServer(new String[]{String.valueOf(PORT)});
+            } catch (Exception ignored) {}
+        });
+        t.setDaemon(true);
+        t.start();
+        Thread.sleep(300);
+    }
+
+    @Test
+    public void parsesOptionsAndWeightedTargets() {
+        LoadGenerator.Config c = LoadGenerator.Config.parse(new String[]{
+                "-p", "9999", "-c", "4", "-r", "500", "-d", "3", "-w", "0", "--close", "3:/stocks?symbol=AAPL", "/app/hello"});
+        assertEquals(9999, c.port());
+        assertEquals(4, c.connections());
+        assertEquals(500.0, c.rate(), 0);
+        assertEquals(false, c.keepAlive());
+        assertEquals(List.of(new LoadGenerator.Target("/stocks?symbol=AAPL", 3), new LoadGenerator.Target("/app/hello", 1)),
+                c.targets());
+    }
+
+    @Test
+    public void stallShowsUpOnlyInCorrectedLatency() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        HttpServer.get("/loadgen-test/stall", (req, resp) -> {
+            if (calls.incrementAndGet() == 100) Thread.sleep(300); // una sola pausa larga
+            return "ok";
+        });
+        HttpServer.get("/loadgen-test/other", (req, resp) -> "other");
+        startServer();
+
+        // 1 conexión a 200 req/s durante 2 s: la pausa retrasa ~60 peticiones programadas detrás de ella
+        LoadGenerator.Report r = LoadGenerator.run(new LoadGenerator.Config("localhost", PORT, 1, 200, 2, 0, true,
+                List.of(new LoadGenerator.Target("/loadgen-test/stall", 3), new LoadGenerator.Target("/loadgen-test/other", 1))));
+
+        assertEquals(0, r.errors());
+        assertEquals(400, r.requests());
+        assertEquals(400, r.requests(200));
+        assertTrue(calls.get() > 200 && calls.get() < 400);
+        long correctedP99 = r.corrected().percentile(0.99);
+        long serviceP95 = r.service().percentile(0.95);
+        assertTrue(r.toString(), correctedP99 >= 200_000_000L);
+        assertTrue(r.toString(), serviceP95 < 100_000_000L);
+        assertTrue(r.maxServiceNanos() >= 300_000_000L);
+    }
+}
@@ -0,0 +1,70 @@
+import com.mycompany.httpserver.HttpServer;
+import com.mycompany.httpserver.LatencyHistogram;
+import com.mycompany.httpserver.Metrics;
+import org.junit.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsTest {
+
+    @Test
+    public void histogramPercentilesStayWithinOneSixteenth() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long v = 1; v <= 100_000; v++) h.record(v * 1_000); // 1 µs .. 100 ms, uniforme
+        assertEquals(100_000, h.count());
+        long[] q = h.percentiles(0.5, 0.99, 0.999);
+        long[] exact = {50_000_000L, 99_000_000L, 99_900_000L};
+        for (int i = 0; i < q.length; i++) {
+            assertTrue("p" + i + "=" + q[i], q[i] >= exact[i]);
+            assertTrue("p" + i + "=" + q[i], q[i] <= exact[i] + exact[i] / 16);
+        }
+    }
+
+    @Test
+    public void histogramSmallAndHugeValues() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.percentile(0.5));
+        h.record(7);
+        assertEquals(7, h.percentile(0.5));
+        h.record(Long.MAX_VALUE);
+        assertTrue(h.percentile(1.0) >= 1L << 40);
+    }
+
+    @Test
+    public void scrapeExposesRouteCountersAndPhases() throws Exception {
+        HttpServer.get("/metrics-test/{id}", (req, resp) -> "id " + req.getPathVariable("id"));
+        Metrics.gauge("metrics_test_value", "Valor fijo de prueba.", () -> 42);
+        Thread t = new Thread(() -> {
+            try {
+                HttpServer.startServer(new String[]{"36107"});
+            } catch (Exception ignored) {}
+        });
+        t.setDaemon(true);
+        t.start();
+        Thread.sleep(300);
+
+        HttpClient client = HttpClient.newHttpClient();
+        for (int i = 0; i < 3; i++) {
+            client.send(HttpRequest.newBuilder(URI.create("http://localhost:36107/metrics-test/" + i)).build(),
+                    HttpResponse.BodyHandlers.discarding());
+        }
+        HttpResponse<String> r = client.send(HttpRequest.newBuilder(URI.create("http://localhost:36107/metrics")).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, r.statusCode());
+        assertTrue(r.headers().firstValue("Content-Type").orElse("").startsWith("text/plain; version=0.0.4"));
+        String body = r.body();
+        assertTrue(body, body.contains("http_requests_total{route=\"/metrics-test/{id}\",code=\"200\"} 3\n"));
+        assertTrue(body, body.contains("http_request_phase_seconds_count{route=\"/metrics-test/{id}\",phase=\"handler\"} 3\n"));
+        assertTrue(body, body.contains("http_request_phase_seconds{route=\"/metrics-test/{id}\",phase=\"parse\",quantile=\"0.99\"}"));
+        assertTrue(body, body.contains("# TYPE http_request_phase_seconds summary\n"));
+        assertTrue(body, body.contains("metrics_test_value 42\n"));
+        assertEquals(0, Metrics.route("/metrics-test/{id}").inFlight());
+    }
+}
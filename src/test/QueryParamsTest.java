@@ -0,0 +1,26 @@
+import com.mycompany.httpserver.QueryParams;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class QueryParamsTest {
+
+    @Test
+    public void keepsRepeatedValues_inOrder() {
+        QueryParams q = QueryParams.parse("s=AAPL&s=MSFT&x=1");
+        assertEquals("AAPL", q.first("s"));
+        assertEquals(List.of("AAPL", "MSFT"), q.all("s"));
+        assertEquals("1", q.asMap().get("x"));
+    }
+
+    @Test
+    public void decodesPlusAndEscapes_andToleratesBadOnes() {
+        QueryParams q = QueryParams.parse("name=Ana+Mar%C3%ADa&bad=%zz&flag");
+        assertEquals("Ana María", q.first("name"));
+        assertEquals("%zz", q.first("bad"));
+        assertTrue(q.contains("flag"));
+        assertEquals("", q.first("flag"));
+    }
+}
@@ -0,0 +1,70 @@
+import com.mycompany.webapp.controllers.Quote;
+import com.mycompany.webapp.controllers.QuoteCache;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class QuoteCacheTest {
+
+    private static QuoteCache.Entry entry(String sym) {
+        return new QuoteCache.Entry(Quote.mock(sym), new byte[0], new byte[0]);
+    }
+
+    @Test
+    public void repeatedLookupsAreHits() {
+        QuoteCache cache = new QuoteCache(60_000, 100);
+        AtomicInteger loads = new AtomicInteger();
+        QuoteCache.Entry first = cache.get("AAPL", s -> { loads.incrementAndGet(); return entry(s); });
+        for (int i = 0; i < 5; i++) assertSame(first, cache.get("AAPL", s -> { loads.incrementAndGet(); return entry(s); }));
+        assertEquals(1, loads.get());
+        assertEquals(5, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals("AAPL", first.quote().symbol());
+    }
+
+    @Test
+    public void expiredEntriesAreRecomputed() throws Exception {
+        QuoteCache cache = new QuoteCache(20, 100);
+        QuoteCache.Entry first = cache.get("MSFT", QuoteCacheTest::entry);
+        Thread.sleep(40);
+        assertNotSame(first, cache.get("MSFT", QuoteCacheTest::entry));
+        assertEquals(2, cache.misses());
+    }
+
+    @Test
+    public void staysWithinMaxEntries() {
+        QuoteCache cache = new QuoteCache(60_000, 64);
+        for (int i = 0; i < 1_000; i++) {
+            cache.get("SYM" + i, QuoteCacheTest::entry);
+            cache.get("HOT", QuoteCacheTest::entry); // siempre el más reciente
+        }
+        assertTrue(cache.size() <= 64);
+        assertTrue(cache.evictions() > 0);
+        long misses = cache.misses();
+        cache.get("HOT", QuoteCacheTest::entry);
+        assertEquals(misses, cache.misses());
+    }
+
+    @Test
+    public void zeroTtlDisablesCaching() {
+        QuoteCache cache = new QuoteCache(0, 100);
+        cache.get("IBM", QuoteCacheTest::entry);
+        cache.get("IBM", QuoteCacheTest::entry);
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.misses());
+    }
+
+    @Test
+    public void mockQuoteIsDeterministicAndUpperCased() {
+        Quote a = Quote.mock("ibm");
+        Quote b = Quote.mock("IBM");
+        assertEquals("IBM", a.symbol());
+        assertEquals(a.price(), b.price(), 0.0);
+        assertEquals(10, a.history().length);
+    }
+}
@@ -0,0 +1,54 @@
+import com.mycompany.httpserver.HttpServer;
+import com.mycompany.httpserver.Router;
+import com.mycompany.httpserver.Service;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class RouterTest {
+
+    private static Router router(String... patterns) {
+        Map<String, Service> m = new LinkedHashMap<>();
+        for (String p : patterns) m.put(p, (req, resp) -> p);
+        return Router.build(m);
+    }
+
+    @Test
+    public void literalsWinOverVariables_andMatchIgnoresCase() {
+        Router r = router("/stocks/{symbol}", "/stocks/batch");
+        int[] caps = new int[2 * r.maxVariables()];
+        assertEquals("/stocks/batch", r.match("/STOCKS/batch", caps).pattern());
+
+        Router.Route route = r.match("/stocks/IbM", caps);
+        assertEquals("/stocks/{symbol}", route.pattern());
+        assertEquals("IbM", "/stocks/IbM".substring(caps[0], caps[1]));
+    }
+
+    @Test
+    public void wildcards() {
+        Router r = router("/files/*/meta", "/assets/**");
+        int[] caps = new int[2];
+        assertNotNull(r.match("/files/a/meta", caps));
+        assertNull(r.match("/files/a/b", caps));
+        assertEquals("/assets/**", r.match("/assets/css/app.css", caps).pattern());
+        assertEquals("css/app.css", "/assets/css/app.css".substring(caps[0], caps[1]));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void conflictingVariablesAreRejected() {
+        router("/a/{x}", "/a/{y}/b");
+    }
+
+    @Test
+    public void invalidRouteDoesNotPoisonTheRegistry() {
+        try {
+            HttpServer.get("/router-test/**/x", (req, resp) -> "bad");
+            fail("'**' en medio debe rechazarse");
+        } catch (IllegalArgumentException expected) {}
+        // La ruta inválida no quedó registrada: las siguientes se siguen aceptando
+        HttpServer.get("/router-test/ok", (req, resp) -> "ok");
+    }
+}
@@ -0,0 +1,57 @@
+import com.mycompany.httpserver.HttpServer;
+import org.junit.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class StaticConditionalGetTest {
+
+    @Test
+    public void static_files_carry_validators_and_answer_304() throws Exception {
+        HttpServer.staticfiles("/static");
+        Thread t = new Thread(() -> {
+            try {
+                HttpServer.startServer(new String[]{"36102"});
+            } catch (Exception ignored) {}
+        });
+        t.setDaemon(true);
+        t.start();
+        Thread.sleep(300);
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI css = URI.create("http://localhost:36102/css/styles.css");
+
+        HttpResponse<String> full = client.send(HttpRequest.newBuilder(css).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, full.statusCode());
+        String etag = full.headers().firstValue("ETag").orElse(null);
+        String lastModified = full.headers().firstValue("Last-Modified").orElse(null);
+        assertNotNull(etag);
+        assertNotNull(lastModified);
+        assertTrue(full.headers().firstValue("Cache-Control").isPresent());
+
+        // If-None-Match con el mismo ETag -> 304 sin cuerpo
+        HttpResponse<String> byTag = client.send(HttpRequest.newBuilder(css).header("If-None-Match", etag).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(304, byTag.statusCode());
+        assertEquals("", byTag.body());
+        assertEquals(etag, byTag.headers().firstValue("ETag").orElse(null));
+
+        // If-Modified-Since igual a Last-Modified -> 304
+        HttpResponse<String> byDate = client.send(HttpRequest.newBuilder(css).header("If-Modified-Since", lastModified).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(304, byDate.statusCode());
+
+        // ETag distinto -> respuesta completa (If-None-Match manda sobre la fecha)
+        HttpResponse<String> changed = client.send(HttpRequest.newBuilder(css)
+                        .header("If-None-Match", "\"otro\"").header("If-Modified-Since", lastModified).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, changed.statusCode());
+        assertTrue(changed.body().length() > 0);
+    }
+}
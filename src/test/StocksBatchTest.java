@@ -0,0 +1,36 @@
+import com.mycompany.httpserver.HttpRequest;
+import com.mycompany.httpserver.HttpResponse;
+import com.mycompany.webapp.controllers.StocksApiController;
+import org.junit.Test;
+
+import java.net.URI;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StocksBatchTest {
+
+    private static String batch(String query, HttpResponse resp) {
+        return new StocksApiController().batch(new HttpRequest(URI.create("/api/stocks/batch" + query)), resp);
+    }
+
+    @Test
+    public void missingSymbolsIsBadRequest() {
+        HttpResponse resp = new HttpResponse();
+        String body = batch("?symbols=,,", resp);
+        assertEquals(400, resp.getStatus());
+        assertTrue(body.contains("\"ok\":false"));
+    }
+
+    @Test
+    public void largeBatchIsStreamedWithExactLength() throws Exception {
+        StringBuilder q = new StringBuilder("?symbols=");
+        for (int i = 0; i < 200; i++) q.append(i == 0 ? "" : ",").append("W").append(i);
+        HttpResponse resp = new HttpResponse();
+        assertNull(batch(q.toString(), resp));
+        assertEquals(200, resp.getStatus());
+        assertTrue(resp.isCommitted());
+        assertTrue(Long.parseLong(resp.getHeader("Content-Length")) > 200 * 400);
+    }
+}
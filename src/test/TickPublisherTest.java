@@ -0,0 +1,110 @@
+import com.mycompany.webapp.controllers.TickPublisher;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TickPublisherTest {
+
+    // Intervalo enorme: los ticks se generan a mano con publishAll()
+    private final TickPublisher ticks = new TickPublisher(3_600_000);
+
+    @Test
+    public void eachTickIsSerializedOnceAndSharedByAllSubscribers() throws Exception {
+        TickPublisher.Subscriber a = ticks.subscribe(List.of("AAPL"), TickPublisher.Policy.COALESCE, 8);
+        TickPublisher.Subscriber b = ticks.subscribe(List.of("AAPL", "MSFT"), TickPublisher.Policy.COALESCE, 8);
+        List<TickPublisher.Tick> ta = new ArrayList<>(), tb = new ArrayList<>();
+        assertEquals(1, a.poll(0, ta)); // último tick conocido al suscribirse
+        assertEquals(2, b.poll(0, tb));
+
+        ta.clear(); tb.clear();
+        ticks.publishAll();
+        a.poll(0, ta);
+        b.poll(0, tb);
+        assertEquals(1, ta.size());
+        TickPublisher.Tick aapl = tb.stream().filter(t -> t.symbol().equals("AAPL")).findFirst().orElseThrow();
+        assertSame(ta.get(0), aapl);
+        assertSame(aapl.sse(), ta.get(0).sse());
+        assertSame(aapl.textFrame(), ta.get(0).textFrame());
+
+        String frame = new String(aapl.sse(), StandardCharsets.UTF_8);
+        assertTrue(frame.startsWith("id: ") && frame.contains("\nevent: tick\ndata: {\"symbol\":\"AAPL\"") && frame.endsWith("}\n\n"));
+    }
+
+    @Test
+    public void slowCoalescingSubscriberKeepsOnlyLatestPerSymbol() throws Exception {
+        TickPublisher.Subscriber s = ticks.subscribe(List.of("IBM", "TSLA"), TickPublisher.Policy.COALESCE, 1);
+        for (int i = 0; i < 10; i++) ticks.publishAll();
+        List<TickPublisher.Tick> pending = new ArrayList<>();
+        assertEquals(2, s.poll(0, pending));
+        assertEquals(20, s.dropped());
+    }
+
+    @Test
+    public void slowDroppingSubscriberIsBounded() throws Exception {
+        TickPublisher.Subscriber s = ticks.subscribe(List.of("IBM"), TickPublisher.Policy.DROP, 4);
+        for (int i = 0; i < 10; i++) ticks.publishAll();
+        List<TickPublisher.Tick> pending = new ArrayList<>();
+        assertEquals(4, s.poll(0, pending));
+        assertEquals(7, s.dropped());
+    }
+
+    @Test
+    public void symbolsCanChangeWithoutResubscribing() throws Exception {
+        TickPublisher.Subscriber s = ticks.subscribe(List.of("AAPL"), TickPublisher.Policy.COALESCE, 8);
+        assertTrue(ticks.add(s, "MSFT"));
+        ticks.remove(s, "AAPL");
+        assertEquals(Set.of("MSFT"), s.symbols());
+        assertEquals(1, ticks.symbols());
+
+        List<TickPublisher.Tick> pending = new ArrayList<>();
+        s.poll(0, pending); // lo pendiente de AAPL se descartó
+        assertEquals(1, pending.size());
+        assertEquals("MSFT", pending.get(0).symbol());
+    }
+
+    @Test
+    public void binaryFrameIsCompact() {
+        TickPublisher.Subscriber s = ticks.subscribe(List.of("IBM"), TickPublisher.Policy.DROP, 4);
+        List<TickPublisher.Tick> pending = new ArrayList<>();
+        try {
+            s.poll(0, pending);
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+        byte[] f = pending.get(0).binaryFrame();
+        assertEquals((byte) 0x82, f[0]);
+        assertEquals(1 + 3 + 4 + 4 + 8, f[1]);
+        assertEquals(3, f[2]);
+    }
+
+    @Test
+    public void unsubscribeStopsGeneratingUnwatchedSymbols() {
+        TickPublisher.Subscriber s = ticks.subscribe(List.of("AMZN"), TickPublisher.Policy.DROP, 4);
+        assertEquals(1, ticks.symbols());
+        ticks.unsubscribe(s);
+        assertEquals(0, ticks.symbols());
+        assertEquals(0, ticks.subscribers());
+    }
+
+    @Test
+    public void invalidSymbolsAreRejected() {
+        assertTrue(TickPublisher.isValidSymbol("BRK.B"));
+        assertTrue(TickPublisher.isValidSymbol("^GSPC"));
+        assertFalse(TickPublisher.isValidSymbol("aapl"));
+        assertFalse(TickPublisher.isValidSymbol("A".repeat(17)));
+        assertFalse(TickPublisher.isValidSymbol("A B"));
+        try {
+            ticks.subscribe(List.of("AAPL", "X".repeat(4096)), TickPublisher.Policy.COALESCE, 8);
+            throw new AssertionError("subscribe debe rechazar símbolos inválidos");
+        } catch (IllegalArgumentException expected) {}
+        assertEquals(0, ticks.subscribers());
+    }
+}
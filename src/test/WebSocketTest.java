@@ -0,0 +1,91 @@
+import com.mycompany.httpserver.HttpServer;
+import com.mycompany.httpserver.WebSocket;
+import com.mycompany.httpserver.WebSocketHandler;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class WebSocketTest {
+
+    @Test
+    public void acceptKeyMatchesRfcExample() {
+        // RFC 6455 §1.3
+        assertEquals("s3pPLMBiTxaQ9kYGzzhZRbK+xOo=", WebSocket.acceptKey("dGhlIHNhbXBsZSBub25jZQ=="));
+    }
+
+    @Test
+    public void serverFramesUseShortestLengthEncoding() {
+        byte[] small = WebSocket.textFrame("hola".getBytes(StandardCharsets.UTF_8));
+        assertEquals((byte) 0x81, small[0]);
+        assertEquals(4, small[1]);
+        assertEquals(6, small.length);
+
+        byte[] medium = WebSocket.binaryFrame(new byte[300]);
+        assertEquals((byte) 0x82, medium[0]);
+        assertEquals(126, medium[1]);
+        assertEquals(300, ((medium[2] & 0xFF) << 8) | (medium[3] & 0xFF));
+
+        byte[] large = WebSocket.binaryFrame(new byte[70_000]);
+        assertEquals(127, large[1]);
+        assertEquals(10 + 70_000, large.length);
+    }
+
+    @Test
+    public void echoesTextAndCompletesCloseHandshake() throws Exception {
+        HttpServer.websocket("/ws/echo", new WebSocketHandler() {
+            @Override
+            public void onText(WebSocket ws, String message) {
+                try {
+                    ws.sendText("eco: " + message);
+                } catch (IOException e) {
+                    ws.close(WebSocket.GOING_AWAY, "");
+                }
+            }
+        });
+        Thread t = new Thread(() -> {
+            try {
+                HttpServer.startServer(new String[]{"36104"});
+            } catch (Exception ignored) {}
+        });
+        t.setDaemon(true);
+        t.start();
+        Thread.sleep(300);
+
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        java.net.http.WebSocket ws = HttpClient.newHttpClient().newWebSocketBuilder()
+                .buildAsync(URI.create("ws://localhost:36104/ws/echo"), new java.net.http.WebSocket.Listener() {
+                    @Override
+                    public CompletionStage<?> onText(java.net.http.WebSocket w, CharSequence data, boolean last) {
+                        received.add(data.toString());
+                        w.request(1);
+                        return null;
+                    }
+
+                    @Override
+                    public CompletionStage<?> onClose(java.net.http.WebSocket w, int code, String reason) {
+                        received.add("close " + code);
+                        return null;
+                    }
+                }).get(5, TimeUnit.SECONDS);
+
+        ws.sendText("ñandú", true).get(5, TimeUnit.SECONDS);
+        assertEquals("eco: ñandú", received.poll(5, TimeUnit.SECONDS));
+
+        // Mensaje fragmentado en dos frames
+        ws.sendText("a", false).get(5, TimeUnit.SECONDS);
+        ws.sendText("b", true).get(5, TimeUnit.SECONDS);
+        assertEquals("eco: ab", received.poll(5, TimeUnit.SECONDS));
+
+        ws.sendClose(WebSocket.NORMAL_CLOSURE, "fin").get(5, TimeUnit.SECONDS);
+        assertEquals("close 1000", received.poll(5, TimeUnit.SECONDS));
+    }
+}